@@ -0,0 +1,138 @@
+package plc.project;
+
+/**
+ * Synthetic programs used as benchmark input. A program is a number of
+ * fields and methods, followed by a {@code main} method calling every other
+ * method, with as many as needed for the source to reach the requested size.
+ *
+ * The programs only use constructs which every stage of the pipeline
+ * accepts, so the same source can be lexed, parsed, analyzed, interpreted
+ * and generated.
+ */
+public final class Corpus {
+
+    private Corpus() {}
+
+    /**
+     * Parses a size such as {@code 1KB}, {@code 100KB} or {@code 10MB} into a
+     * number of characters.
+     */
+    public static int parseSize(String size) {
+        if (size.endsWith("MB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024 * 1024;
+        } else if (size.endsWith("KB")) {
+            return Integer.parseInt(size.substring(0, size.length() - 2)) * 1024;
+        } else {
+            return Integer.parseInt(size);
+        }
+    }
+
+    /**
+     * Returns a program with a source of at least {@code size} characters.
+     */
+    public static String program(int size) {
+        StringBuilder fields = new StringBuilder();
+        StringBuilder builder = new StringBuilder(size + 1024);
+        StringBuilder main = new StringBuilder();
+        int count = 0;
+        while (fields.length() + builder.length() + main.length() < size || count == 0) {
+            fields.append("LET field").append(count).append(": Integer = ").append(count).append(";\n");
+            builder.append("DEF method").append(count).append("(): Integer DO\n");
+            builder.append("    LET x: Integer = ").append(count % 7).append(";\n");
+            builder.append("    LET y = x * 2 + field").append(count).append(" - 1;\n");
+            builder.append("    IF x < 10 AND y >= 3 DO\n");
+            builder.append("        y = y / 2;\n");
+            builder.append("    ELSE\n");
+            builder.append("        y = y + 1;\n");
+            builder.append("    END\n");
+            builder.append("    WHILE x < 8 DO\n");
+            builder.append("        x = x + 1;\n");
+            builder.append("    END\n");
+            builder.append("END\n");
+            main.append("    method").append(count).append("();\n");
+            count++;
+        }
+        return fields.append(builder).append("DEF main(): Integer DO\n").append(main).append("END\n").toString();
+    }
+
+    /**
+     * Returns an expression of {@code length} operands joined by every binary
+     * operator in turn, such as {@code x0 + x1 * x2 < x3 AND x4 - x5 ...}.
+     */
+    public static String expression(int length) {
+        String[] operators = {" + ", " * ", " < ", " AND ", " - ", " / ", " >= ", " OR ", " == "};
+        StringBuilder builder = new StringBuilder("x0");
+        for (int i = 1; i < length; i++) {
+            builder.append(operators[i % operators.length]).append('x').append(i);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns an integer expression nested {@code depth} groups deep, such as
+     * {@code ((1 + 2) * 1) - 2}, whose value stays small at any depth.
+     */
+    public static String nestedExpression(int depth) {
+        String[] operators = {" + 2)", " * 1)", " - 2)"};
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            builder.append('(');
+        }
+        builder.append('1');
+        for (int i = 0; i < depth; i++) {
+            builder.append(operators[i % operators.length]);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns a program whose main runs a numeric loop of {@code iterations}
+     * over Integer locals, which stay within int range.
+     */
+    public static String loop(int iterations) {
+        return String.join("\n",
+                "DEF main(): Integer DO",
+                "    LET total: Integer = 0;",
+                "    LET i: Integer = 0;",
+                "    WHILE i < " + iterations + " DO",
+                "        total = total + i * 2 - total / 2;",
+                "        i = i + 1;",
+                "    END",
+                "END",
+                "");
+    }
+
+    /**
+     * Returns a program whose main runs the same computation as
+     * {@link #loop(int)} over a {@code range}, with a FOR loop.
+     */
+    public static String range(int iterations) {
+        return String.join("\n",
+                "DEF main(): Integer DO",
+                "    LET total: Integer = 0;",
+                "    FOR i IN range(0, " + iterations + ") DO",
+                "        total = total + i * 2 - total / 2;",
+                "    END",
+                "END",
+                "");
+    }
+
+    /**
+     * Returns a program whose main computes the {@code n}th Fibonacci number
+     * recursively, so most of its time is spent calling and returning.
+     */
+    public static String fibonacci(int n) {
+        return String.join("\n",
+                "DEF main(): Integer DO",
+                "    RETURN fib(" + n + ");",
+                "END",
+                "DEF fib(n: Integer): Integer DO",
+                "    IF n < 2 DO",
+                "        RETURN n;",
+                "    END",
+                "    RETURN fib(n - 1) + fib(n - 2);",
+                "END",
+                "");
+    }
+
+}
@@ -0,0 +1,97 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution time of small, hot programs from {@link Corpus}, and of a random
+ * well-typed program from {@link ProgramGenerator#typed(int)}, run by the
+ * {@link Interpreter}, by the interpreter after the {@link Resolver} has
+ * assigned variable slots, and by a {@link Compiler} program. Printed output
+ * is discarded. Run with the gc profiler to compare allocation per
+ * operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionBenchmark {
+
+    @Param({"loop", "range", "fibonacci", "generated"})
+    public String workload;
+
+    private Ast.Source ast;
+    private Ast.Source resolved;
+    private Compiler.Program program;
+    private PrintStream sysout;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sysout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        String source;
+        switch (workload) {
+            case "loop":
+                source = Corpus.loop(100_000);
+                break;
+            case "range":
+                source = Corpus.range(100_000);
+                break;
+            case "fibonacci":
+                source = Corpus.fibonacci(20);
+                break;
+            case "generated":
+                source = ProgramGenerator.print(new ProgramGenerator(0).typed(16 * 1024));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown workload " + workload + ".");
+        }
+        ast = new Parser(new Lexer(source).lex()).parseSource();
+        // The analyzer rejects RETURN statements, and the compiler does not
+        // require an analyzed tree, so the fibonacci program is not analyzed.
+        if (!workload.equals("fibonacci")) {
+            new Analyzer(null).visit(ast);
+        }
+        program = new Compiler(null).compile(ast);
+        resolved = new Parser(new Lexer(source).lex()).parseSource();
+        new Resolver().visit(resolved);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(sysout);
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpret() {
+        return new Interpreter(null).visit(ast);
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpretResolved() {
+        return new Interpreter(null).visit(resolved);
+    }
+
+    @Benchmark
+    public Environment.PlcObject execute() {
+        return program.run();
+    }
+
+}
@@ -0,0 +1,46 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation time for deeply nested binary expressions. Each level used to
+ * evaluate its operands several times, so the cost grew exponentially with
+ * {@code depth}; it should now grow linearly.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InterpreterBenchmark {
+
+    @Param({"20", "25", "1000"})
+    public int depth;
+
+    private Ast.Expr nested;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        nested = new Parser(new Lexer(Corpus.nestedExpression(depth)).lex()).parseExpression();
+    }
+
+    @Benchmark
+    public Environment.PlcObject evaluateNested() {
+        return new Interpreter(null).visit(nested);
+    }
+
+}
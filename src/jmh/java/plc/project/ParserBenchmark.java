@@ -0,0 +1,89 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parse throughput for the different token sources, for random programs from
+ * {@link ProgramGenerator}, and for long chains of binary operators and
+ * deeply nested statements, which exercise the expression and statement
+ * parsers.
+ * Comparing a run on the current tree against an earlier commit gives the
+ * speedup of a parser change.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"100KB"})
+    public String size;
+
+    @Param({"10", "1000"})
+    public int length;
+
+    private String source;
+    private List<Token> tokens;
+    private TokenBuffer buffer;
+    private List<Token> expression;
+    private List<Token> generated;
+    private List<Token> nested;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        source = Corpus.program(Corpus.parseSize(size));
+        tokens = new Lexer(source).lex();
+        buffer = new Lexer(source).lexBuffer();
+        expression = new Lexer(Corpus.expression(length)).lex();
+        ProgramGenerator generator = new ProgramGenerator(length);
+        generated = new Lexer(ProgramGenerator.print(generator.generate(Corpus.parseSize(size)))).lex();
+        nested = new Lexer(ProgramGenerator.print(generator.nested(length))).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parseList() {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source parseBuffer() {
+        return new Parser(buffer).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Source lexAndParseStreaming() {
+        return new Parser(new Lexer(source).tokens()).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Expr parseExpression() {
+        return new Parser(expression).parseExpression();
+    }
+
+    @Benchmark
+    public Ast.Source parseGenerated() {
+        return new Parser(generated).parseSource();
+    }
+
+    @Benchmark
+    public Ast.Stmt parseNested() {
+        return new Parser(nested).parseStatement();
+    }
+
+}
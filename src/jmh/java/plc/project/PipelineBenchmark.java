@@ -0,0 +1,106 @@
+package plc.project;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks each stage of the pipeline over random well-typed programs from
+ * {@link ProgramGenerator#typed(int)}. Every stage is given the output of the
+ * previous stages, which is prepared once per trial, so each benchmark
+ * measures only its own stage. Printed output is discarded.
+ *
+ * Throughput and sampled latency are reported for every stage; run through
+ * the {@code jmh} Gradle task to also get allocation rates from the gc
+ * profiler.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PipelineBenchmark {
+
+    @Param({"1KB", "100KB", "10MB"})
+    public String size;
+
+    private String source;
+    private List<Token> tokens;
+    private Ast.Source ast;
+    private Compiler.Program program;
+    private PrintStream sysout;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        sysout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        source = ProgramGenerator.print(new ProgramGenerator(0).typed(Corpus.parseSize(size)));
+        tokens = new Lexer(source).lex();
+        ast = new Parser(tokens).parseSource();
+        new Analyzer(null).visit(ast);
+        program = new Compiler(null).compile(ast);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(sysout);
+    }
+
+    @Benchmark
+    public List<Token> lex() {
+        return new Lexer(source).lex();
+    }
+
+    @Benchmark
+    public Ast.Source parse() {
+        return new Parser(tokens).parseSource();
+    }
+
+    @Benchmark
+    public Analyzer analyze() {
+        Analyzer analyzer = new Analyzer(null);
+        analyzer.visit(ast);
+        return analyzer;
+    }
+
+    @Benchmark
+    public Environment.PlcObject interpret() {
+        return new Interpreter(null).visit(ast);
+    }
+
+    @Benchmark
+    public Compiler.Program compile() {
+        return new Compiler(null).compile(ast);
+    }
+
+    @Benchmark
+    public Environment.PlcObject execute() {
+        return program.run();
+    }
+
+    @Benchmark
+    public PrintWriter generate() {
+        PrintWriter writer = new PrintWriter(Writer.nullWriter());
+        new Generator(writer).visit(ast);
+        return writer;
+    }
+
+}
@@ -19,8 +19,12 @@ public final class Analyzer implements Ast.Visitor<Void> {
     private Ast.Method method;
 
     public Analyzer(Scope parent) {
-        scope = new Scope(parent);
-        scope.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        // Built-in functions are defined in a parent scope, so the program
+        // may define methods with the same names.
+        Scope builtins = new Scope(parent);
+        builtins.defineFunction("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL);
+        builtins.defineFunction("range", Environment.RANGE, Arrays.asList(Environment.Type.INTEGER, Environment.Type.INTEGER), Environment.Type.INTEGER_ITERABLE, Environment::range);
+        scope = new Scope(builtins);
     }
 
     public Scope getScope() {
@@ -36,10 +40,20 @@ public final class Analyzer implements Ast.Visitor<Void> {
         for (int i = 0; i < ast.getMethods().size(); i++) {
             visit(ast.getMethods().get(i));
         }
+        checkSource();
+        return null;
+    }
+
+    /**
+     * Checks the whole program against the fields and methods analyzed so
+     * far, which requires a {@code main/0} method returning an Integer. This
+     * is called after visiting a source, or directly once each declaration
+     * has been visited on its own.
+     */
+    public void checkSource() {
         if (scope.lookupFunction("main", 0).getReturnType() != Environment.Type.INTEGER) {
             throw new RuntimeException();
         }
-        return null;
     }
 
     @Override
@@ -187,6 +201,7 @@ public final class Analyzer implements Ast.Visitor<Void> {
 
         try {
             scope = new Scope(scope);
+            scope.defineVariable(ast.getName(), ast.getName(), Environment.Type.INTEGER, Environment.NIL);
             for (Ast.Stmt stmt : ast.getStatements()) {
                 visit(stmt);
             }
@@ -194,8 +209,6 @@ public final class Analyzer implements Ast.Visitor<Void> {
             scope = scope.getParent();
         }
 
-        scope.defineVariable(ast.getName(), ast.getName(), Environment.Type.INTEGER, Environment.NIL);
-
         return null;
     }
 
@@ -1,24 +1,128 @@
 package plc.project;
 
-import java.util.ArrayList;
+import java.util.AbstractList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.RandomAccess;
 
 /**
  * See the Parser assignment specification for specific notes on each AST class
  * and how to use it.
+ *
+ * Nodes are immutable apart from the results of analysis and resolution.
+ * Lists of children are copied into exact-size unmodifiable lists, unless
+ * they are already a read-only {@code ReadOnlyList}, optional children are
+ * stored as nullable fields, and the hash code of a node is computed from
+ * its structure once and cached, so trees can be used as hash keys and
+ * unequal trees are usually rejected without recursing.
  */
 public abstract class Ast {
 
+    private int hash = 0;
+
+    /**
+     * Returns the hash of the syntax of this node, which does not include the
+     * results of analysis since those may change.
+     */
+    abstract int structuralHash();
+
+    @Override
+    public final int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            h = structuralHash();
+            hash = h == 0 ? 1 : h;
+        }
+        return hash;
+    }
+
+    /**
+     * Returns whether this node may equal another, which is false if the hash
+     * codes of both have been computed and differ.
+     */
+    final boolean mayEqual(Object obj) {
+        int other = ((Ast) obj).hash;
+        return hash == 0 || other == 0 || hash == other;
+    }
+
+    private static <T> List<T> copy(List<T> list) {
+        if (list instanceof ReadOnlyList) {
+            return list;
+        }
+        return List.copyOf(list);
+    }
+
+    /**
+     * A list whose elements never change, which nodes hold as is instead of
+     * copying, such as a view which creates its elements when accessed.
+     */
+    abstract static class ReadOnlyList<T> extends AbstractList<T> implements RandomAccess {}
+
+    /**
+     * Returns the result of analysis stored on an {@link Ast}, or {@code null}
+     * if it has not been analyzed.
+     */
+    static Object annotationOf(Ast ast) {
+        try {
+            if (ast instanceof Ast.Field) {
+                return ((Ast.Field) ast).getVariable();
+            } else if (ast instanceof Ast.Method) {
+                return ((Ast.Method) ast).getFunction();
+            } else if (ast instanceof Ast.Stmt.Declaration) {
+                return ((Ast.Stmt.Declaration) ast).getVariable();
+            } else if (ast instanceof Ast.Expr.Access) {
+                return ((Ast.Expr.Access) ast).getVariable();
+            } else if (ast instanceof Ast.Expr.Function) {
+                return ((Ast.Expr.Function) ast).getFunction();
+            } else if (ast instanceof Ast.Expr) {
+                return ((Ast.Expr) ast).getType();
+            }
+        } catch (IllegalStateException e) {
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Stores a result of analysis, as returned by {@link #annotationOf(Ast)},
+     * on an {@link Ast}.
+     */
+    static void setAnnotation(Ast ast, Object annotation) {
+        if (ast instanceof Ast.Field) {
+            ((Ast.Field) ast).setVariable((Environment.Variable) annotation);
+        } else if (ast instanceof Ast.Method) {
+            ((Ast.Method) ast).setFunction((Environment.Function) annotation);
+        } else if (ast instanceof Ast.Stmt.Declaration) {
+            ((Ast.Stmt.Declaration) ast).setVariable((Environment.Variable) annotation);
+        } else if (ast instanceof Ast.Expr.Access) {
+            ((Ast.Expr.Access) ast).setVariable((Environment.Variable) annotation);
+        } else if (ast instanceof Ast.Expr.Function) {
+            ((Ast.Expr.Function) ast).setFunction((Environment.Function) annotation);
+        } else if (ast instanceof Ast.Expr.Literal) {
+            ((Ast.Expr.Literal) ast).setType((Environment.Type) annotation);
+        } else if (ast instanceof Ast.Expr.Group) {
+            ((Ast.Expr.Group) ast).setType((Environment.Type) annotation);
+        } else if (ast instanceof Ast.Expr.Binary) {
+            ((Ast.Expr.Binary) ast).setType((Environment.Type) annotation);
+        }
+    }
+
+    /**
+     * Calls the {@link Visitor} method for the type of this node, so visiting
+     * a node of any type takes a single virtual call.
+     */
+    public abstract <T> T accept(Visitor<T> visitor);
+
     public static final class Source extends Ast {
 
         private final List<Field> fields;
         private final List<Method> methods;
 
         public Source(List<Field> fields, List<Method> methods) {
-            this.fields = fields;
-            this.methods = methods;
+            this.fields = copy(fields);
+            this.methods = copy(methods);
         }
 
         public List<Field> getFields() {
@@ -29,13 +133,23 @@ public abstract class Ast {
             return methods;
         }
 
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof Source &&
+            return obj instanceof Source && mayEqual(obj) &&
                     fields.equals(((Source) obj).fields) &&
                     methods.equals(((Source) obj).methods);
         }
 
+        @Override
+        int structuralHash() {
+            return 31 * fields.hashCode() + methods.hashCode();
+        }
+
         @Override
         public String toString() {
             return "Ast.Source{" +
@@ -50,8 +164,10 @@ public abstract class Ast {
 
         private final String name;
         private final String typeName;
-        private final Optional<Expr> value;
+        private final Expr value;
         private Environment.Variable variable = null;
+        private int depth = -1;
+        private int slot = -1;
 
         public Field(String name, Optional<Expr> value) {
             this(name, "Any", value);
@@ -60,7 +176,7 @@ public abstract class Ast {
         public Field(String name, String typeName, Optional<Expr> value) {
             this.name = name;
             this.typeName = typeName;
-            this.value = value;
+            this.value = value.orElse(null);
         }
 
         public String getName() {
@@ -72,7 +188,7 @@ public abstract class Ast {
         }
 
         public Optional<Expr> getValue() {
-            return value;
+            return Optional.ofNullable(value);
         }
 
         public Environment.Variable getVariable() {
@@ -86,21 +202,44 @@ public abstract class Ast {
             this.variable = variable;
         }
 
+        public int getDepth() {
+            return depth;
+        }
+
+        public int getSlot() {
+            return slot;
+        }
+
+        public void setSlot(int depth, int slot) {
+            this.depth = depth;
+            this.slot = slot;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof Field &&
+            return obj instanceof Field && mayEqual(obj) &&
                     name.equals(((Field) obj).name) &&
                     typeName.equals(((Field) obj).typeName) &&
-                    value.equals(((Field) obj).value) &&
+                    Objects.equals(value, ((Field) obj).value) &&
                     Objects.equals(variable, ((Field) obj).variable);
         }
 
+        @Override
+        int structuralHash() {
+            return Objects.hash(name, typeName, value);
+        }
+
         @Override
         public String toString() {
             return "Field{" +
                     "name='" + name + '\'' +
                     ", typeName=" + typeName +
-                    ", value=" + value +
+                    ", value=" + getValue() +
                     ", variable=" + variable +
                     '}';
         }
@@ -112,23 +251,21 @@ public abstract class Ast {
         private final String name;
         private final List<String> parameters;
         private final List<String> parameterTypeNames;
-        private final Optional<String> returnTypeName;
+        private final String returnTypeName;
         private final List<Stmt> statements;
         private Environment.Function function = null;
+        private int frameSize = -1;
 
         public Method(String name, List<String> parameters, List<Stmt> statements) {
-            this(name, parameters, new ArrayList<>(), Optional.of("Any"), statements);
-            for (int i = 0; i < parameters.size(); i++) {
-                parameterTypeNames.add("Any");
-            }
+            this(name, parameters, Collections.nCopies(parameters.size(), "Any"), Optional.of("Any"), statements);
         }
 
         public Method(String name, List<String> parameters, List<String> parameterTypeNames, Optional<String> returnTypeName, List<Stmt> statements) {
             this.name = name;
-            this.parameters = parameters;
-            this.parameterTypeNames = parameterTypeNames;
-            this.returnTypeName = returnTypeName;
-            this.statements = statements;
+            this.parameters = copy(parameters);
+            this.parameterTypeNames = copy(parameterTypeNames);
+            this.returnTypeName = returnTypeName.orElse(null);
+            this.statements = copy(statements);
         }
 
         public String getName() {
@@ -144,7 +281,7 @@ public abstract class Ast {
         }
 
         public Optional<String> getReturnTypeName() {
-            return returnTypeName;
+            return Optional.ofNullable(returnTypeName);
         }
 
         public List<Stmt> getStatements() {
@@ -162,24 +299,42 @@ public abstract class Ast {
             this.function = function;
         }
 
+        public int getFrameSize() {
+            return frameSize;
+        }
+
+        public void setFrameSize(int frameSize) {
+            this.frameSize = frameSize;
+        }
+
+        @Override
+        public <T> T accept(Visitor<T> visitor) {
+            return visitor.visit(this);
+        }
+
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof Method &&
+            return obj instanceof Method && mayEqual(obj) &&
                     name.equals(((Method) obj).name) &&
                     parameters.equals(((Method) obj).parameters) &&
                     parameterTypeNames.equals(((Method) obj).parameterTypeNames) &&
-                    returnTypeName.equals(((Method) obj).returnTypeName) &&
+                    Objects.equals(returnTypeName, ((Method) obj).returnTypeName) &&
                     statements.equals(((Method) obj).statements) &&
                     Objects.equals(function, ((Method) obj).function);
         }
 
+        @Override
+        int structuralHash() {
+            return Objects.hash(name, parameters, parameterTypeNames, returnTypeName, statements);
+        }
+
         @Override
         public String toString() {
             return "Method{" +
                     "name='" + name + '\'' +
                     ", parameters=" + parameters +
                     ", parameterTypeNames=" + parameterTypeNames +
-                    ", returnTypeName='" + returnTypeName + '\'' +
+                    ", returnTypeName='" + getReturnTypeName() + '\'' +
                     ", statements=" + statements +
                     ", function=" + function +
                     '}';
@@ -201,12 +356,22 @@ public abstract class Ast {
                 return expression;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Expression &&
+                return obj instanceof Expression && mayEqual(obj) &&
                         expression.equals(((Expression) obj).expression);
             }
 
+            @Override
+            int structuralHash() {
+                return expression.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Stmt.Expression{" +
@@ -219,9 +384,11 @@ public abstract class Ast {
         public static final class Declaration extends Stmt {
 
             private final String name;
-            private final Optional<String> typeName;
-            private final Optional<Expr> value;
+            private final String typeName;
+            private final Expr value;
             private Environment.Variable variable;
+            private int depth = -1;
+            private int slot = -1;
 
             public Declaration(String name, Optional<Expr> value) {
                 this(name, Optional.empty(), value);
@@ -229,8 +396,8 @@ public abstract class Ast {
 
             public Declaration(String name, Optional<String> typeName, Optional<Expr> value) {
                 this.name = name;
-                this.typeName = typeName;
-                this.value = value;
+                this.typeName = typeName.orElse(null);
+                this.value = value.orElse(null);
             }
 
             public String getName() {
@@ -238,11 +405,11 @@ public abstract class Ast {
             }
 
             public Optional<String> getTypeName() {
-                return typeName;
+                return Optional.ofNullable(typeName);
             }
 
             public Optional<Expr> getValue() {
-                return value;
+                return Optional.ofNullable(value);
             }
 
             public Environment.Variable getVariable() {
@@ -256,21 +423,44 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            public int getDepth() {
+                return depth;
+            }
+
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
+
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Declaration &&
+                return obj instanceof Declaration && mayEqual(obj) &&
                         name.equals(((Declaration) obj).name) &&
-                        typeName.equals(((Declaration) obj).typeName) &&
-                        value.equals(((Declaration) obj).value) &&
+                        Objects.equals(typeName, ((Declaration) obj).typeName) &&
+                        Objects.equals(value, ((Declaration) obj).value) &&
                         Objects.equals(variable, ((Declaration) obj).variable);
             }
 
+            @Override
+            int structuralHash() {
+                return Objects.hash(name, typeName, value);
+            }
+
             @Override
             public String toString() {
                 return "Declaration{" +
                         "name='" + name + '\'' +
-                        ", typeName=" + typeName +
-                        ", value=" + value +
+                        ", typeName=" + getTypeName() +
+                        ", value=" + getValue() +
                         ", variable=" + variable +
                         '}';
             }
@@ -295,13 +485,23 @@ public abstract class Ast {
                 return value;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Assignment &&
+                return obj instanceof Assignment && mayEqual(obj) &&
                         receiver.equals(((Assignment) obj).receiver) &&
                         value.equals(((Assignment) obj).value);
             }
 
+            @Override
+            int structuralHash() {
+                return 31 * receiver.hashCode() + value.hashCode();
+            }
+
             @Override
             public final String toString() {
                 return "Ast.Stmt.Assignment{" +
@@ -321,8 +521,8 @@ public abstract class Ast {
 
             public If(Expr condition, List<Stmt> thenStatements, List<Stmt> elseStatements) {
                 this.condition = condition;
-                this.thenStatements = thenStatements;
-                this.elseStatements = elseStatements;
+                this.thenStatements = copy(thenStatements);
+                this.elseStatements = copy(elseStatements);
             }
 
             public Expr getCondition() {
@@ -337,14 +537,24 @@ public abstract class Ast {
                 return elseStatements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof If &&
+                return obj instanceof If && mayEqual(obj) &&
                         condition.equals(((If) obj).condition) &&
                         thenStatements.equals(((If) obj).thenStatements) &&
                         elseStatements.equals(((If) obj).elseStatements);
             }
 
+            @Override
+            int structuralHash() {
+                return Objects.hash(condition, thenStatements, elseStatements);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Stmt.If{" +
@@ -361,11 +571,13 @@ public abstract class Ast {
             private final String name;
             private final Expr value;
             private final List<Stmt> statements;
+            private int depth = -1;
+            private int slot = -1;
 
             public For(String name, Expr value, List<Stmt> statements) {
                 this.name = name;
                 this.value = value;
-                this.statements = statements;
+                this.statements = copy(statements);
             }
 
             public String getName() {
@@ -380,14 +592,37 @@ public abstract class Ast {
                 return statements;
             }
 
+            public int getDepth() {
+                return depth;
+            }
+
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
+
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof For &&
+                return obj instanceof For && mayEqual(obj) &&
                         name.equals(((For) obj).name) &&
                         value.equals(((For) obj).value) &&
                         statements.equals(((For) obj).statements);
             }
 
+            @Override
+            int structuralHash() {
+                return Objects.hash(name, value, statements);
+            }
+
             @Override
             public String toString() {
                 return "For{" +
@@ -406,7 +641,7 @@ public abstract class Ast {
 
             public While(Expr condition, List<Stmt> statements) {
                 this.condition = condition;
-                this.statements = statements;
+                this.statements = copy(statements);
             }
 
             public Expr getCondition() {
@@ -417,13 +652,23 @@ public abstract class Ast {
                 return statements;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof While &&
+                return obj instanceof While && mayEqual(obj) &&
                         condition.equals(((While) obj).condition) &&
                         statements.equals(((While) obj).statements);
             }
 
+            @Override
+            int structuralHash() {
+                return 31 * condition.hashCode() + statements.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Stmt.While{" +
@@ -446,12 +691,22 @@ public abstract class Ast {
                 return value;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Return &&
+                return obj instanceof Return && mayEqual(obj) &&
                         value.equals(((Return) obj).value);
             }
 
+            @Override
+            int structuralHash() {
+                return value.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Stmt.Return{" +
@@ -492,13 +747,23 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Literal &&
+                return obj instanceof Literal && mayEqual(obj) &&
                         Objects.equals(literal, ((Literal) obj).literal) &&
                         Objects.equals(type, ((Literal) obj).type);
             }
 
+            @Override
+            int structuralHash() {
+                return Objects.hashCode(literal);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expr.Literal{" +
@@ -533,13 +798,24 @@ public abstract class Ast {
             public void setType(Environment.Type type) {
                 this.type = type;
             }
+
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Group &&
+                return obj instanceof Group && mayEqual(obj) &&
                         expression.equals(((Group) obj).expression) &&
                         Objects.equals(type, ((Group) obj).type);
             }
 
+            @Override
+            int structuralHash() {
+                return expression.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expr.Group{" +
@@ -587,15 +863,25 @@ public abstract class Ast {
                 this.type = type;
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Binary &&
+                return obj instanceof Binary && mayEqual(obj) &&
                         operator.equals(((Binary) obj).operator) &&
                         left.equals(((Binary) obj).left) &&
                         right.equals(((Binary) obj).right) &&
                         Objects.equals(type, ((Binary) obj).type);
             }
 
+            @Override
+            int structuralHash() {
+                return Objects.hash(operator, left, right);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expr.Binary{" +
@@ -610,17 +896,19 @@ public abstract class Ast {
 
         public static final class Access extends Expr {
 
-            private final Optional<Expr> receiver;
+            private final Expr receiver;
             private final String name;
             private Environment.Variable variable = null;
+            private int depth = -1;
+            private int slot = -1;
 
             public Access(Optional<Expr> receiver, String name) {
-                this.receiver = receiver;
+                this.receiver = receiver.orElse(null);
                 this.name = name;
             }
 
             public Optional<Expr> getReceiver() {
-                return receiver;
+                return Optional.ofNullable(receiver);
             }
 
             public String getName() {
@@ -638,23 +926,46 @@ public abstract class Ast {
                 this.variable = variable;
             }
 
+            public int getDepth() {
+                return depth;
+            }
+
+            public int getSlot() {
+                return slot;
+            }
+
+            public void setSlot(int depth, int slot) {
+                this.depth = depth;
+                this.slot = slot;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getVariable().getType();
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Access &&
-                        receiver.equals(((Access) obj).receiver) &&
+                return obj instanceof Access && mayEqual(obj) &&
+                        Objects.equals(receiver, ((Access) obj).receiver) &&
                         name.equals(((Access) obj).name) &&
                         Objects.equals(variable, ((Access) obj).variable);
             }
 
+            @Override
+            int structuralHash() {
+                return 31 * Objects.hashCode(receiver) + name.hashCode();
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expr.Access{" +
-                        "receiver=" + receiver +
+                        "receiver=" + getReceiver() +
                         ", name='" + name + '\'' +
                         ", variable=" + variable +
                         '}';
@@ -664,19 +975,22 @@ public abstract class Ast {
 
         public static final class Function extends Expr {
 
-            private final Optional<Expr> receiver;
+            private final Expr receiver;
             private final String name;
             private final List<Expr> arguments;
             private Environment.Function function = null;
+            private Scope.Key key = null;
+            private Object cacheKey = null;
+            private Environment.Function cachedFunction = null;
 
             public Function(Optional<Expr> receiver, String name, List<Expr> arguments) {
-                this.receiver = receiver;
+                this.receiver = receiver.orElse(null);
                 this.name = name;
-                this.arguments = arguments;
+                this.arguments = copy(arguments);
             }
 
             public Optional<Expr> getReceiver() {
-                return receiver;
+                return Optional.ofNullable(receiver);
             }
 
             public String getName() {
@@ -698,24 +1012,61 @@ public abstract class Ast {
                 this.function = function;
             }
 
+            /**
+             * Returns the key this call looks up in a scope, whose arity
+             * includes the receiver of a method. The key is created once, so
+             * looking up the call again does not allocate.
+             */
+            public Scope.Key getKey() {
+                if (key == null) {
+                    key = new Scope.Key(name, arguments.size() + (receiver != null ? 1 : 0));
+                }
+                return key;
+            }
+
+            /**
+             * Returns the function this call last resolved to, if it was
+             * resolved with the same key, such as the scope it was looked up
+             * in or the type of its receiver. This is the call's inline cache;
+             * it is not part of the AST.
+             */
+            public Environment.Function getCachedFunction(Object key) {
+                return key == cacheKey ? cachedFunction : null;
+            }
+
+            public void setCachedFunction(Object key, Environment.Function function) {
+                this.cacheKey = key;
+                this.cachedFunction = function;
+            }
+
             @Override
             public Environment.Type getType() {
                 return getFunction().getReturnType();
             }
 
+            @Override
+            public <T> T accept(Visitor<T> visitor) {
+                return visitor.visit(this);
+            }
+
             @Override
             public boolean equals(Object obj) {
-                return obj instanceof Function &&
-                        receiver.equals(((Function) obj).receiver) &&
+                return obj instanceof Function && mayEqual(obj) &&
+                        Objects.equals(receiver, ((Function) obj).receiver) &&
                         name.equals(((Function) obj).name) &&
                         arguments.equals(((Function) obj).arguments) &&
                         Objects.equals(function, ((Function) obj).function);
             }
 
+            @Override
+            int structuralHash() {
+                return Objects.hash(receiver, name, arguments);
+            }
+
             @Override
             public String toString() {
                 return "Ast.Expr.Function{" +
-                        "receiver=" + receiver +
+                        "receiver=" + getReceiver() +
                         ", name='" + name + '\'' +
                         ", arguments=" + arguments +
                         ", function=" + function +
@@ -728,40 +1079,12 @@ public abstract class Ast {
 
     public interface Visitor<T> {
 
+        /**
+         * Visits a node of any type, dispatching on its type through
+         * {@link Ast#accept(Visitor)}.
+         */
         default T visit(Ast ast) {
-            if (ast instanceof Source) {
-                return visit((Source) ast);
-            } else if (ast instanceof Field) {
-                return visit((Field) ast);
-            } else if (ast instanceof Method) {
-                return visit((Method) ast);
-            } else if (ast instanceof Stmt.Expression) {
-                return visit((Stmt.Expression) ast);
-            } else if (ast instanceof Stmt.Declaration) {
-                return visit((Stmt.Declaration) ast);
-            } else if (ast instanceof Stmt.Assignment) {
-                return visit((Stmt.Assignment) ast);
-            } else if (ast instanceof Stmt.If) {
-                return visit((Stmt.If) ast);
-            } else if (ast instanceof Stmt.For) {
-                return visit((Stmt.For) ast);
-            } else if (ast instanceof Stmt.While) {
-                return visit((Stmt.While) ast);
-            } else if (ast instanceof Stmt.Return) {
-                return visit((Stmt.Return) ast);
-            } else if (ast instanceof Expr.Literal) {
-                return visit((Expr.Literal) ast);
-            } else if (ast instanceof Expr.Group) {
-                return visit((Expr.Group) ast);
-            } else if (ast instanceof Expr.Binary) {
-                return visit((Expr.Binary) ast);
-            } else if (ast instanceof Expr.Access) {
-                return visit((Expr.Access) ast);
-            } else if (ast instanceof Expr.Function) {
-                return visit((Expr.Function) ast);
-            } else {
-                throw new AssertionError("Unimplemented AST type: " + ast.getClass().getName() + ".");
-            }
+            return ast.accept(this);
         }
 
         T visit(Source ast);
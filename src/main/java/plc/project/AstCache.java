@@ -0,0 +1,610 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * A cache of parsed sources in a directory, so unchanged sources are read
+ * from a memory-mapped file rather than lexed and parsed again. Each source
+ * is stored in a file named by the SHA-256 hash of its text, and sources
+ * that have been analyzed are stored with the results of analysis.
+ *
+ * Sources are stored in a compact binary format, written by
+ * {@link #serialize(Ast.Source)}. After a header with a CRC32 of the rest
+ * of the file, it has a table of every string in the source, followed by its
+ * nodes in pre-order, with counts and string indices as variable-length
+ * integers. Types are stored by name and looked up with
+ * {@link Environment#getType(String)}, and variables and functions by their
+ * name, JVM name and types. A file which cannot be read, such as one written
+ * by an older version or one whose checksum does not match, is replaced as
+ * if it were missing.
+ */
+public final class AstCache {
+
+    private static final int MAGIC = 0x504C4341;
+    private static final byte VERSION = 2;
+
+    private static final byte EXPRESSION = 0, DECLARATION = 1, ASSIGNMENT = 2, IF = 3, FOR = 4, WHILE = 5, RETURN = 6;
+    private static final byte LITERAL = 0, GROUP = 1, BINARY = 2, ACCESS = 3, FUNCTION = 4;
+    private static final byte NULL = 0, TRUE = 1, FALSE = 2, INTEGER = 3, DECIMAL = 4, CHARACTER = 5, STRING = 6;
+    private static final byte NONE = 0, TYPE = 1, VARIABLE = 2, METHOD_FUNCTION = 3;
+
+    private final Path directory;
+
+    public AstCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the parsed source, from the cache if it has been parsed before.
+     */
+    public Ast.Source parse(String source) {
+        return load(source, ".ast", false);
+    }
+
+    /**
+     * Returns the parsed and analyzed source, from the cache if it has been
+     * analyzed before.
+     */
+    public Ast.Source analyze(String source) {
+        return load(source, ".analyzed.ast", true);
+    }
+
+    private Ast.Source load(String source, String extension, boolean analyze) {
+        Path path = directory.resolve(Hashes.sha256(source) + extension);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return deserialize(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (NoSuchFileException e) {
+            // Not cached, so the source is parsed below.
+        } catch (IOException | IllegalArgumentException e) {
+            // The file is unreadable or malformed, so it is replaced below.
+        }
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        if (analyze) {
+            new Analyzer(null).visit(ast);
+        }
+        write(path, serialize(ast));
+        return ast;
+    }
+
+    /**
+     * Writes a file through a temporary file, so a process reading the cache
+     * at the same time never sees a partial file.
+     */
+    private void write(Path path, byte[] bytes) {
+        try {
+            Files.createDirectories(directory);
+            Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temporary, bytes);
+                try {
+                    Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cached AST " + path + ".", e);
+        }
+    }
+
+    /**
+     * Returns the binary encoding of a source, including the results of
+     * analysis if it has been analyzed.
+     */
+    public static byte[] serialize(Ast.Source ast) {
+        Writer nodes = new Writer();
+        nodes.visit(ast);
+        Writer body = new Writer();
+        body.writeVarint(nodes.strings.size());
+        for (String string : nodes.strings) {
+            body.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+        }
+        body.bytes.write(nodes.bytes.toByteArray(), 0, nodes.bytes.size());
+        byte[] bytes = body.bytes.toByteArray();
+        CRC32 checksum = new CRC32();
+        checksum.update(bytes);
+        Writer header = new Writer();
+        header.writeInt(MAGIC);
+        header.bytes.write(VERSION);
+        header.writeInt((int) checksum.getValue());
+        header.bytes.write(bytes, 0, bytes.length);
+        return header.bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a source written by {@link #serialize(Ast.Source)}, throwing
+     * an {@link IllegalArgumentException} if the buffer is not one.
+     */
+    public static Ast.Source deserialize(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                throw new IllegalArgumentException("Expected a serialized AST of version " + VERSION + ".");
+            }
+            int expected = buffer.getInt();
+            CRC32 checksum = new CRC32();
+            checksum.update(buffer.duplicate());
+            if ((int) checksum.getValue() != expected) {
+                throw new IllegalArgumentException("Mismatched checksum of the serialized AST.");
+            }
+            Reader reader = new Reader(buffer);
+            Ast.Source ast = reader.source();
+            if (buffer.hasRemaining()) {
+                throw new IllegalArgumentException("Unexpected data after the serialized AST.");
+            }
+            return ast;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | ClassCastException e) {
+            throw new IllegalArgumentException("Malformed serialized AST.", e);
+        }
+    }
+
+    private static final class Writer implements Ast.Visitor<Void> {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final List<String> strings = new ArrayList<>();
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        private void writeInt(int value) {
+            bytes.write(value >>> 24);
+            bytes.write(value >>> 16);
+            bytes.write(value >>> 8);
+            bytes.write(value);
+        }
+
+        private void writeVarint(int value) {
+            while ((value & ~0x7F) != 0) {
+                bytes.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            bytes.write(value);
+        }
+
+        private void writeBytes(byte[] value) {
+            writeVarint(value.length);
+            bytes.write(value, 0, value.length);
+        }
+
+        /**
+         * Writes a string as its index in the string table plus one, so
+         * {@code null} is written as 0.
+         */
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            Integer index = indices.get(value);
+            if (index == null) {
+                index = strings.size();
+                strings.add(value);
+                indices.put(value, index);
+            }
+            writeVarint(index + 1);
+        }
+
+        @Override
+        public Void visit(Ast.Source ast) {
+            writeVarint(ast.getFields().size());
+            for (Ast.Field field : ast.getFields()) {
+                visit(field);
+            }
+            writeVarint(ast.getMethods().size());
+            for (Ast.Method method : ast.getMethods()) {
+                visit(method);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Field ast) {
+            writeString(ast.getName());
+            writeString(ast.getTypeName());
+            optional(ast.getValue());
+            annotation(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Method ast) {
+            writeString(ast.getName());
+            writeVarint(ast.getParameters().size());
+            for (int i = 0; i < ast.getParameters().size(); i++) {
+                writeString(ast.getParameters().get(i));
+                writeString(ast.getParameterTypeNames().get(i));
+            }
+            writeString(ast.getReturnTypeName().orElse(null));
+            statements(ast.getStatements());
+            annotation(ast);
+            return null;
+        }
+
+        private void statements(List<Ast.Stmt> statements) {
+            writeVarint(statements.size());
+            for (Ast.Stmt statement : statements) {
+                visit(statement);
+            }
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Expression ast) {
+            bytes.write(EXPRESSION);
+            visit(ast.getExpression());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Declaration ast) {
+            bytes.write(DECLARATION);
+            writeString(ast.getName());
+            writeString(ast.getTypeName().orElse(null));
+            optional(ast.getValue());
+            annotation(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Assignment ast) {
+            bytes.write(ASSIGNMENT);
+            visit(ast.getReceiver());
+            visit(ast.getValue());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.If ast) {
+            bytes.write(IF);
+            visit(ast.getCondition());
+            statements(ast.getThenStatements());
+            statements(ast.getElseStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.For ast) {
+            bytes.write(FOR);
+            writeString(ast.getName());
+            visit(ast.getValue());
+            statements(ast.getStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.While ast) {
+            bytes.write(WHILE);
+            visit(ast.getCondition());
+            statements(ast.getStatements());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Return ast) {
+            bytes.write(RETURN);
+            visit(ast.getValue());
+            return null;
+        }
+
+        private void optional(Optional<Ast.Expr> ast) {
+            bytes.write(ast.isPresent() ? 1 : 0);
+            ast.ifPresent(this::visit);
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Literal ast) {
+            bytes.write(LITERAL);
+            literal(ast.getLiteral());
+            annotation(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Group ast) {
+            bytes.write(GROUP);
+            visit(ast.getExpression());
+            annotation(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Binary ast) {
+            bytes.write(BINARY);
+            writeString(ast.getOperator());
+            visit(ast.getLeft());
+            visit(ast.getRight());
+            annotation(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Access ast) {
+            bytes.write(ACCESS);
+            optional(ast.getReceiver());
+            writeString(ast.getName());
+            annotation(ast);
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Function ast) {
+            bytes.write(FUNCTION);
+            optional(ast.getReceiver());
+            writeString(ast.getName());
+            writeVarint(ast.getArguments().size());
+            for (Ast.Expr argument : ast.getArguments()) {
+                visit(argument);
+            }
+            annotation(ast);
+            return null;
+        }
+
+        private void literal(Object literal) {
+            if (literal == null) {
+                bytes.write(NULL);
+            } else if (literal instanceof Boolean) {
+                bytes.write((Boolean) literal ? TRUE : FALSE);
+            } else if (literal instanceof BigInteger) {
+                bytes.write(INTEGER);
+                writeBytes(((BigInteger) literal).toByteArray());
+            } else if (literal instanceof BigDecimal) {
+                bytes.write(DECIMAL);
+                writeBytes(((BigDecimal) literal).unscaledValue().toByteArray());
+                writeInt(((BigDecimal) literal).scale());
+            } else if (literal instanceof Character) {
+                bytes.write(CHARACTER);
+                writeVarint((Character) literal);
+            } else if (literal instanceof String) {
+                bytes.write(STRING);
+                writeString((String) literal);
+            } else {
+                throw new IllegalArgumentException("Unable to serialize literal " + literal + ".");
+            }
+        }
+
+        private void annotation(Ast ast) {
+            Object annotation = Ast.annotationOf(ast);
+            if (annotation instanceof Environment.Type) {
+                bytes.write(TYPE);
+                writeString(((Environment.Type) annotation).getName());
+            } else if (annotation instanceof Environment.Variable) {
+                Environment.Variable variable = (Environment.Variable) annotation;
+                bytes.write(VARIABLE);
+                writeString(variable.getName());
+                writeString(variable.getJvmName());
+                writeString(variable.getType().getName());
+            } else if (annotation instanceof Environment.Function) {
+                Environment.Function function = (Environment.Function) annotation;
+                bytes.write(METHOD_FUNCTION);
+                writeString(function.getName());
+                writeString(function.getJvmName());
+                writeVarint(function.getParameterTypes().size());
+                for (Environment.Type type : function.getParameterTypes()) {
+                    writeString(type.getName());
+                }
+                writeString(function.getReturnType().getName());
+            } else {
+                bytes.write(NONE);
+            }
+        }
+
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+        private final String[] strings;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+            strings = new String[readCount()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = new String(readBytes(), StandardCharsets.UTF_8);
+            }
+        }
+
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed variable-length integer.");
+        }
+
+        /**
+         * Reads the number of elements which follow, each of which takes at
+         * least a byte, so a count is never more than the bytes remaining.
+         */
+        private int readCount() {
+            int count = readVarint();
+            if (count < 0 || count > buffer.remaining()) {
+                throw new IllegalArgumentException("Malformed count " + Integer.toUnsignedString(count) + ".");
+            }
+            return count;
+        }
+
+        private byte[] readBytes() {
+            byte[] bytes = new byte[readCount()];
+            buffer.get(bytes);
+            return bytes;
+        }
+
+        private String readString() {
+            int index = readVarint();
+            return index == 0 ? null : strings[index - 1];
+        }
+
+        private Ast.Source source() {
+            List<Ast.Field> fields = new ArrayList<>();
+            for (int i = readCount(); i > 0; i--) {
+                Ast.Field field = new Ast.Field(readString(), readString(), optional());
+                annotation(field);
+                fields.add(field);
+            }
+            List<Ast.Method> methods = new ArrayList<>();
+            for (int i = readCount(); i > 0; i--) {
+                String name = readString();
+                List<String> parameters = new ArrayList<>();
+                List<String> parameterTypeNames = new ArrayList<>();
+                for (int j = readCount(); j > 0; j--) {
+                    parameters.add(readString());
+                    parameterTypeNames.add(readString());
+                }
+                Optional<String> returnTypeName = Optional.ofNullable(readString());
+                Ast.Method method = new Ast.Method(name, parameters, parameterTypeNames, returnTypeName, statements());
+                annotation(method);
+                methods.add(method);
+            }
+            return new Ast.Source(fields, methods);
+        }
+
+        private List<Ast.Stmt> statements() {
+            int count = readCount();
+            List<Ast.Stmt> statements = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                statements.add(statement());
+            }
+            return statements;
+        }
+
+        private Ast.Stmt statement() {
+            switch (buffer.get()) {
+                case EXPRESSION:
+                    return new Ast.Stmt.Expression(expression());
+                case DECLARATION: {
+                    Ast.Stmt.Declaration declaration = new Ast.Stmt.Declaration(readString(), Optional.ofNullable(readString()), optional());
+                    annotation(declaration);
+                    return declaration;
+                }
+                case ASSIGNMENT:
+                    return new Ast.Stmt.Assignment(expression(), expression());
+                case IF:
+                    return new Ast.Stmt.If(expression(), statements(), statements());
+                case FOR:
+                    return new Ast.Stmt.For(readString(), expression(), statements());
+                case WHILE:
+                    return new Ast.Stmt.While(expression(), statements());
+                case RETURN:
+                    return new Ast.Stmt.Return(expression());
+                default:
+                    throw new IllegalArgumentException("Malformed statement.");
+            }
+        }
+
+        private Optional<Ast.Expr> optional() {
+            return buffer.get() != 0 ? Optional.of(expression()) : Optional.empty();
+        }
+
+        private Ast.Expr expression() {
+            Ast.Expr ast;
+            switch (buffer.get()) {
+                case LITERAL:
+                    ast = new Ast.Expr.Literal(literal());
+                    break;
+                case GROUP:
+                    ast = new Ast.Expr.Group(expression());
+                    break;
+                case BINARY:
+                    ast = new Ast.Expr.Binary(readString(), expression(), expression());
+                    break;
+                case ACCESS:
+                    ast = new Ast.Expr.Access(optional(), readString());
+                    break;
+                case FUNCTION: {
+                    Optional<Ast.Expr> receiver = optional();
+                    String name = readString();
+                    int count = readCount();
+                    List<Ast.Expr> arguments = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        arguments.add(expression());
+                    }
+                    ast = new Ast.Expr.Function(receiver, name, arguments);
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("Malformed expression.");
+            }
+            annotation(ast);
+            return ast;
+        }
+
+        private Object literal() {
+            switch (buffer.get()) {
+                case NULL:
+                    return null;
+                case TRUE:
+                    return true;
+                case FALSE:
+                    return false;
+                case INTEGER:
+                    return new BigInteger(readBytes());
+                case DECIMAL:
+                    return new BigDecimal(new BigInteger(readBytes()), buffer.getInt());
+                case CHARACTER:
+                    return (char) readVarint();
+                case STRING:
+                    return readString();
+                default:
+                    throw new IllegalArgumentException("Malformed literal.");
+            }
+        }
+
+        private void annotation(Ast ast) {
+            switch (buffer.get()) {
+                case NONE:
+                    return;
+                case TYPE:
+                    Ast.setAnnotation(ast, readType());
+                    return;
+                case VARIABLE:
+                    Ast.setAnnotation(ast, new Environment.Variable(readString(), readString(), readType(), Environment.NIL));
+                    return;
+                case METHOD_FUNCTION: {
+                    String name = readString();
+                    String jvmName = readString();
+                    List<Environment.Type> parameterTypes = new ArrayList<>();
+                    for (int i = readCount(); i > 0; i--) {
+                        parameterTypes.add(readType());
+                    }
+                    Ast.setAnnotation(ast, new Environment.Function(name, jvmName, parameterTypes, readType(), args -> Environment.NIL));
+                    return;
+                }
+                default:
+                    throw new IllegalArgumentException("Malformed annotation.");
+            }
+        }
+
+        private Environment.Type readType() {
+            String name = readString();
+            try {
+                return Environment.getType(name);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Unknown type " + name + ".", e);
+            }
+        }
+
+    }
+
+}
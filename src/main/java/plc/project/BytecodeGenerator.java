@@ -0,0 +1,678 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static plc.project.ClassFile.*;
+
+/**
+ * Generates a JVM class directly from an analyzed {@link Ast.Source}, with
+ * the same structure and semantics as the Java source written by the
+ * {@link Generator}: fields become instance fields initialized by the
+ * constructor, methods become public instance methods, and
+ * {@code main(String[])} exits with the result of {@code main()}. Values use
+ * the JVM types of {@link Environment.Type#getJvmName()}, so integers are
+ * {@code int}s and decimals are {@code double}s.
+ *
+ * The class is returned as bytes by {@link #generate(Ast.Source)}, and may be
+ * loaded in memory with {@link #define(String, byte[])}, without writing any
+ * files or running {@code javac}.
+ */
+public final class BytecodeGenerator implements Ast.Visitor<Void> {
+
+    private final String name;
+    private ClassFile file;
+    private ClassFile.Code code;
+    private Environment.Type returnType;
+    private final Map<String, Environment.Type> fields = new HashMap<>();
+    private Map<String, Local> locals = new HashMap<>();
+
+    /**
+     * A local variable of the method being generated, by index and type.
+     * Each block has its own map of the locals visible in it.
+     */
+    private static final class Local {
+
+        private final int index;
+        private final Environment.Type type;
+
+        private Local(int index, Environment.Type type) {
+            this.index = index;
+            this.type = type;
+        }
+
+    }
+
+    public BytecodeGenerator(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Generates the class file for an analyzed source.
+     */
+    public byte[] generate(Ast.Source ast) {
+        file = new ClassFile(ACC_PUBLIC | ACC_SUPER, name);
+        fields.clear();
+        visit(ast);
+        return file.toByteArray();
+    }
+
+    /**
+     * Defines a generated class in a new class loader, whose parent is the
+     * loader of this class.
+     */
+    public static Class<?> define(String name, byte[] bytecode) {
+        return new Loader(BytecodeGenerator.class.getClassLoader()).define(name.replace('/', '.'), bytecode);
+    }
+
+    private static final class Loader extends ClassLoader {
+
+        private Loader(ClassLoader parent) {
+            super(parent);
+        }
+
+        private Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+
+    }
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        code = file.method(ACC_PUBLIC, "<init>", "()V");
+        code.local(ALOAD, 0);
+        code.invoke(INVOKESPECIAL, "java/lang/Object", "<init>", "()V");
+        for (Ast.Field field : ast.getFields()) {
+            visit(field);
+        }
+        code.op(RETURN, 0);
+        code.end();
+
+        code = file.method(ACC_PUBLIC | ACC_STATIC, "main", "([Ljava/lang/String;)V");
+        code.type(NEW, name);
+        code.op(DUP, 1);
+        code.invoke(INVOKESPECIAL, name, "<init>", "()V");
+        code.invoke(INVOKEVIRTUAL, name, "main", "()I");
+        code.invoke(INVOKESTATIC, "java/lang/System", "exit", "(I)V");
+        code.op(RETURN, 0);
+        code.end();
+
+        for (Ast.Method method : ast.getMethods()) {
+            visit(method);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        Environment.Variable variable = ast.getVariable();
+        String descriptor = descriptor(variable.getType());
+        file.field(0, variable.getJvmName(), descriptor);
+        fields.put(ast.getName(), variable.getType());
+        if (ast.getValue().isPresent()) {
+            code.local(ALOAD, 0);
+            value(ast.getValue().get(), variable.getType());
+            code.field(PUTFIELD, name, variable.getJvmName(), descriptor);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        Environment.Function function = ast.getFunction();
+        returnType = function.getReturnType();
+        code = file.method(ACC_PUBLIC, function.getJvmName(), descriptor(function));
+        locals = new HashMap<>();
+        int index = 1;
+        for (int i = 0; i < ast.getParameters().size(); i++) {
+            Environment.Type type = function.getParameterTypes().get(i);
+            locals.put(ast.getParameters().get(i), new Local(index, type));
+            index += ClassFile.size(descriptor(type));
+        }
+        block(ast.getStatements());
+
+        // Methods may complete without a RETURN, in which case they return
+        // the default value of their return type.
+        if (returnType == Environment.Type.NIL) {
+            code.op(RETURN, 0);
+        } else {
+            zero(returnType);
+            code.op(returnOpcode(returnType), -ClassFile.size(descriptor(returnType)));
+        }
+        code.end();
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Expression ast) {
+        visit(ast.getExpression());
+        pop(ast.getExpression().getType());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Declaration ast) {
+        Environment.Type type = ast.getVariable().getType();
+        Local local = new Local(code.local(ClassFile.size(descriptor(type))), type);
+        if (ast.getValue().isPresent()) {
+            value(ast.getValue().get(), type);
+        } else {
+            zero(type);
+        }
+        code.local(storeOpcode(type), local.index);
+        locals.put(ast.getName(), local);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            throw new RuntimeException("Invalid assignment target.");
+        }
+        Ast.Expr.Access receiver = (Ast.Expr.Access) ast.getReceiver();
+        Environment.Type type = receiver.getType();
+        if (receiver.getReceiver().isPresent()) {
+            Ast.Expr object = receiver.getReceiver().get();
+            visit(object);
+            value(ast.getValue(), type);
+            code.field(PUTFIELD, owner(object.getType()), receiver.getVariable().getJvmName(), descriptor(type));
+            return null;
+        }
+        Local local = locals.get(receiver.getName());
+        if (local != null) {
+            value(ast.getValue(), local.type);
+            code.local(storeOpcode(local.type), local.index);
+        } else if (fields.containsKey(receiver.getName())) {
+            code.local(ALOAD, 0);
+            value(ast.getValue(), fields.get(receiver.getName()));
+            code.field(PUTFIELD, name, receiver.getVariable().getJvmName(), descriptor(fields.get(receiver.getName())));
+        } else {
+            throw new RuntimeException("The variable " + receiver.getName() + " is not defined in the source.");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.If ast) {
+        ClassFile.Label otherwise = code.label();
+        ClassFile.Label end = code.label();
+        visit(ast.getCondition());
+        code.jump(IFEQ, otherwise, -1);
+        block(ast.getThenStatements());
+        code.jump(GOTO, end, 0);
+        code.place(otherwise);
+        block(ast.getElseStatements());
+        code.place(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.For ast) {
+        Map<String, Local> enclosing = locals;
+        int previous = code.locals();
+        locals = new HashMap<>(locals);
+        try {
+            Local variable = new Local(code.local(1), Environment.Type.INTEGER);
+            locals.put(ast.getName(), variable);
+            ClassFile.Label start = code.label();
+            ClassFile.Label end = code.label();
+            if (isRange(ast.getValue())) {
+                // A range is counted in a hidden local, which the body cannot
+                // change, and the end is only evaluated once.
+                List<Ast.Expr> arguments = ((Ast.Expr.Function) ast.getValue()).getArguments();
+                int counter = code.local(1);
+                int limit = code.local(1);
+                value(arguments.get(0), Environment.Type.INTEGER);
+                code.local(ISTORE, counter);
+                value(arguments.get(1), Environment.Type.INTEGER);
+                code.local(ISTORE, limit);
+                code.place(start);
+                code.local(ILOAD, counter);
+                code.local(ILOAD, limit);
+                code.jump(IF_ICMPGE, end, -2);
+                code.local(ILOAD, counter);
+                code.local(ISTORE, variable.index);
+                statements(ast.getStatements());
+                code.increment(counter, 1);
+            } else {
+                int iterator = code.local(1);
+                visit(ast.getValue());
+                code.invoke(INVOKEINTERFACE, "java/lang/Iterable", "iterator", "()Ljava/util/Iterator;");
+                code.local(ASTORE, iterator);
+                code.place(start);
+                code.local(ALOAD, iterator);
+                code.invoke(INVOKEINTERFACE, "java/util/Iterator", "hasNext", "()Z");
+                code.jump(IFEQ, end, -1);
+                code.local(ALOAD, iterator);
+                code.invoke(INVOKEINTERFACE, "java/util/Iterator", "next", "()Ljava/lang/Object;");
+                convert(Environment.Type.ANY, Environment.Type.INTEGER);
+                code.local(ISTORE, variable.index);
+                statements(ast.getStatements());
+            }
+            code.jump(GOTO, start, 0);
+            code.place(end);
+        } finally {
+            locals = enclosing;
+            code.release(previous);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.While ast) {
+        ClassFile.Label start = code.label();
+        ClassFile.Label end = code.label();
+        code.place(start);
+        visit(ast.getCondition());
+        code.jump(IFEQ, end, -1);
+        block(ast.getStatements());
+        code.jump(GOTO, start, 0);
+        code.place(end);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Return ast) {
+        if (returnType == Environment.Type.NIL) {
+            visit(ast.getValue());
+            pop(ast.getValue().getType());
+            code.op(RETURN, 0);
+        } else {
+            value(ast.getValue(), returnType);
+            code.op(returnOpcode(returnType), -ClassFile.size(descriptor(returnType)));
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Literal ast) {
+        Object literal = ast.getLiteral();
+        if (literal == null) {
+            code.op(ACONST_NULL, 1);
+        } else if (literal instanceof Boolean) {
+            code.push((Boolean) literal ? 1 : 0);
+        } else if (literal instanceof BigInteger) {
+            code.push(((BigInteger) literal).intValueExact());
+        } else if (literal instanceof BigDecimal) {
+            code.push(((BigDecimal) literal).doubleValue());
+        } else if (literal instanceof Character) {
+            code.push((int) (Character) literal);
+        } else if (literal instanceof String) {
+            code.push((String) literal);
+        } else {
+            throw new RuntimeException("Unsupported literal " + literal + ".");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Binary ast) {
+        Environment.Type left = ast.getLeft().getType();
+        Environment.Type right = ast.getRight().getType();
+        switch (ast.getOperator()) {
+            case "AND":
+            case "OR": {
+                // Pushes the value of the left operand if it decides the
+                // result, and otherwise the value of the right operand.
+                ClassFile.Label decided = code.label();
+                ClassFile.Label end = code.label();
+                visit(ast.getLeft());
+                code.jump(ast.getOperator().equals("AND") ? IFEQ : IFNE, decided, -1);
+                visit(ast.getRight());
+                code.jump(GOTO, end, 0);
+                code.place(decided);
+                code.stack(code.stack() - 1);
+                code.push(ast.getOperator().equals("AND") ? 0 : 1);
+                code.place(end);
+                return null;
+            }
+            case "+":
+                if (ast.getType() == Environment.Type.STRING) {
+                    code.type(NEW, "java/lang/StringBuilder");
+                    code.op(DUP, 1);
+                    code.invoke(INVOKESPECIAL, "java/lang/StringBuilder", "<init>", "()V");
+                    visit(ast.getLeft());
+                    code.invoke(INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(" + appendDescriptor(left) + ")Ljava/lang/StringBuilder;");
+                    visit(ast.getRight());
+                    code.invoke(INVOKEVIRTUAL, "java/lang/StringBuilder", "append", "(" + appendDescriptor(right) + ")Ljava/lang/StringBuilder;");
+                    code.invoke(INVOKEVIRTUAL, "java/lang/StringBuilder", "toString", "()Ljava/lang/String;");
+                    return null;
+                }
+                return arithmetic(ast, IADD, DADD);
+            case "-":
+                return arithmetic(ast, ISUB, DSUB);
+            case "*":
+                return arithmetic(ast, IMUL, DMUL);
+            case "/":
+                return arithmetic(ast, IDIV, DDIV);
+            case "<":
+                return comparison(ast, IFLT);
+            case "<=":
+                return comparison(ast, IFLE);
+            case ">":
+                return comparison(ast, IFGT);
+            case ">=":
+                return comparison(ast, IFGE);
+            case "==":
+                return comparison(ast, IFEQ);
+            case "!=":
+                return comparison(ast, IFNE);
+            default:
+                throw new RuntimeException("Unknown operator " + ast.getOperator() + ".");
+        }
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Access ast) {
+        Environment.Variable variable = ast.getVariable();
+        if (ast.getReceiver().isPresent()) {
+            Ast.Expr object = ast.getReceiver().get();
+            visit(object);
+            // Fields such as String's length are mapped to accessor methods,
+            // with a JVM name like length().
+            if (variable.getJvmName().endsWith("()")) {
+                String method = variable.getJvmName().substring(0, variable.getJvmName().length() - 2);
+                code.invoke(invokeOpcode(object.getType()), owner(object.getType()), method, "()" + descriptor(variable.getType()));
+            } else {
+                code.field(GETFIELD, owner(object.getType()), variable.getJvmName(), descriptor(variable.getType()));
+            }
+            return null;
+        }
+        Local local = locals.get(ast.getName());
+        if (local != null) {
+            code.local(loadOpcode(local.type), local.index);
+        } else if (fields.containsKey(ast.getName())) {
+            code.local(ALOAD, 0);
+            code.field(GETFIELD, name, variable.getJvmName(), descriptor(fields.get(ast.getName())));
+        } else {
+            throw new RuntimeException("The variable " + ast.getName() + " is not defined in the source.");
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Function ast) {
+        Environment.Function function = ast.getFunction();
+        List<Environment.Type> parameters = function.getParameterTypes();
+        if (ast.getReceiver().isPresent()) {
+            Ast.Expr object = ast.getReceiver().get();
+            visit(object);
+            for (int i = 0; i < ast.getArguments().size(); i++) {
+                value(ast.getArguments().get(i), parameters.get(i + 1));
+            }
+            code.invoke(invokeOpcode(object.getType()), owner(object.getType()), function.getJvmName(),
+                    descriptor(parameters.subList(1, parameters.size()), function.getReturnType()));
+        } else if (function.getJvmName().equals("System.out.println")) {
+            code.field(GETSTATIC, "java/lang/System", "out", "Ljava/io/PrintStream;");
+            Environment.Type type = ast.getArguments().get(0).getType();
+            visit(ast.getArguments().get(0));
+            code.invoke(INVOKEVIRTUAL, "java/io/PrintStream", "println", "(" + appendDescriptor(type) + ")V");
+        } else if (isRange(ast)) {
+            throw new RuntimeException("The function range is only supported as the value of a FOR loop.");
+        } else {
+            code.local(ALOAD, 0);
+            for (int i = 0; i < ast.getArguments().size(); i++) {
+                value(ast.getArguments().get(i), parameters.get(i));
+            }
+            code.invoke(INVOKEVIRTUAL, name, function.getJvmName(), descriptor(function));
+        }
+        // Every expression leaves one value, so calls to functions without a
+        // result push null for their Nil value.
+        if (function.getReturnType() == Environment.Type.NIL) {
+            code.op(ACONST_NULL, 1);
+        }
+        return null;
+    }
+
+    /**
+     * Generates statements in a new block, so their declarations are not
+     * visible after it.
+     */
+    private void block(List<Ast.Stmt> statements) {
+        Map<String, Local> enclosing = locals;
+        int previous = code.locals();
+        locals = new HashMap<>(locals);
+        try {
+            statements(statements);
+        } finally {
+            locals = enclosing;
+            code.release(previous);
+        }
+    }
+
+    private void statements(List<Ast.Stmt> statements) {
+        for (Ast.Stmt stmt : statements) {
+            visit(stmt);
+        }
+    }
+
+    private Void arithmetic(Ast.Expr.Binary ast, int integer, int decimal) {
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        if (ast.getType() == Environment.Type.INTEGER) {
+            code.op(integer, -1);
+        } else if (ast.getType() == Environment.Type.DECIMAL) {
+            code.op(decimal, -2);
+        } else {
+            throw new RuntimeException("Unsupported operands for " + ast.getOperator() + ".");
+        }
+        return null;
+    }
+
+    /**
+     * Generates a comparison, which pushes 1 if the result of comparing the
+     * operands satisfies the given {@code IF*} condition against zero, and
+     * otherwise 0.
+     */
+    private Void comparison(Ast.Expr.Binary ast, int condition) {
+        Environment.Type type = ast.getLeft().getType();
+        visit(ast.getLeft());
+        value(ast.getRight(), type);
+        ClassFile.Label success = code.label();
+        ClassFile.Label end = code.label();
+        switch (descriptor(type)) {
+            case "I":
+            case "C":
+            case "Z":
+                // IF_ICMP* conditions are in the same order as IF*.
+                code.jump(condition - IFEQ + IF_ICMPEQ, success, -2);
+                break;
+            case "D":
+                code.op(condition == IFLT || condition == IFLE ? DCMPG : DCMPL, -3);
+                code.jump(condition, success, -1);
+                break;
+            default:
+                if (condition == IFEQ || condition == IFNE) {
+                    code.invoke(INVOKESTATIC, "java/util/Objects", "equals", "(Ljava/lang/Object;Ljava/lang/Object;)Z");
+                    code.jump(condition == IFEQ ? IFNE : IFEQ, success, -1);
+                } else {
+                    code.invoke(INVOKEINTERFACE, "java/lang/Comparable", "compareTo", "(Ljava/lang/Object;)I");
+                    code.jump(condition, success, -1);
+                }
+        }
+        code.push(0);
+        code.jump(GOTO, end, 0);
+        code.place(success);
+        code.stack(code.stack() - 1);
+        code.push(1);
+        code.place(end);
+        return null;
+    }
+
+    /**
+     * Generates an expression whose value is assigned to the given type,
+     * boxing or unboxing it if needed.
+     */
+    private void value(Ast.Expr ast, Environment.Type type) {
+        visit(ast);
+        convert(ast.getType(), type);
+    }
+
+    private void convert(Environment.Type from, Environment.Type to) {
+        String source = descriptor(from);
+        String target = descriptor(to);
+        if (source.equals(target)) {
+            return;
+        }
+        String box = box(source);
+        if (box != null && target.startsWith("L")) {
+            code.invoke(INVOKESTATIC, box, "valueOf", "(" + source + ")L" + box + ";");
+        } else if (source.startsWith("L") && box(target) != null) {
+            String unbox = box(target);
+            code.type(CHECKCAST, unbox);
+            code.invoke(INVOKEVIRTUAL, unbox, to.getJvmName() + "Value", "()" + target);
+        } else if (target.startsWith("L") && !target.equals("Ljava/lang/Object;")) {
+            code.type(CHECKCAST, target.substring(1, target.length() - 1));
+        }
+    }
+
+    private void zero(Environment.Type type) {
+        switch (descriptor(type)) {
+            case "D":
+                code.op(DCONST_0, 2);
+                break;
+            case "I":
+            case "C":
+            case "Z":
+                code.op(ICONST_0, 1);
+                break;
+            default:
+                code.op(ACONST_NULL, 1);
+        }
+    }
+
+    private void pop(Environment.Type type) {
+        code.op(ClassFile.size(descriptor(type)) == 2 ? POP2 : POP, -ClassFile.size(descriptor(type)));
+    }
+
+    /**
+     * Returns whether an expression is a call to the built-in
+     * {@code range(start, end)} function, rather than a method of the program
+     * named {@code range}.
+     */
+    private static boolean isRange(Ast.Expr ast) {
+        return ast instanceof Ast.Expr.Function
+                && !((Ast.Expr.Function) ast).getReceiver().isPresent()
+                && ((Ast.Expr.Function) ast).getFunction().getJvmName().equals(Environment.RANGE);
+    }
+
+    /**
+     * Returns the JVM descriptor of a value of the given type. Nil values are
+     * represented by {@code null}.
+     */
+    private static String descriptor(Environment.Type type) {
+        switch (type.getJvmName()) {
+            case "int":
+                return "I";
+            case "double":
+                return "D";
+            case "boolean":
+                return "Z";
+            case "char":
+                return "C";
+            case "String":
+                return "Ljava/lang/String;";
+            case "Comparable":
+                return "Ljava/lang/Comparable;";
+            case "Iterable<Integer>":
+                return "Ljava/lang/Iterable;";
+            case "Object":
+            case "Void":
+                return "Ljava/lang/Object;";
+            default:
+                throw new RuntimeException("Unsupported type " + type.getName() + ".");
+        }
+    }
+
+    private static String descriptor(Environment.Function function) {
+        return descriptor(function.getParameterTypes(), function.getReturnType());
+    }
+
+    private static String descriptor(List<Environment.Type> parameters, Environment.Type returnType) {
+        StringBuilder builder = new StringBuilder("(");
+        for (Environment.Type parameter : parameters) {
+            builder.append(descriptor(parameter));
+        }
+        builder.append(')');
+        builder.append(returnType == Environment.Type.NIL ? "V" : descriptor(returnType));
+        return builder.toString();
+    }
+
+    /**
+     * Returns the descriptor used to append or print a value of the given
+     * type, which is Object for every reference type except String.
+     */
+    private static String appendDescriptor(Environment.Type type) {
+        String descriptor = descriptor(type);
+        return descriptor.startsWith("L") && !descriptor.equals("Ljava/lang/String;") ? "Ljava/lang/Object;" : descriptor;
+    }
+
+    /**
+     * Returns the internal name of the box class for a primitive descriptor,
+     * or {@code null} for a reference.
+     */
+    private static String box(String descriptor) {
+        switch (descriptor) {
+            case "I":
+                return "java/lang/Integer";
+            case "D":
+                return "java/lang/Double";
+            case "Z":
+                return "java/lang/Boolean";
+            case "C":
+                return "java/lang/Character";
+            default:
+                return null;
+        }
+    }
+
+    private static String owner(Environment.Type type) {
+        String descriptor = descriptor(type);
+        if (!descriptor.startsWith("L")) {
+            throw new RuntimeException("Unsupported receiver of type " + type.getName() + ".");
+        }
+        return descriptor.substring(1, descriptor.length() - 1);
+    }
+
+    private static int invokeOpcode(Environment.Type type) {
+        String owner = owner(type);
+        return owner.equals("java/lang/Comparable") || owner.equals("java/lang/Iterable") ? INVOKEINTERFACE : INVOKEVIRTUAL;
+    }
+
+    private static int loadOpcode(Environment.Type type) {
+        switch (descriptor(type)) {
+            case "D":
+                return DLOAD;
+            case "I":
+            case "C":
+            case "Z":
+                return ILOAD;
+            default:
+                return ALOAD;
+        }
+    }
+
+    private static int storeOpcode(Environment.Type type) {
+        return loadOpcode(type) - ILOAD + ISTORE;
+    }
+
+    private static int returnOpcode(Environment.Type type) {
+        switch (loadOpcode(type)) {
+            case DLOAD:
+                return DRETURN;
+            case ILOAD:
+                return IRETURN;
+            default:
+                return ARETURN;
+        }
+    }
+
+}
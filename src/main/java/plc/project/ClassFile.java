@@ -0,0 +1,515 @@
+package plc.project;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal writer for JVM class files, with just the constant pool entries
+ * and instructions the {@link BytecodeGenerator} needs.
+ *
+ * Classes are written as version 49 (Java 5) class files, which the JVM
+ * verifies by type inference. This means methods do not need the
+ * {@code StackMapTable} attribute, which would require computing the types
+ * of the stack and locals at every branch target.
+ */
+final class ClassFile {
+
+    static final int ACC_PUBLIC = 0x0001;
+    static final int ACC_STATIC = 0x0008;
+    static final int ACC_SUPER = 0x0020;
+
+    static final int ACONST_NULL = 0x01;
+    static final int ICONST_0 = 0x03;
+    static final int DCONST_0 = 0x0e;
+    static final int BIPUSH = 0x10;
+    static final int SIPUSH = 0x11;
+    static final int ILOAD = 0x15;
+    static final int DLOAD = 0x18;
+    static final int ALOAD = 0x19;
+    static final int ISTORE = 0x36;
+    static final int DSTORE = 0x39;
+    static final int ASTORE = 0x3a;
+    static final int POP = 0x57;
+    static final int POP2 = 0x58;
+    static final int DUP = 0x59;
+    static final int IADD = 0x60;
+    static final int DADD = 0x63;
+    static final int ISUB = 0x64;
+    static final int DSUB = 0x67;
+    static final int IMUL = 0x68;
+    static final int DMUL = 0x6b;
+    static final int IDIV = 0x6c;
+    static final int DDIV = 0x6f;
+    static final int IINC = 0x84;
+    static final int DCMPL = 0x97;
+    static final int DCMPG = 0x98;
+    static final int IFEQ = 0x99;
+    static final int IFNE = 0x9a;
+    static final int IFLT = 0x9b;
+    static final int IFGE = 0x9c;
+    static final int IFGT = 0x9d;
+    static final int IFLE = 0x9e;
+    static final int IF_ICMPEQ = 0x9f;
+    static final int IF_ICMPNE = 0xa0;
+    static final int IF_ICMPLT = 0xa1;
+    static final int IF_ICMPGE = 0xa2;
+    static final int IF_ICMPGT = 0xa3;
+    static final int IF_ICMPLE = 0xa4;
+    static final int GOTO = 0xa7;
+    static final int IRETURN = 0xac;
+    static final int DRETURN = 0xaf;
+    static final int ARETURN = 0xb0;
+    static final int RETURN = 0xb1;
+    static final int GETSTATIC = 0xb2;
+    static final int GETFIELD = 0xb4;
+    static final int PUTFIELD = 0xb5;
+    static final int INVOKEVIRTUAL = 0xb6;
+    static final int INVOKESPECIAL = 0xb7;
+    static final int INVOKESTATIC = 0xb8;
+    static final int INVOKEINTERFACE = 0xb9;
+    static final int NEW = 0xbb;
+    static final int CHECKCAST = 0xc0;
+    static final int WIDE = 0xc4;
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream constants = new DataOutputStream(pool);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int count = 1;
+
+    private final int access;
+    private final int name;
+    private final int superclass;
+    private final List<byte[]> fields = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * Creates a class with the given internal name, such as {@code Main},
+     * which extends {@link Object}.
+     */
+    ClassFile(int access, String name) {
+        this.access = access;
+        this.name = classRef(name);
+        this.superclass = classRef("java/lang/Object");
+    }
+
+    void field(int access, String name, String descriptor) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        fields.add(bytes.toByteArray());
+    }
+
+    /**
+     * Starts a method, whose code is added to the class by {@link Code#end()}.
+     * Parameters take the first locals, after {@code this} for an instance
+     * method.
+     */
+    Code method(int access, String name, String descriptor) {
+        int locals = (access & ACC_STATIC) != 0 ? 0 : 1;
+        for (char c : parameters(descriptor).toCharArray()) {
+            locals += c == 'D' || c == 'J' ? 2 : 1;
+        }
+        return new Code(access, name, descriptor, locals);
+    }
+
+    byte[] toByteArray() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(49);
+            out.writeShort(count);
+            pool.writeTo(out);
+            out.writeShort(access);
+            out.writeShort(name);
+            out.writeShort(superclass);
+            out.writeShort(0);
+            out.writeShort(fields.size());
+            for (byte[] field : fields) {
+                out.write(field);
+            }
+            out.writeShort(methods.size());
+            for (byte[] method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, 1, 1, out -> out.writeUTF(value));
+    }
+
+    int classRef(String name) {
+        int utf8 = utf8(name);
+        return constant("C" + name, 7, 1, out -> out.writeShort(utf8));
+    }
+
+    int string(String value) {
+        int utf8 = utf8(value);
+        return constant("S" + value, 8, 1, out -> out.writeShort(utf8));
+    }
+
+    int integer(int value) {
+        return constant("I" + value, 3, 1, out -> out.writeInt(value));
+    }
+
+    int decimal(double value) {
+        return constant("D" + Double.doubleToRawLongBits(value), 6, 2, out -> out.writeDouble(value));
+    }
+
+    int member(int tag, String owner, String name, String descriptor) {
+        int classRef = classRef(owner);
+        int nameAndType = nameAndType(name, descriptor);
+        return constant(tag + owner + "." + name + descriptor, tag, 1, out -> {
+            out.writeShort(classRef);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int utf8Name = utf8(name);
+        int utf8Descriptor = utf8(descriptor);
+        return constant("N" + name + descriptor, 12, 1, out -> {
+            out.writeShort(utf8Name);
+            out.writeShort(utf8Descriptor);
+        });
+    }
+
+    private interface Writer {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+    /**
+     * Returns the index of a constant, adding it to the pool if it is not
+     * there. Long and double constants take two entries.
+     */
+    private int constant(String key, int tag, int size, Writer writer) {
+        Integer index = indices.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            constants.writeByte(tag);
+            writer.write(constants);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indices.put(key, count);
+        count += size;
+        if (count > 0xFFFF) {
+            throw new RuntimeException("Too many constants in class.");
+        }
+        return count - size;
+    }
+
+    /**
+     * Returns the parameter descriptors of a method descriptor, with each
+     * object or array type replaced by {@code L} so the result has one
+     * character per parameter.
+     */
+    private static String parameters(String descriptor) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 1; descriptor.charAt(i) != ')'; i++) {
+            char c = descriptor.charAt(i);
+            int start = i;
+            while (descriptor.charAt(i) == '[') {
+                i++;
+            }
+            if (descriptor.charAt(i) == 'L') {
+                i = descriptor.indexOf(';', i);
+            }
+            builder.append(i > start ? 'L' : c);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Returns the number of stack slots taken by a value of the given type
+     * descriptor.
+     */
+    static int size(String descriptor) {
+        switch (descriptor.charAt(0)) {
+            case 'V':
+                return 0;
+            case 'D':
+            case 'J':
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * A position in the code, which jumps may refer to before it is placed.
+     * Labels are created by {@link Code#label()}.
+     */
+    static final class Label {
+
+        private int position = -1;
+        private final List<int[]> jumps = new ArrayList<>();
+
+    }
+
+    /**
+     * The code of a method. The maximum stack depth is tracked as
+     * instructions are added; after an unconditional jump the depth must be
+     * set by the caller with {@link #stack(int)}.
+     */
+    final class Code {
+
+        private final int access;
+        private final String name;
+        private final String descriptor;
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final List<Label> labels = new ArrayList<>();
+        private int stack = 0;
+        private int maxStack = 0;
+        private int locals;
+        private int maxLocals;
+
+        private Code(int access, String name, String descriptor, int locals) {
+            this.access = access;
+            this.name = name;
+            this.descriptor = descriptor;
+            this.locals = locals;
+            this.maxLocals = locals;
+        }
+
+        /**
+         * Allocates a local of the given size, which stays allocated until
+         * {@link #release(int)} is called with the number of locals before it.
+         */
+        int local(int size) {
+            int local = locals;
+            locals += size;
+            maxLocals = Math.max(maxLocals, locals);
+            return local;
+        }
+
+        int locals() {
+            return locals;
+        }
+
+        void release(int locals) {
+            this.locals = locals;
+        }
+
+        int stack() {
+            return stack;
+        }
+
+        void stack(int stack) {
+            this.stack = stack;
+        }
+
+        /**
+         * Adds an instruction without operands, which changes the stack depth
+         * by the given amount.
+         */
+        void op(int opcode, int delta) {
+            code.write(opcode);
+            adjust(delta);
+        }
+
+        void push(int value) {
+            if (value >= -1 && value <= 5) {
+                op(ICONST_0 + value, 1);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(BIPUSH, 1);
+                code.write(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(SIPUSH, 1);
+                writeShort(value);
+            } else {
+                ldc(integer(value), 1);
+            }
+        }
+
+        void push(double value) {
+            if (Double.doubleToRawLongBits(value) == 0L) {
+                op(DCONST_0, 2);
+            } else {
+                ldc(decimal(value), 2);
+            }
+        }
+
+        void push(String value) {
+            ldc(string(value), 1);
+        }
+
+        private void ldc(int index, int size) {
+            if (size == 2) {
+                op(0x14, 2);
+                writeShort(index);
+            } else if (index < 256) {
+                op(0x12, 1);
+                code.write(index);
+            } else {
+                op(0x13, 1);
+                writeShort(index);
+            }
+        }
+
+        /**
+         * Loads or stores a local, where the opcode is one of the
+         * {@code ILOAD}, {@code DLOAD}, {@code ALOAD} or corresponding store
+         * instructions.
+         */
+        void local(int opcode, int index) {
+            int size = opcode == DLOAD || opcode == DSTORE ? 2 : 1;
+            int delta = opcode >= ISTORE ? -size : size;
+            if (index < 256) {
+                op(opcode, delta);
+                code.write(index);
+            } else {
+                op(WIDE, 0);
+                op(opcode, delta);
+                writeShort(index);
+            }
+        }
+
+        void increment(int index, int value) {
+            if (index < 256 && value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(IINC, 0);
+                code.write(index);
+                code.write(value);
+            } else {
+                op(WIDE, 0);
+                op(IINC, 0);
+                writeShort(index);
+                writeShort(value);
+            }
+        }
+
+        void type(int opcode, String type) {
+            op(opcode, opcode == NEW ? 1 : 0);
+            writeShort(classRef(type));
+        }
+
+        void field(int opcode, String owner, String name, String descriptor) {
+            int size = size(descriptor);
+            int delta;
+            switch (opcode) {
+                case GETSTATIC:
+                    delta = size;
+                    break;
+                case GETFIELD:
+                    delta = size - 1;
+                    break;
+                case PUTFIELD:
+                    delta = -size - 1;
+                    break;
+                default:
+                    delta = -size;
+            }
+            op(opcode, delta);
+            writeShort(member(9, owner, name, descriptor));
+        }
+
+        void invoke(int opcode, String owner, String name, String descriptor) {
+            int arguments = 0;
+            for (char c : parameters(descriptor).toCharArray()) {
+                arguments += c == 'D' || c == 'J' ? 2 : 1;
+            }
+            int result = size(descriptor.substring(descriptor.indexOf(')') + 1));
+            op(opcode, result - arguments - (opcode == INVOKESTATIC ? 0 : 1));
+            writeShort(member(opcode == INVOKEINTERFACE ? 11 : 10, owner, name, descriptor));
+            if (opcode == INVOKEINTERFACE) {
+                code.write(arguments + 1);
+                code.write(0);
+            }
+        }
+
+        /**
+         * Adds a jump to a label. Conditional jumps pop their operands, given
+         * by the delta; after a {@code GOTO} the stack depth is unchanged.
+         */
+        void jump(int opcode, Label label, int delta) {
+            int position = code.size();
+            op(opcode, delta);
+            label.jumps.add(new int[] {position, code.size()});
+            writeShort(0);
+        }
+
+        Label label() {
+            Label label = new Label();
+            labels.add(label);
+            return label;
+        }
+
+        void place(Label label) {
+            label.position = code.size();
+        }
+
+        private void adjust(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void writeShort(int value) {
+            code.write(value >> 8);
+            code.write(value);
+        }
+
+        /**
+         * Resolves the jumps to labels and adds the method to the class.
+         */
+        void end() {
+            byte[] bytes = code.toByteArray();
+            if (bytes.length > 0xFFFF) {
+                throw new RuntimeException("The method " + name + " is too large.");
+            }
+            for (Label label : labels) {
+                for (int[] jump : label.jumps) {
+                    int offset = label.position - jump[0];
+                    if (label.position < 0 || offset != (short) offset) {
+                        throw new RuntimeException("Invalid jump in method " + name + ".");
+                    }
+                    bytes[jump[1]] = (byte) (offset >> 8);
+                    bytes[jump[1] + 1] = (byte) offset;
+                }
+            }
+            ByteArrayOutputStream method = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(method);
+            try {
+                out.writeShort(access);
+                out.writeShort(utf8(name));
+                out.writeShort(utf8(descriptor));
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(12 + bytes.length);
+                out.writeShort(maxStack);
+                out.writeShort(maxLocals);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                out.writeShort(0);
+                out.writeShort(0);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            methods.add(method.toByteArray());
+        }
+
+    }
+
+}
@@ -0,0 +1,832 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BinaryOperator;
+import plc.project.Environment.PlcObject;
+
+/**
+ * Compiles an {@link Ast.Source} into a tree of executable {@link Node}s,
+ * which run the program with the same semantics as the {@link Interpreter}.
+ *
+ * All of the work the interpreter repeats on each execution is done once
+ * here: operators are selected by the operator string and, when the tree has
+ * been analyzed, by the operand types; local variables are assigned slots in
+ * an array-backed {@link Frame}; and fields, methods and functions from the
+ * parent scope are bound directly. The resulting nodes never dispatch through
+ * a visitor or switch on strings.
+ *
+ * Expressions the analyzer has typed as {@code Integer} are also compiled to
+ * run on {@code int}s, and {@code Integer} locals are stored unboxed, so
+ * numeric loops do not allocate. Since the language's integers are
+ * unbounded, this falls back to {@link BigInteger} whenever a value leaves
+ * the {@code int} range.
+ */
+public final class Compiler implements Ast.Visitor<Compiler.Node> {
+
+    /**
+     * Thrown by int operations when a value is not an int, so the boxed node
+     * is evaluated instead. It is preallocated since it is not an error.
+     */
+    private static final ArithmeticException OVERFLOW = new ArithmeticException("Integer overflow.");
+
+    private final Scope scope;
+    private final Map<String, Integer> fields = new HashMap<>();
+    private final Map<String, Method> methods = new HashMap<>();
+    private Block block = null;
+    private int slots = 0;
+
+    public Compiler(Scope parent) {
+        // Built-in functions are defined in a parent scope, so the program
+        // may define methods with the same names.
+        Scope builtins = new Scope(parent);
+        builtins.defineFunction("print", 1, args -> {
+            System.out.println(args.get(0).getValue());
+            return Environment.NIL;
+        });
+        builtins.defineFunction("range", 2, Environment::range);
+        scope = new Scope(builtins);
+    }
+
+    public Scope getScope() {
+        return scope;
+    }
+
+    /**
+     * Compiles the given source into a program, which may be run any number of
+     * times. Each run starts with freshly initialized fields.
+     */
+    public Program compile(Ast.Source ast) {
+        List<Node> initializers = new ArrayList<>();
+        for (Ast.Field field : ast.getFields()) {
+            initializers.add(visit(field));
+        }
+        for (Ast.Method method : ast.getMethods()) {
+            String key = method.getName() + "/" + method.getParameters().size();
+            if (methods.containsKey(key)) {
+                throw new RuntimeException("The function " + key + " is already defined.");
+            }
+            methods.put(key, new Method());
+        }
+        for (Ast.Method method : ast.getMethods()) {
+            visit(method);
+        }
+        Method main = methods.get("main/0");
+        if (main == null) {
+            throw new RuntimeException("The function main/0 is not defined.");
+        }
+        return new Program(initializers.toArray(new Node[0]), main);
+    }
+
+    @Override
+    public Node visit(Ast.Source ast) {
+        Program program = compile(ast);
+        return frame -> program.run();
+    }
+
+    @Override
+    public Node visit(Ast.Field ast) {
+        Node value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : frame -> Environment.NIL;
+        if (fields.containsKey(ast.getName())) {
+            throw new RuntimeException("The variable " + ast.getName() + " is already defined in this scope.");
+        }
+        fields.put(ast.getName(), fields.size());
+        return value;
+    }
+
+    @Override
+    public Node visit(Ast.Method ast) {
+        Method method = methods.get(ast.getName() + "/" + ast.getParameters().size());
+        block = new Block(null);
+        slots = 0;
+        try {
+            List<Integer> integers = new ArrayList<>();
+            for (int i = 0; i < ast.getParameters().size(); i++) {
+                boolean integer = ast.getParameterTypeNames().get(i).equals("Integer");
+                if (declare(ast.getParameters().get(i), integer).integer) {
+                    integers.add(i);
+                }
+            }
+            method.integers = integers.stream().mapToInt(Integer::intValue).toArray();
+            method.statements = compile(ast.getStatements());
+            method.size = slots;
+        } finally {
+            block = null;
+        }
+        return frame -> Environment.NIL;
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.Expression ast) {
+        Node expression = visit(ast.getExpression());
+        return frame -> {
+            expression.execute(frame);
+            return null;
+        };
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.Declaration ast) {
+        Node value = ast.getValue().isPresent() ? visit(ast.getValue().get()) : frame -> Environment.NIL;
+        boolean integer = ast.getTypeName().isPresent()
+                ? ast.getTypeName().get().equals("Integer")
+                : value instanceof IntNode;
+        return assign(declare(ast.getName(), integer), value);
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.Assignment ast) {
+        if (!(ast.getReceiver() instanceof Ast.Expr.Access)) {
+            throw new RuntimeException("Invalid assignment target.");
+        }
+        Ast.Expr.Access receiver = (Ast.Expr.Access) ast.getReceiver();
+        Node value = visit(ast.getValue());
+        String name = receiver.getName();
+        if (receiver.getReceiver().isPresent()) {
+            Node object = visit(receiver.getReceiver().get());
+            return frame -> {
+                object.execute(frame).setField(name, value.execute(frame));
+                return null;
+            };
+        }
+        Local local = lookup(name);
+        if (local != null) {
+            return assign(local, value);
+        } else if (fields.containsKey(name)) {
+            int slot = fields.get(name);
+            return frame -> {
+                frame.globals[slot] = value.execute(frame);
+                return null;
+            };
+        }
+        Environment.Variable variable = scope.lookupVariable(name);
+        return frame -> {
+            variable.setValue(value.execute(frame));
+            return null;
+        };
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.If ast) {
+        Node condition = visit(ast.getCondition());
+        Node[] thenStatements = compileBlock(ast.getThenStatements());
+        Node[] elseStatements = compileBlock(ast.getElseStatements());
+        if (condition instanceof BooleanNode) {
+            BooleanNode test = (BooleanNode) condition;
+            return frame -> execute(test.test(frame) ? thenStatements : elseStatements, frame);
+        }
+        return frame -> execute(requireType(Boolean.class, condition.execute(frame)) ? thenStatements : elseStatements, frame);
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.For ast) {
+        Node value = visit(ast.getValue());
+        block = new Block(block);
+        try {
+            int slot = declare(ast.getName(), true).slot;
+            Node[] statements = compile(ast.getStatements());
+            return frame -> {
+                Iterable<?> iterable = requireType(Iterable.class, value.execute(frame));
+                if (iterable instanceof Environment.Range) {
+                    Environment.Range range = (Environment.Range) iterable;
+                    for (int i = range.getStart(); i < range.getEnd(); i++) {
+                        frame.ints[slot] = i;
+                        frame.locals[slot] = null;
+                        PlcObject result = execute(statements, frame);
+                        if (result != null) {
+                            return result;
+                        }
+                    }
+                    return null;
+                }
+                for (Object element : iterable) {
+                    store(frame, slot, Environment.element(element));
+                    PlcObject result = execute(statements, frame);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return null;
+            };
+        } finally {
+            block = block.parent;
+        }
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.While ast) {
+        Node condition = visit(ast.getCondition());
+        Node[] statements = compileBlock(ast.getStatements());
+        if (condition instanceof BooleanNode) {
+            BooleanNode test = (BooleanNode) condition;
+            return frame -> {
+                while (test.test(frame)) {
+                    PlcObject result = execute(statements, frame);
+                    if (result != null) {
+                        return result;
+                    }
+                }
+                return null;
+            };
+        }
+        return frame -> {
+            while (requireType(Boolean.class, condition.execute(frame))) {
+                PlcObject result = execute(statements, frame);
+                if (result != null) {
+                    return result;
+                }
+            }
+            return null;
+        };
+    }
+
+    @Override
+    public Node visit(Ast.Stmt.Return ast) {
+        return visit(ast.getValue());
+    }
+
+    @Override
+    public Node visit(Ast.Expr.Literal ast) {
+        PlcObject value = ast.getLiteral() == null ? Environment.NIL : Environment.create(ast.getLiteral());
+        if (value.getValue() instanceof BigInteger && ((BigInteger) value.getValue()).bitLength() < 32) {
+            int integer = ((BigInteger) value.getValue()).intValue();
+            return new IntNode(frame -> integer, frame -> value, true);
+        }
+        return frame -> value;
+    }
+
+    @Override
+    public Node visit(Ast.Expr.Group ast) {
+        return visit(ast.getExpression());
+    }
+
+    @Override
+    public Node visit(Ast.Expr.Binary ast) {
+        Node left = visit(ast.getLeft());
+        Node right = visit(ast.getRight());
+        Node boxed = binary(ast, left, right);
+        if (left instanceof IntNode && right instanceof IntNode) {
+            IntOperation l = ((IntNode) left).operation;
+            IntOperation r = ((IntNode) right).operation;
+            switch (ast.getOperator()) {
+                case "+":
+                    return new IntNode(frame -> Math.addExact(l.apply(frame), r.apply(frame)), boxed, false);
+                case "-":
+                    return new IntNode(frame -> Math.subtractExact(l.apply(frame), r.apply(frame)), boxed, false);
+                case "*":
+                    return new IntNode(frame -> Math.multiplyExact(l.apply(frame), r.apply(frame)), boxed, false);
+                case "/":
+                    return new IntNode(frame -> divide(l.apply(frame), r.apply(frame)), boxed, false);
+                case "==":
+                    return new BooleanNode(frame -> l.apply(frame) == r.apply(frame), boxed);
+                case "!=":
+                    return new BooleanNode(frame -> l.apply(frame) != r.apply(frame), boxed);
+                case "<":
+                    return new BooleanNode(frame -> l.apply(frame) < r.apply(frame), boxed);
+                case "<=":
+                    return new BooleanNode(frame -> l.apply(frame) <= r.apply(frame), boxed);
+                case ">":
+                    return new BooleanNode(frame -> l.apply(frame) > r.apply(frame), boxed);
+                case ">=":
+                    return new BooleanNode(frame -> l.apply(frame) >= r.apply(frame), boxed);
+            }
+        } else if (left instanceof BooleanNode && right instanceof BooleanNode) {
+            BooleanOperation l = ((BooleanNode) left).operation;
+            BooleanOperation r = ((BooleanNode) right).operation;
+            switch (ast.getOperator()) {
+                case "AND":
+                    return new BooleanNode(frame -> l.test(frame) && r.test(frame), boxed);
+                case "OR":
+                    return new BooleanNode(frame -> l.test(frame) || r.test(frame), boxed);
+            }
+        }
+        return boxed;
+    }
+
+    /**
+     * Compiles a binary expression on boxed values, selecting the node by the
+     * operator and the analyzed type.
+     */
+    private static Node binary(Ast.Expr.Binary ast, Node left, Node right) {
+        Environment.Type type = typeOf(ast);
+        boolean comparable = isComparable(typeOf(ast.getLeft())) && typeOf(ast.getLeft()) == typeOf(ast.getRight());
+        switch (ast.getOperator()) {
+            case "AND":
+                return frame -> Environment.create(requireType(Boolean.class, left.execute(frame)) && requireType(Boolean.class, right.execute(frame)));
+            case "OR":
+                return frame -> Environment.create(requireType(Boolean.class, left.execute(frame)) || requireType(Boolean.class, right.execute(frame)));
+            case "==":
+                return frame -> Environment.create(left.execute(frame).getValue().equals(right.execute(frame).getValue()));
+            case "!=":
+                return frame -> Environment.create(!left.execute(frame).getValue().equals(right.execute(frame).getValue()));
+            case "<":
+                if (comparable) {
+                    return frame -> Environment.create(compareTo(left.execute(frame), right.execute(frame)) < 0);
+                }
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame).getValue(), right.execute(frame).getValue()) < 0);
+            case "<=":
+                if (comparable) {
+                    return frame -> Environment.create(compareTo(left.execute(frame), right.execute(frame)) <= 0);
+                }
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame).getValue(), right.execute(frame).getValue()) <= 0);
+            case ">":
+                if (comparable) {
+                    return frame -> Environment.create(compareTo(left.execute(frame), right.execute(frame)) > 0);
+                }
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame).getValue(), right.execute(frame).getValue()) > 0);
+            case ">=":
+                if (comparable) {
+                    return frame -> Environment.create(compareTo(left.execute(frame), right.execute(frame)) >= 0);
+                }
+                return frame -> Environment.create(Interpreter.compare(left.execute(frame).getValue(), right.execute(frame).getValue()) >= 0);
+            case "+":
+                if (type == Environment.Type.STRING) {
+                    return frame -> Environment.create(left.execute(frame).getValue().toString() + right.execute(frame).getValue().toString());
+                } else if (type == Environment.Type.INTEGER) {
+                    return frame -> Environment.create(integer(left, frame).add(integer(right, frame)));
+                } else if (type == Environment.Type.DECIMAL) {
+                    return frame -> Environment.create(decimal(left, frame).add(decimal(right, frame)));
+                }
+                return frame -> {
+                    Object l = left.execute(frame).getValue();
+                    Object r = right.execute(frame).getValue();
+                    if (l instanceof String || r instanceof String) {
+                        return Environment.create(l.toString() + r.toString());
+                    }
+                    return arithmetic("+", l, r, BigInteger::add, BigDecimal::add);
+                };
+            case "-":
+                if (type == Environment.Type.INTEGER) {
+                    return frame -> Environment.create(integer(left, frame).subtract(integer(right, frame)));
+                } else if (type == Environment.Type.DECIMAL) {
+                    return frame -> Environment.create(decimal(left, frame).subtract(decimal(right, frame)));
+                }
+                return frame -> arithmetic("-", left.execute(frame).getValue(), right.execute(frame).getValue(), BigInteger::subtract, BigDecimal::subtract);
+            case "*":
+                if (type == Environment.Type.INTEGER) {
+                    return frame -> Environment.create(integer(left, frame).multiply(integer(right, frame)));
+                } else if (type == Environment.Type.DECIMAL) {
+                    return frame -> Environment.create(decimal(left, frame).multiply(decimal(right, frame)));
+                }
+                return frame -> arithmetic("*", left.execute(frame).getValue(), right.execute(frame).getValue(), BigInteger::multiply, BigDecimal::multiply);
+            case "/":
+                if (type == Environment.Type.INTEGER) {
+                    return frame -> Environment.create(divide(integer(left, frame), integer(right, frame)));
+                } else if (type == Environment.Type.DECIMAL) {
+                    return frame -> Environment.create(divide(decimal(left, frame), decimal(right, frame)));
+                }
+                return frame -> arithmetic("/", left.execute(frame).getValue(), right.execute(frame).getValue(), Compiler::divide, Compiler::divide);
+            default:
+                throw new RuntimeException("Unknown operator " + ast.getOperator() + ".");
+        }
+    }
+
+    @Override
+    public Node visit(Ast.Expr.Access ast) {
+        String name = ast.getName();
+        if (ast.getReceiver().isPresent()) {
+            Node receiver = visit(ast.getReceiver().get());
+            return frame -> receiver.execute(frame).getField(name).getValue();
+        }
+        Node boxed;
+        Local local = lookup(name);
+        if (local != null && local.integer) {
+            int slot = local.slot;
+            return new IntNode(frame -> {
+                if (frame.locals[slot] != null) {
+                    throw OVERFLOW;
+                }
+                return frame.ints[slot];
+            }, frame -> {
+                PlcObject value = frame.locals[slot];
+                return value != null ? value : Environment.create(BigInteger.valueOf(frame.ints[slot]));
+            }, true);
+        } else if (local != null) {
+            int slot = local.slot;
+            boxed = frame -> frame.locals[slot];
+        } else if (fields.containsKey(name)) {
+            int slot = fields.get(name);
+            boxed = frame -> frame.globals[slot];
+        } else {
+            Environment.Variable variable = scope.lookupVariable(name);
+            boxed = frame -> variable.getValue();
+        }
+        if (typeOf(ast) == Environment.Type.INTEGER) {
+            return new IntNode(frame -> intValue(boxed.execute(frame)), boxed, true);
+        }
+        return boxed;
+    }
+
+    @Override
+    public Node visit(Ast.Expr.Function ast) {
+        Node[] arguments = new Node[ast.getArguments().size()];
+        for (int i = 0; i < arguments.length; i++) {
+            arguments[i] = visit(ast.getArguments().get(i));
+        }
+        String name = ast.getName();
+        if (ast.getReceiver().isPresent()) {
+            Node receiver = visit(ast.getReceiver().get());
+            return frame -> {
+                PlcObject[] values = new PlcObject[arguments.length + 1];
+                for (int i = 0; i < arguments.length; i++) {
+                    values[i + 1] = arguments[i].execute(frame);
+                }
+                return receiver.execute(frame).callMethod(name, values);
+            };
+        }
+        Method method = methods.get(name + "/" + arguments.length);
+        if (method != null) {
+            return frame -> {
+                PlcObject[] locals = new PlcObject[method.size];
+                for (int i = 0; i < arguments.length; i++) {
+                    locals[i] = arguments[i].execute(frame);
+                }
+                return method.invoke(frame.globals, locals);
+            };
+        }
+        Environment.Function function = scope.lookupFunction(name, arguments.length);
+        return frame -> function.invoke(Arrays.asList(evaluate(arguments, frame)));
+    }
+
+    /**
+     * Compiles statements in a new block, so their declarations are not
+     * visible after it.
+     */
+    private Node[] compileBlock(List<Ast.Stmt> statements) {
+        block = new Block(block);
+        try {
+            return compile(statements);
+        } finally {
+            block = block.parent;
+        }
+    }
+
+    private Node[] compile(List<Ast.Stmt> statements) {
+        Node[] nodes = new Node[statements.size()];
+        for (int i = 0; i < nodes.length; i++) {
+            nodes[i] = visit(statements.get(i));
+        }
+        return nodes;
+    }
+
+    /**
+     * Assigns a new slot in the current method's frame to a local variable.
+     * An {@code integer} local holds ints unboxed.
+     */
+    private Local declare(String name, boolean integer) {
+        if (block.locals.containsKey(name)) {
+            throw new RuntimeException("The variable " + name + " is already defined in this scope.");
+        }
+        Local local = new Local(slots++, integer);
+        block.locals.put(name, local);
+        return local;
+    }
+
+    /**
+     * Returns the local variable with the given name, or {@code null} if the
+     * name is not a local variable.
+     */
+    private Local lookup(String name) {
+        for (Block current = block; current != null; current = current.parent) {
+            Local local = current.locals.get(name);
+            if (local != null) {
+                return local;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Compiles storing a value in a local variable. An int value is stored in
+     * an integer local without boxing it.
+     */
+    private static Node assign(Local local, Node value) {
+        int slot = local.slot;
+        if (!local.integer) {
+            return frame -> {
+                frame.locals[slot] = value.execute(frame);
+                return null;
+            };
+        } else if (value instanceof IntNode && !((IntNode) value).leaf) {
+            IntNode integer = (IntNode) value;
+            return frame -> {
+                try {
+                    frame.ints[slot] = integer.operation.apply(frame);
+                    frame.locals[slot] = null;
+                } catch (ArithmeticException e) {
+                    frame.locals[slot] = integer.boxed.execute(frame);
+                }
+                return null;
+            };
+        }
+        return frame -> {
+            store(frame, slot, value.execute(frame));
+            return null;
+        };
+    }
+
+    /**
+     * Stores a value in an integer local. Values in int range are kept in
+     * {@link Frame#ints}; anything else is kept boxed in {@link Frame#locals},
+     * which is {@code null} while the slot holds an int.
+     */
+    private static void store(Frame frame, int slot, PlcObject value) {
+        if (value.getValue() instanceof BigInteger && ((BigInteger) value.getValue()).bitLength() < 32) {
+            frame.ints[slot] = ((BigInteger) value.getValue()).intValue();
+            frame.locals[slot] = null;
+        } else {
+            frame.locals[slot] = value;
+        }
+    }
+
+    private static int intValue(PlcObject value) {
+        if (value.getValue() instanceof BigInteger && ((BigInteger) value.getValue()).bitLength() < 32) {
+            return ((BigInteger) value.getValue()).intValue();
+        }
+        throw OVERFLOW;
+    }
+
+    private static int divide(int left, int right) {
+        if (right == 0) {
+            throw new RuntimeException("Division by zero.");
+        } else if (left == Integer.MIN_VALUE && right == -1) {
+            throw OVERFLOW;
+        }
+        return left / right;
+    }
+
+    /**
+     * Returns the type of an analyzed expression, or {@code null} for an
+     * expression which has not been analyzed. Those compile to nodes which
+     * check the operand types at runtime instead.
+     */
+    private static Environment.Type typeOf(Ast.Expr ast) {
+        try {
+            return ast.getType();
+        } catch (IllegalStateException e) {
+            return null;
+        }
+    }
+
+    private static boolean isComparable(Environment.Type type) {
+        return type == Environment.Type.INTEGER || type == Environment.Type.DECIMAL
+                || type == Environment.Type.CHARACTER || type == Environment.Type.STRING;
+    }
+
+    /**
+     * Executes statements in order, returning the value of a {@code RETURN}
+     * statement or {@code null} if the statements complete normally.
+     */
+    private static PlcObject execute(Node[] statements, Frame frame) {
+        for (Node statement : statements) {
+            PlcObject result = statement.execute(frame);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+
+    private static PlcObject[] evaluate(Node[] arguments, Frame frame) {
+        PlcObject[] values = new PlcObject[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            values[i] = arguments[i].execute(frame);
+        }
+        return values;
+    }
+
+    private static BigInteger integer(Node node, Frame frame) {
+        return (BigInteger) node.execute(frame).getValue();
+    }
+
+    private static BigDecimal decimal(Node node, Frame frame) {
+        return (BigDecimal) node.execute(frame).getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static int compareTo(PlcObject left, PlcObject right) {
+        return ((Comparable<Object>) left.getValue()).compareTo(right.getValue());
+    }
+
+    private static BigInteger divide(BigInteger left, BigInteger right) {
+        if (right.signum() == 0) {
+            throw new RuntimeException("Division by zero.");
+        }
+        return left.divide(right);
+    }
+
+    private static BigDecimal divide(BigDecimal left, BigDecimal right) {
+        if (right.signum() == 0) {
+            throw new RuntimeException("Division by zero.");
+        }
+        return left.divide(right, 1, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * Applies an arithmetic operator to operands of unknown type.
+     */
+    private static PlcObject arithmetic(String operator, Object left, Object right, BinaryOperator<BigInteger> integer, BinaryOperator<BigDecimal> decimal) {
+        if (left instanceof BigInteger && right instanceof BigInteger) {
+            return Environment.create(integer.apply((BigInteger) left, (BigInteger) right));
+        } else if (left instanceof BigDecimal && right instanceof BigDecimal) {
+            return Environment.create(decimal.apply((BigDecimal) left, (BigDecimal) right));
+        }
+        throw new RuntimeException("Invalid operands for " + operator + ": " + left.getClass().getName() + " and " + right.getClass().getName() + ".");
+    }
+
+    private static <T> T requireType(Class<T> type, PlcObject object) {
+        if (type.isInstance(object.getValue())) {
+            return type.cast(object.getValue());
+        } else {
+            throw new RuntimeException("Expected type " + type.getName() + ", received " + object.getValue().getClass().getName() + ".");
+        }
+    }
+
+    /**
+     * An executable node. Expressions return their value. Statements return
+     * {@code null} when they complete normally, or the returned value when
+     * they execute a {@code RETURN}.
+     */
+    @FunctionalInterface
+    public interface Node {
+
+        PlcObject execute(Frame frame);
+
+    }
+
+    /**
+     * The variables visible to an executing method: the program's fields and
+     * the method's own local slots, which begin with its parameters. Integer
+     * locals use the same slot in {@code ints}.
+     */
+    public static final class Frame {
+
+        private final PlcObject[] globals;
+        private final PlcObject[] locals;
+        private final int[] ints;
+
+        private Frame(PlcObject[] globals, PlcObject[] locals, int[] ints) {
+            this.globals = globals;
+            this.locals = locals;
+            this.ints = ints;
+        }
+
+    }
+
+    /**
+     * An Integer expression which can also be evaluated as an int. The
+     * operation throws an {@link ArithmeticException} if the value, or any
+     * operand, is not an int, and the boxed node is evaluated instead. Only
+     * expressions without side effects are compiled this way, so evaluating
+     * both is safe. A leaf is a literal or variable, which is cheaper to
+     * evaluate boxed.
+     */
+    private static final class IntNode implements Node {
+
+        private final IntOperation operation;
+        private final Node boxed;
+        private final boolean leaf;
+
+        private IntNode(IntOperation operation, Node boxed, boolean leaf) {
+            this.operation = operation;
+            this.boxed = boxed;
+            this.leaf = leaf;
+        }
+
+        @Override
+        public PlcObject execute(Frame frame) {
+            if (leaf) {
+                return boxed.execute(frame);
+            }
+            try {
+                return Environment.create(BigInteger.valueOf(operation.apply(frame)));
+            } catch (ArithmeticException e) {
+                return boxed.execute(frame);
+            }
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface IntOperation {
+
+        int apply(Frame frame);
+
+    }
+
+    /**
+     * A Boolean expression over {@link IntNode}s, which conditions evaluate
+     * without boxing, falling back to the boxed node in the same way.
+     */
+    private static final class BooleanNode implements Node {
+
+        private final BooleanOperation operation;
+        private final Node boxed;
+
+        private BooleanNode(BooleanOperation operation, Node boxed) {
+            this.operation = operation;
+            this.boxed = boxed;
+        }
+
+        private boolean test(Frame frame) {
+            try {
+                return operation.test(frame);
+            } catch (ArithmeticException e) {
+                return requireType(Boolean.class, boxed.execute(frame));
+            }
+        }
+
+        @Override
+        public PlcObject execute(Frame frame) {
+            return Environment.create(test(frame));
+        }
+
+    }
+
+    @FunctionalInterface
+    private interface BooleanOperation {
+
+        boolean test(Frame frame);
+
+    }
+
+    /**
+     * A compiled program, which may be run repeatedly.
+     */
+    public static final class Program {
+
+        private final Node[] fields;
+        private final Method main;
+
+        private Program(Node[] fields, Method main) {
+            this.fields = fields;
+            this.main = main;
+        }
+
+        /**
+         * Initializes the fields and returns the result of calling main.
+         */
+        public PlcObject run() {
+            Frame frame = new Frame(new PlcObject[fields.length], new PlcObject[0], new int[0]);
+            for (int i = 0; i < fields.length; i++) {
+                frame.globals[i] = fields[i].execute(frame);
+            }
+            return main.invoke(frame.globals, new PlcObject[main.size]);
+        }
+
+    }
+
+    /**
+     * A compiled method. It is created before any method bodies are compiled,
+     * so calls can be bound to it regardless of declaration order.
+     */
+    private static final class Method {
+
+        private Node[] statements;
+        private int size;
+        private int[] integers;
+
+        private PlcObject invoke(PlcObject[] globals, PlcObject[] locals) {
+            Frame frame = new Frame(globals, locals, new int[size]);
+            for (int slot : integers) {
+                store(frame, slot, locals[slot]);
+            }
+            PlcObject result = execute(statements, frame);
+            return result != null ? result : Environment.NIL;
+        }
+
+    }
+
+    /**
+     * The local variables declared in a block, used only while compiling.
+     */
+    private static final class Block {
+
+        private final Block parent;
+        private final Map<String, Local> locals = new HashMap<>();
+
+        private Block(Block parent) {
+            this.parent = parent;
+        }
+
+    }
+
+    private static final class Local {
+
+        private final int slot;
+        private final boolean integer;
+
+        private Local(int slot, boolean integer) {
+            this.slot = slot;
+            this.integer = integer;
+        }
+
+    }
+
+}
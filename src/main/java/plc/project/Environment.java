@@ -1,10 +1,14 @@
 package plc.project;
 
+import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 public final class Environment {
 
@@ -17,6 +21,31 @@ public final class Environment {
 
     });
 
+    /**
+     * The types of objects made by {@link #create(Object)}. They share the
+     * names of the analyzer's types, but not their scopes, whose methods are
+     * placeholders describing the generated Java. A method call on a created
+     * object therefore fails as undefined rather than returning nil.
+     */
+    private static final Type ANY = runtime(Type.ANY);
+    private static final Type INTEGER_ITERABLE = runtime(Type.INTEGER_ITERABLE);
+    private static final Type BOOLEAN = runtime(Type.BOOLEAN);
+    private static final Type INTEGER = runtime(Type.INTEGER);
+    private static final Type DECIMAL = runtime(Type.DECIMAL);
+    private static final Type CHARACTER = runtime(Type.CHARACTER);
+    private static final Type STRING = runtime(Type.STRING);
+
+    private static final PlcObject TRUE = new PlcObject(BOOLEAN, null, true);
+    private static final PlcObject FALSE = new PlcObject(BOOLEAN, null, false);
+
+    /**
+     * Shared objects for the integers most programs use, such as loop
+     * counters and small constants.
+     */
+    private static final int INTEGER_CACHE_LOW = -128;
+    private static final int INTEGER_CACHE_HIGH = 1024;
+    private static final PlcObject[] INTEGERS = new PlcObject[INTEGER_CACHE_HIGH - INTEGER_CACHE_LOW + 1];
+
     private static final Map<String, Type> TYPES = new HashMap<>();
 
     public static Type getType(String name) {
@@ -33,8 +62,75 @@ public final class Environment {
         TYPES.put(type.getName(), type);
     }
 
+    private static Type runtime(Type type) {
+        return new Type(type.getName(), type.getJvmName(), new Scope(null));
+    }
+
+    /**
+     * Creates an object for a runtime value. Objects created this way have no
+     * fields, so they share the runtime type for their value's class and have
+     * no scope; {@code nil}, booleans and small integers are cached.
+     */
     public static PlcObject create(Object value) {
-        return new PlcObject(new Scope(null), value);
+        if (value == null) {
+            return NIL;
+        } else if (value instanceof Boolean) {
+            return create((boolean) (Boolean) value);
+        } else if (value instanceof BigInteger) {
+            BigInteger integer = (BigInteger) value;
+            if (integer.bitLength() < 32) {
+                int index = integer.intValue() - INTEGER_CACHE_LOW;
+                if (index >= 0 && index < INTEGERS.length) {
+                    return INTEGERS[index];
+                }
+            }
+            return new PlcObject(INTEGER, null, value);
+        } else if (value instanceof BigDecimal) {
+            return new PlcObject(DECIMAL, null, value);
+        } else if (value instanceof String) {
+            return new PlcObject(STRING, null, value);
+        } else if (value instanceof Character) {
+            return new PlcObject(CHARACTER, null, value);
+        } else {
+            return new PlcObject(ANY, null, value);
+        }
+    }
+
+    public static PlcObject create(boolean value) {
+        return value ? TRUE : FALSE;
+    }
+
+    /**
+     * Returns the object for an element of an iterable, which may be a plain
+     * Java value such as an {@link Integer} rather than a {@link PlcObject}.
+     */
+    public static PlcObject element(Object value) {
+        if (value instanceof PlcObject) {
+            return (PlcObject) value;
+        } else if (value instanceof Integer || value instanceof Long) {
+            return create(BigInteger.valueOf(((Number) value).longValue()));
+        }
+        return create(value);
+    }
+
+    /**
+     * The JVM name of the built-in {@code range} function. Program names
+     * cannot contain {@code $}, so the generators can tell the built-in apart
+     * from a method of the program named {@code range}.
+     */
+    public static final String RANGE = "range$";
+
+    /**
+     * Creates the range of integers from start, inclusive, to end, exclusive,
+     * for the built-in {@code range(start, end)} function.
+     */
+    public static PlcObject range(List<PlcObject> arguments) {
+        BigInteger start = (BigInteger) arguments.get(0).getValue();
+        BigInteger end = (BigInteger) arguments.get(1).getValue();
+        if (start.bitLength() >= 32 || end.bitLength() >= 32) {
+            throw new RuntimeException("Expected range bounds within the int range, received " + start + " and " + end + ".");
+        }
+        return new PlcObject(INTEGER_ITERABLE, null, new Range(start.intValue(), end.intValue()));
     }
 
     public static final class Type {
@@ -111,11 +207,14 @@ public final class Environment {
         }
 
         public Variable getField(String name) {
+            if (scope == null) {
+                throw new RuntimeException("The variable " + name + " is not defined in this scope.");
+            }
             return scope.lookupVariable(name);
         }
 
         public void setField(String name, PlcObject value) {
-            scope.lookupVariable(name).setValue(value);
+            getField(name).setValue(value);
         }
 
         public PlcObject callMethod(String name, List<PlcObject> arguments) {
@@ -125,6 +224,17 @@ public final class Environment {
             return function.invoke(arguments);
         }
 
+        /**
+         * Calls a method with arguments starting at index 1. Index 0 is
+         * reserved for this object, the receiver, so the arguments are passed
+         * to the method without being copied.
+         */
+        public PlcObject callMethod(String name, PlcObject[] arguments) {
+            Function function = type.getMethod(name, arguments.length - 1);
+            arguments[0] = this;
+            return function.invoke(Arrays.asList(arguments));
+        }
+
         public Object getValue() {
             return value;
         }
@@ -133,19 +243,87 @@ public final class Environment {
         public String toString() {
             return "Object{" +
                     "type=" + type +
-                    ", value=" + value +
+                    ", value=" + getValue() +
                     ", scope=" + scope +
                     '}';
         }
 
     }
 
+    /**
+     * A range of integers, which is iterated as a primitive int counter
+     * instead of a sequence of objects where possible.
+     */
+    public static final class Range implements Iterable<PlcObject> {
+
+        private final int start;
+        private final int end;
+
+        public Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getStart() {
+            return start;
+        }
+
+        public int getEnd() {
+            return end;
+        }
+
+        @Override
+        public Iterator<PlcObject> iterator() {
+            return new Iterator<PlcObject>() {
+
+                private int next = start;
+
+                @Override
+                public boolean hasNext() {
+                    return next < end;
+                }
+
+                @Override
+                public PlcObject next() {
+                    if (next >= end) {
+                        throw new NoSuchElementException();
+                    }
+                    return create(BigInteger.valueOf(next++));
+                }
+
+            };
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Range &&
+                    start == ((Range) obj).start &&
+                    end == ((Range) obj).end;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * start + end;
+        }
+
+        @Override
+        public String toString() {
+            return "Range{" +
+                    "start=" + start +
+                    ", end=" + end +
+                    '}';
+        }
+
+    }
+
     public static final class Variable {
 
         private final String name;
         private final String jvmName;
         private final Type type;
         private PlcObject value;
+        private boolean counted = false;
+        private int counter;
 
         public Variable(String name, PlcObject value) {
             this(name, name, Type.ANY, value);
@@ -171,11 +349,25 @@ public final class Environment {
         }
 
         public PlcObject getValue() {
+            if (counted) {
+                value = create(BigInteger.valueOf(counter));
+                counted = false;
+            }
             return value;
         }
 
         public void setValue(PlcObject value) {
             this.value = value;
+            this.counted = false;
+        }
+
+        /**
+         * Sets the value to the integer {@code value}, such as the counter of
+         * a range loop, without creating its object unless it is read.
+         */
+        public void setValue(int value) {
+            this.counter = value;
+            this.counted = true;
         }
 
         @Override
@@ -192,7 +384,7 @@ public final class Environment {
                     "name='" + name + '\'' +
                     ", jvmName'" + jvmName + '\'' +
                     ", type=" + type +
-                    ", value=" + value +
+                    ", value=" + getValue() +
                     '}';
         }
 
@@ -265,6 +457,9 @@ public final class Environment {
     }
 
     static {
+        for (int i = 0; i < INTEGERS.length; i++) {
+            INTEGERS[i] = new PlcObject(INTEGER, null, BigInteger.valueOf(i + INTEGER_CACHE_LOW));
+        }
         registerType(Type.ANY);
         registerType(Type.NIL);
         registerType(Type.INTEGER_ITERABLE);
@@ -0,0 +1,640 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A flat, struct-of-arrays encoding of an {@link Ast.Source}, for programs
+ * too large to hold as one object per node. Each node is an index into
+ * parallel arrays of its {@link Kind}, a value and an extra {@code int} whose
+ * meaning depends on the kind, and the range of its children in a shared
+ * array of node indices. Names, operators, type names and literals are
+ * stored once in a constant pool.
+ *
+ * <table>
+ *     <tr><th>Kind</th><th>Value</th><th>Extra</th><th>Children</th></tr>
+ *     <tr><td>SOURCE</td><td></td><td>field count</td><td>fields, then methods</td></tr>
+ *     <tr><td>FIELD</td><td>name</td><td>type name</td><td>value, if any</td></tr>
+ *     <tr><td>METHOD</td><td>name</td><td>return type name, or -1</td><td>parameters, then statements</td></tr>
+ *     <tr><td>PARAMETER</td><td>name</td><td>type name</td><td></td></tr>
+ *     <tr><td>EXPRESSION</td><td></td><td></td><td>expression</td></tr>
+ *     <tr><td>DECLARATION</td><td>name</td><td>type name, or -1</td><td>value, if any</td></tr>
+ *     <tr><td>ASSIGNMENT</td><td></td><td></td><td>receiver, value</td></tr>
+ *     <tr><td>IF</td><td></td><td>then statement count</td><td>condition, then statements, else statements</td></tr>
+ *     <tr><td>FOR</td><td>name</td><td></td><td>value, statements</td></tr>
+ *     <tr><td>WHILE</td><td></td><td></td><td>condition, statements</td></tr>
+ *     <tr><td>RETURN</td><td></td><td></td><td>value</td></tr>
+ *     <tr><td>LITERAL</td><td>literal</td><td></td><td></td></tr>
+ *     <tr><td>GROUP</td><td></td><td></td><td>expression</td></tr>
+ *     <tr><td>BINARY</td><td>operator</td><td></td><td>left, right</td></tr>
+ *     <tr><td>ACCESS</td><td>name</td><td>1 with a receiver, else 0</td><td>receiver, if any</td></tr>
+ *     <tr><td>FUNCTION</td><td>name</td><td>1 with a receiver, else 0</td><td>receiver, if any, then arguments</td></tr>
+ * </table>
+ *
+ * The results of analysis (the type, variable or function of a node) are
+ * kept in a side array, so a program can be analyzed and generated one
+ * declaration at a time with {@link #analyze(Analyzer)} and
+ * {@link #generate(Generator)}. The analyzer and generator are
+ * {@link Ast} visitors, so these still decode each declaration into
+ * {@link Ast} objects, and the analyzer's scope keeps the variables and
+ * functions of all of them; memory used by either still grows with the
+ * program. Only reading nodes with the index-based getters, or traversing
+ * them with a {@link Cursor} and {@link Visitor}, creates no objects per
+ * node.
+ */
+public final class FlatAst {
+
+    public enum Kind {
+        SOURCE, FIELD, METHOD, PARAMETER, EXPRESSION, DECLARATION, ASSIGNMENT, IF, FOR, WHILE, RETURN,
+        LITERAL, GROUP, BINARY, ACCESS, FUNCTION
+    }
+
+    private static final Kind[] KINDS = Kind.values();
+
+    private byte[] kinds = new byte[64];
+    private int[] values = new int[64];
+    private int[] extras = new int[64];
+    private int[] starts = new int[64];
+    private int[] counts = new int[64];
+    private Object[] annotations = new Object[64];
+    private int size = 0;
+
+    private int[] children = new int[64];
+    private int childrenSize = 0;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+
+    private FlatAst() {}
+
+    /**
+     * Encodes a source, including the results of analysis if it has been
+     * analyzed. The root is the last node.
+     */
+    public static FlatAst of(Ast.Source ast) {
+        FlatAst flat = new FlatAst();
+        new Encoder(flat).visit(ast);
+        flat.trim();
+        return flat;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the index of the root {@code SOURCE} node.
+     */
+    public int getRoot() {
+        return size - 1;
+    }
+
+    public Kind getKind(int node) {
+        return KINDS[kinds[check(node)]];
+    }
+
+    /**
+     * Returns the name of a node with a name, or the operator of a
+     * {@code BINARY} node.
+     */
+    public String getName(int node) {
+        return (String) constants.get(values[check(node)]);
+    }
+
+    public Object getLiteral(int node) {
+        return constants.get(values[check(node)]);
+    }
+
+    /**
+     * Returns the type name of a {@code FIELD}, {@code PARAMETER} or
+     * {@code DECLARATION}, or the return type name of a {@code METHOD}, which
+     * may be {@code null}.
+     */
+    public String getTypeName(int node) {
+        int extra = extras[check(node)];
+        return extra < 0 ? null : (String) constants.get(extra);
+    }
+
+    public int getExtra(int node) {
+        return extras[check(node)];
+    }
+
+    public int getChildCount(int node) {
+        return counts[check(node)];
+    }
+
+    public int getChild(int node, int i) {
+        if (i < 0 || i >= counts[check(node)]) {
+            throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for " + counts[node] + " children.");
+        }
+        return children[starts[node] + i];
+    }
+
+    /**
+     * Returns the type, variable or function the analyzer gave a node, or
+     * {@code null} if it has not been analyzed.
+     */
+    public Object getAnnotation(int node) {
+        return annotations[check(node)];
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Decodes the whole source.
+     */
+    public Ast.Source toAst() {
+        return (Ast.Source) toAst(getRoot());
+    }
+
+    /**
+     * Decodes the subtree of a node, with the results of analysis.
+     */
+    public Ast toAst(int node) {
+        Ast ast = decode(node);
+        annotate(node, ast, false);
+        return ast;
+    }
+
+    /**
+     * Analyzes the source one declaration at a time and keeps the results in
+     * this encoding. Each field or method is still decoded into {@link Ast}
+     * objects to be visited, so this saves no memory over analyzing the
+     * decoded source beyond dropping each declaration once it is analyzed.
+     */
+    public void analyze(Analyzer analyzer) {
+        int root = getRoot();
+        for (int i = 0; i < counts[root]; i++) {
+            int node = getChild(root, i);
+            Ast ast = decode(node);
+            analyzer.visit(ast);
+            annotate(node, ast, true);
+        }
+        analyzer.checkSource();
+    }
+
+    /**
+     * Generates the analyzed source, decoding each field and method into
+     * {@link Ast} objects when the generator reaches it.
+     */
+    public void generate(Generator generator) {
+        int root = getRoot();
+        int fields = extras[root];
+        generator.visit(new Ast.Source(
+                new Declarations<>(root, 0, fields),
+                new Declarations<>(root, fields, counts[root] - fields)));
+    }
+
+    /**
+     * A read-only view of a range of the children of a node, decoding each
+     * child when it is accessed rather than holding them all.
+     */
+    final class Declarations<T extends Ast> extends Ast.ReadOnlyList<T> {
+
+        private final int node;
+        private final int offset;
+        private final int length;
+
+        private Declarations(int node, int offset, int length) {
+            this.node = node;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int i) {
+            if (i < 0 || i >= length) {
+                throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for " + length + " declarations.");
+            }
+            return (T) toAst(getChild(node, offset + i));
+        }
+
+        @Override
+        public int size() {
+            return length;
+        }
+
+    }
+
+    /**
+     * A position in the tree, which moves into a child with
+     * {@link #enter(int)} and back to its parent with {@link #exit()}.
+     * Traversing a tree with a cursor does not allocate.
+     */
+    public final class Cursor {
+
+        private int node = getRoot();
+        private int[] parents = new int[16];
+        private int depth = 0;
+
+        public FlatAst getAst() {
+            return FlatAst.this;
+        }
+
+        public int getNode() {
+            return node;
+        }
+
+        public Kind getKind() {
+            return FlatAst.this.getKind(node);
+        }
+
+        public String getName() {
+            return FlatAst.this.getName(node);
+        }
+
+        public Object getLiteral() {
+            return FlatAst.this.getLiteral(node);
+        }
+
+        public String getTypeName() {
+            return FlatAst.this.getTypeName(node);
+        }
+
+        public int getExtra() {
+            return FlatAst.this.getExtra(node);
+        }
+
+        public int getChildCount() {
+            return FlatAst.this.getChildCount(node);
+        }
+
+        public Object getAnnotation() {
+            return FlatAst.this.getAnnotation(node);
+        }
+
+        public void enter(int i) {
+            int child = getChild(node, i);
+            if (depth == parents.length) {
+                parents = Arrays.copyOf(parents, depth * 2);
+            }
+            parents[depth++] = node;
+            node = child;
+        }
+
+        public void exit() {
+            if (depth == 0) {
+                throw new IllegalStateException("The cursor is at the root.");
+            }
+            node = parents[--depth];
+        }
+
+        /**
+         * Visits the child at {@code i} and returns to this node.
+         */
+        public <T> T visit(Visitor<T> visitor, int i) {
+            enter(i);
+            try {
+                return visitor.visit(this);
+            } finally {
+                exit();
+            }
+        }
+
+    }
+
+    /**
+     * A visitor over the nodes of a flat tree, which is given a cursor at the
+     * node to visit and dispatches on {@link Cursor#getKind()}.
+     */
+    @FunctionalInterface
+    public interface Visitor<T> {
+
+        T visit(Cursor cursor);
+
+    }
+
+    private int node(Kind kind, int value, int extra, int[] nodeChildren, int childCount) {
+        if (size == kinds.length) {
+            int capacity = size * 2;
+            kinds = Arrays.copyOf(kinds, capacity);
+            values = Arrays.copyOf(values, capacity);
+            extras = Arrays.copyOf(extras, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            annotations = Arrays.copyOf(annotations, capacity);
+        }
+        if (childrenSize + childCount > children.length) {
+            children = Arrays.copyOf(children, Math.max(children.length * 2, childrenSize + childCount));
+        }
+        System.arraycopy(nodeChildren, 0, children, childrenSize, childCount);
+        kinds[size] = (byte) kind.ordinal();
+        values[size] = value;
+        extras[size] = extra;
+        starts[size] = childrenSize;
+        counts[size] = childCount;
+        childrenSize += childCount;
+        return size++;
+    }
+
+    private int constant(Object value) {
+        if (value == null) {
+            return -1;
+        }
+        Integer index = constantIndices.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndices.put(value, index);
+        }
+        return index;
+    }
+
+    private void trim() {
+        kinds = Arrays.copyOf(kinds, size);
+        values = Arrays.copyOf(values, size);
+        extras = Arrays.copyOf(extras, size);
+        starts = Arrays.copyOf(starts, size);
+        counts = Arrays.copyOf(counts, size);
+        annotations = Arrays.copyOf(annotations, size);
+        children = Arrays.copyOf(children, childrenSize);
+    }
+
+    private int check(int node) {
+        if (node < 0 || node >= size) {
+            throw new IndexOutOfBoundsException("Index " + node + " is out of bounds for " + size + " nodes.");
+        }
+        return node;
+    }
+
+    private Ast.Expr expr(int node) {
+        return (Ast.Expr) decode(node);
+    }
+
+    private Optional<Ast.Expr> optional(int node, int i) {
+        return i < counts[node] ? Optional.of(expr(getChild(node, i))) : Optional.empty();
+    }
+
+    private <T extends Ast> List<T> decode(int node, int from, int to) {
+        List<T> list = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            @SuppressWarnings("unchecked")
+            T child = (T) decode(getChild(node, i));
+            list.add(child);
+        }
+        return list;
+    }
+
+    private Ast decode(int node) {
+        int count = counts[check(node)];
+        switch (getKind(node)) {
+            case SOURCE:
+                return new Ast.Source(decode(node, 0, extras[node]), decode(node, extras[node], count));
+            case FIELD:
+                return new Ast.Field(getName(node), getTypeName(node), optional(node, 0));
+            case METHOD: {
+                List<String> parameters = new ArrayList<>();
+                List<String> parameterTypeNames = new ArrayList<>();
+                int i = 0;
+                for (; i < count && getKind(getChild(node, i)) == Kind.PARAMETER; i++) {
+                    parameters.add(getName(getChild(node, i)));
+                    parameterTypeNames.add(getTypeName(getChild(node, i)));
+                }
+                return new Ast.Method(getName(node), parameters, parameterTypeNames,
+                        Optional.ofNullable(getTypeName(node)), decode(node, i, count));
+            }
+            case EXPRESSION:
+                return new Ast.Stmt.Expression(expr(getChild(node, 0)));
+            case DECLARATION:
+                return new Ast.Stmt.Declaration(getName(node), Optional.ofNullable(getTypeName(node)), optional(node, 0));
+            case ASSIGNMENT:
+                return new Ast.Stmt.Assignment(expr(getChild(node, 0)), expr(getChild(node, 1)));
+            case IF:
+                return new Ast.Stmt.If(expr(getChild(node, 0)), decode(node, 1, 1 + extras[node]), decode(node, 1 + extras[node], count));
+            case FOR:
+                return new Ast.Stmt.For(getName(node), expr(getChild(node, 0)), decode(node, 1, count));
+            case WHILE:
+                return new Ast.Stmt.While(expr(getChild(node, 0)), decode(node, 1, count));
+            case RETURN:
+                return new Ast.Stmt.Return(expr(getChild(node, 0)));
+            case LITERAL:
+                return new Ast.Expr.Literal(values[node] < 0 ? null : constants.get(values[node]));
+            case GROUP:
+                return new Ast.Expr.Group(expr(getChild(node, 0)));
+            case BINARY:
+                return new Ast.Expr.Binary(getName(node), expr(getChild(node, 0)), expr(getChild(node, 1)));
+            case ACCESS:
+                return new Ast.Expr.Access(optional(node, 0), getName(node));
+            case FUNCTION: {
+                int receiver = extras[node];
+                return new Ast.Expr.Function(receiver == 1 ? optional(node, 0) : Optional.empty(), getName(node), decode(node, receiver, count));
+            }
+            default:
+                throw new AssertionError("Unexpected node kind " + getKind(node) + ".");
+        }
+    }
+
+    /**
+     * Copies the results of analysis between a node and the {@link Ast} it was
+     * decoded to, into the encoding if {@code store} is true and otherwise
+     * onto the {@link Ast}. The trees must have the same shape.
+     */
+    private void annotate(int node, Ast ast, boolean store) {
+        if (store) {
+            annotations[node] = Ast.annotationOf(ast);
+        } else if (annotations[node] != null) {
+            Ast.setAnnotation(ast, annotations[node]);
+        }
+        int count = counts[node];
+        switch (getKind(node)) {
+            case SOURCE: {
+                Ast.Source source = (Ast.Source) ast;
+                int fields = extras[node];
+                for (int i = 0; i < count; i++) {
+                    annotate(getChild(node, i), i < fields ? source.getFields().get(i) : source.getMethods().get(i - fields), store);
+                }
+                break;
+            }
+            case FIELD:
+                annotateAll(node, 0, ((Ast.Field) ast).getValue().map(Arrays::<Ast>asList).orElse(Arrays.asList()), store);
+                break;
+            case METHOD: {
+                List<Ast.Stmt> statements = ((Ast.Method) ast).getStatements();
+                annotateAll(node, count - statements.size(), statements, store);
+                break;
+            }
+            case EXPRESSION:
+                annotate(getChild(node, 0), ((Ast.Stmt.Expression) ast).getExpression(), store);
+                break;
+            case DECLARATION:
+                annotateAll(node, 0, ((Ast.Stmt.Declaration) ast).getValue().map(Arrays::<Ast>asList).orElse(Arrays.asList()), store);
+                break;
+            case ASSIGNMENT:
+                annotate(getChild(node, 0), ((Ast.Stmt.Assignment) ast).getReceiver(), store);
+                annotate(getChild(node, 1), ((Ast.Stmt.Assignment) ast).getValue(), store);
+                break;
+            case IF: {
+                Ast.Stmt.If branch = (Ast.Stmt.If) ast;
+                annotate(getChild(node, 0), branch.getCondition(), store);
+                annotateAll(node, 1, branch.getThenStatements(), store);
+                annotateAll(node, 1 + extras[node], branch.getElseStatements(), store);
+                break;
+            }
+            case FOR:
+                annotate(getChild(node, 0), ((Ast.Stmt.For) ast).getValue(), store);
+                annotateAll(node, 1, ((Ast.Stmt.For) ast).getStatements(), store);
+                break;
+            case WHILE:
+                annotate(getChild(node, 0), ((Ast.Stmt.While) ast).getCondition(), store);
+                annotateAll(node, 1, ((Ast.Stmt.While) ast).getStatements(), store);
+                break;
+            case RETURN:
+                annotate(getChild(node, 0), ((Ast.Stmt.Return) ast).getValue(), store);
+                break;
+            case GROUP:
+                annotate(getChild(node, 0), ((Ast.Expr.Group) ast).getExpression(), store);
+                break;
+            case BINARY:
+                annotate(getChild(node, 0), ((Ast.Expr.Binary) ast).getLeft(), store);
+                annotate(getChild(node, 1), ((Ast.Expr.Binary) ast).getRight(), store);
+                break;
+            case ACCESS:
+                annotateAll(node, 0, ((Ast.Expr.Access) ast).getReceiver().map(Arrays::<Ast>asList).orElse(Arrays.asList()), store);
+                break;
+            case FUNCTION: {
+                Ast.Expr.Function function = (Ast.Expr.Function) ast;
+                if (function.getReceiver().isPresent()) {
+                    annotate(getChild(node, 0), function.getReceiver().get(), store);
+                }
+                annotateAll(node, extras[node], function.getArguments(), store);
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private void annotateAll(int node, int offset, List<? extends Ast> asts, boolean store) {
+        for (int i = 0; i < asts.size(); i++) {
+            annotate(getChild(node, offset + i), asts.get(i), store);
+        }
+    }
+
+    /**
+     * Encodes an {@link Ast} bottom-up, so the children of each node are
+     * encoded before it. Returns the index of the encoded node.
+     */
+    private static final class Encoder implements Ast.Visitor<Integer> {
+
+        private final FlatAst flat;
+
+        private Encoder(FlatAst flat) {
+            this.flat = flat;
+        }
+
+        private int node(Ast ast, Kind kind, int value, int extra, List<? extends Ast> nodes) {
+            int[] indices = new int[nodes.size()];
+            for (int i = 0; i < indices.length; i++) {
+                indices[i] = visit(nodes.get(i));
+            }
+            int node = flat.node(kind, value, extra, indices, indices.length);
+            flat.annotations[node] = Ast.annotationOf(ast);
+            return node;
+        }
+
+        private static List<Ast> list(Optional<? extends Ast> first, List<? extends Ast> rest) {
+            List<Ast> list = new ArrayList<>(rest.size() + 1);
+            first.ifPresent(list::add);
+            list.addAll(rest);
+            return list;
+        }
+
+        @Override
+        public Integer visit(Ast.Source ast) {
+            List<Ast> declarations = new ArrayList<>(ast.getFields());
+            declarations.addAll(ast.getMethods());
+            return node(ast, Kind.SOURCE, -1, ast.getFields().size(), declarations);
+        }
+
+        @Override
+        public Integer visit(Ast.Field ast) {
+            return node(ast, Kind.FIELD, flat.constant(ast.getName()), flat.constant(ast.getTypeName()), list(ast.getValue(), Arrays.asList()));
+        }
+
+        @Override
+        public Integer visit(Ast.Method ast) {
+            int[] indices = new int[ast.getParameters().size() + ast.getStatements().size()];
+            for (int i = 0; i < ast.getParameters().size(); i++) {
+                indices[i] = flat.node(Kind.PARAMETER, flat.constant(ast.getParameters().get(i)),
+                        flat.constant(ast.getParameterTypeNames().get(i)), indices, 0);
+            }
+            for (int i = 0; i < ast.getStatements().size(); i++) {
+                indices[ast.getParameters().size() + i] = visit(ast.getStatements().get(i));
+            }
+            int node = flat.node(Kind.METHOD, flat.constant(ast.getName()), flat.constant(ast.getReturnTypeName().orElse(null)), indices, indices.length);
+            flat.annotations[node] = Ast.annotationOf(ast);
+            return node;
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Expression ast) {
+            return node(ast, Kind.EXPRESSION, -1, 0, Arrays.asList(ast.getExpression()));
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Declaration ast) {
+            return node(ast, Kind.DECLARATION, flat.constant(ast.getName()), flat.constant(ast.getTypeName().orElse(null)), list(ast.getValue(), Arrays.asList()));
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Assignment ast) {
+            return node(ast, Kind.ASSIGNMENT, -1, 0, Arrays.asList(ast.getReceiver(), ast.getValue()));
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.If ast) {
+            List<Ast> nodes = list(Optional.of(ast.getCondition()), ast.getThenStatements());
+            nodes.addAll(ast.getElseStatements());
+            return node(ast, Kind.IF, -1, ast.getThenStatements().size(), nodes);
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.For ast) {
+            return node(ast, Kind.FOR, flat.constant(ast.getName()), 0, list(Optional.of(ast.getValue()), ast.getStatements()));
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.While ast) {
+            return node(ast, Kind.WHILE, -1, 0, list(Optional.of(ast.getCondition()), ast.getStatements()));
+        }
+
+        @Override
+        public Integer visit(Ast.Stmt.Return ast) {
+            return node(ast, Kind.RETURN, -1, 0, Arrays.asList(ast.getValue()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Literal ast) {
+            return node(ast, Kind.LITERAL, flat.constant(ast.getLiteral()), 0, Arrays.asList());
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Group ast) {
+            return node(ast, Kind.GROUP, -1, 0, Arrays.asList(ast.getExpression()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Binary ast) {
+            return node(ast, Kind.BINARY, flat.constant(ast.getOperator()), 0, Arrays.asList(ast.getLeft(), ast.getRight()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Access ast) {
+            return node(ast, Kind.ACCESS, flat.constant(ast.getName()), ast.getReceiver().isPresent() ? 1 : 0, list(ast.getReceiver(), Arrays.asList()));
+        }
+
+        @Override
+        public Integer visit(Ast.Expr.Function ast) {
+            return node(ast, Kind.FUNCTION, flat.constant(ast.getName()), ast.getReceiver().isPresent() ? 1 : 0, list(ast.getReceiver(), ast.getArguments()));
+        }
+
+    }
+
+}
@@ -7,6 +7,12 @@ public final class Generator implements Ast.Visitor<Void> {
     private final PrintWriter writer;
     private int indent = 0;
 
+    /**
+     * Whether the built-in {@code range} is used other than as the value of a
+     * FOR loop, which needs a helper method in the generated class.
+     */
+    private boolean range = false;
+
     public Generator(PrintWriter writer) {
         this.writer = writer;
     }
@@ -54,6 +60,15 @@ public final class Generator implements Ast.Visitor<Void> {
             print(ast.getMethods().get(i));
             newline(0);
         }
+        if (range) {
+            newline(indent);
+            print("static Iterable<Integer> ", Environment.RANGE, "(int start, int end) {");
+            newline(++indent);
+            print("return () -> java.util.stream.IntStream.range(start, end).iterator();");
+            newline(--indent);
+            print("}");
+            newline(0);
+        }
         newline(--indent);
         print("}");
         return null;
@@ -159,11 +174,27 @@ public final class Generator implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Stmt.For ast) {
         //throw new UnsupportedOperationException(); //TODO
-        print("for (int ", ast.getName(), " : ", ast.getValue(), ") {");
-        if (!ast.getStatements().isEmpty()) {
+        boolean counted = isRange(ast.getValue());
+        if (counted) {
+            // The range is counted in hidden locals, so the end is evaluated
+            // once and assigning to the loop variable does not change the
+            // number of iterations. Program names cannot contain $.
+            Ast.Expr.Function range = (Ast.Expr.Function) ast.getValue();
+            String counter = ast.getName() + "$";
+            String limit = ast.getName() + "$end";
+            print("for (int ", counter, " = ", range.getArguments().get(0), ", ", limit, " = ", range.getArguments().get(1), "; ",
+                    counter, " < ", limit, "; ", counter, "++) {");
+        }
+        else {
+            print("for (int ", ast.getName(), " : ", ast.getValue(), ") {");
+        }
+        if (counted || !ast.getStatements().isEmpty()) {
             newline(++indent);
+            if (counted) {
+                print("int ", ast.getName(), " = ", ast.getName(), "$;");
+            }
             for (int i = 0; i < ast.getStatements().size(); i++) {
-                if (i != 0) {
+                if (counted || i != 0) {
                     newline(indent);
                 }
                 print(ast.getStatements().get(i));
@@ -249,13 +280,41 @@ public final class Generator implements Ast.Visitor<Void> {
     @Override
     public Void visit(Ast.Expr.Access ast) {
         //throw new UnsupportedOperationException(); //TODO
+        if (ast.getReceiver().isPresent()) {
+            print(ast.getReceiver().get(), ".");
+        }
+        print(ast.getVariable().getJvmName());
         return null;
     }
 
     @Override
     public Void visit(Ast.Expr.Function ast) {
         //throw new UnsupportedOperationException(); //TODO
+        range |= isRange(ast);
+        if (ast.getReceiver().isPresent()) {
+            print(ast.getReceiver().get(), ".");
+        }
+        print(ast.getFunction().getJvmName(), "(");
+        for (int i = 0; i < ast.getArguments().size(); i++) {
+            if (i != 0) {
+                print(", ");
+            }
+            print(ast.getArguments().get(i));
+        }
+        print(")");
         return null;
     }
 
+    /**
+     * Returns whether an expression is a call to the built-in
+     * {@code range(start, end)} function, rather than a method of the program
+     * named {@code range}. As the value of a FOR loop it is generated as a
+     * counting loop instead of an iterable.
+     */
+    private static boolean isRange(Ast.Expr ast) {
+        return ast instanceof Ast.Expr.Function
+                && !((Ast.Expr.Function) ast).getReceiver().isPresent()
+                && ((Ast.Expr.Function) ast).getFunction().getJvmName().equals(Environment.RANGE);
+    }
+
 }
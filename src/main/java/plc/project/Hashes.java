@@ -0,0 +1,31 @@
+package plc.project;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Content hashes used to name cached compilations of a source, by both the
+ * {@link SourceCompiler} class cache and the {@link AstCache} files.
+ */
+final class Hashes {
+
+    private Hashes() {}
+
+    /**
+     * Returns the hexadecimal SHA-256 hash of the UTF-8 bytes of a text.
+     */
+    static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder builder = new StringBuilder();
+            for (byte b : digest) {
+                builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return builder.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,319 @@
+package plc.project;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import plc.project.Token.Symbol;
+
+/**
+ * Updates the tokens and {@link Ast.Source} of a program after an edit to its
+ * text, such as in an editor, without lexing and parsing the whole program.
+ *
+ * The tokens of a program are split into its top-level declarations, each
+ * starting with a {@code LET} or {@code DEF} outside of any {@code DO} block.
+ * Each declaration keeps its tokens with indices relative to its start, so
+ * an edit only moves the starts of the declarations after it, and their
+ * tokens are neither walked nor copied. Only the declarations containing or
+ * touching the edit are lexed and parsed again, from text rebuilt from their
+ * tokens; every other {@link Ast.Field} and {@link Ast.Method} is reused as
+ * is. If the edited declarations no longer parse on their own, the whole
+ * program is lexed and parsed again, so errors are the same as for a full
+ * parse.
+ */
+public final class IncrementalParser {
+
+    private IncrementalParser() {}
+
+    public static final class Result {
+
+        private final int[] starts;
+        private final List<List<Token>> declarations;
+        private final Ast.Source source;
+        private final boolean split;
+        private List<Token> tokens = null;
+
+        private Result(int[] starts, List<List<Token>> declarations, Ast.Source source, boolean split) {
+            this.starts = starts;
+            this.declarations = declarations;
+            this.source = source;
+            this.split = split;
+        }
+
+        /**
+         * Splits the tokens of a program, which {@code source} was parsed
+         * from, into its declarations. The parser accepts keywords as names,
+         * so if the tokens do not split into the declarations of the source,
+         * they are kept whole and every edit parses the whole program.
+         */
+        public static Result of(Ast.Source source, List<Token> tokens) {
+            int[] starts = IncrementalParser.declarations(tokens);
+            if (starts.length != source.getFields().size() + source.getMethods().size()
+                    || starts.length > 0 && starts[0] != 0) {
+                return new Result(new int[] {0}, Collections.singletonList(Collections.unmodifiableList(tokens)), source, false);
+            }
+            List<List<Token>> declarations = new ArrayList<>(starts.length);
+            for (int i = 0; i < starts.length; i++) {
+                int to = i + 1 < starts.length ? starts[i + 1] : tokens.size();
+                int start = tokens.get(starts[i]).getIndex();
+                List<Token> declaration = new ArrayList<>(to - starts[i]);
+                for (int j = starts[i]; j < to; j++) {
+                    declaration.add(tokens.get(j).shift(-start));
+                }
+                declarations.add(Collections.unmodifiableList(declaration));
+                starts[i] = start;
+            }
+            return new Result(starts, declarations, source, true);
+        }
+
+        /**
+         * Returns the tokens of the program. These are created, by moving the
+         * tokens of each declaration to its start, the first time this is
+         * called.
+         */
+        public List<Token> getTokens() {
+            if (tokens == null) {
+                List<Token> tokens = new ArrayList<>();
+                for (int i = 0; i < starts.length; i++) {
+                    for (Token token : declarations.get(i)) {
+                        tokens.add(token.shift(starts[i]));
+                    }
+                }
+                this.tokens = Collections.unmodifiableList(tokens);
+            }
+            return tokens;
+        }
+
+        /**
+         * Returns the tokens of the given declaration, with indices relative
+         * to its start.
+         */
+        public List<Token> getTokens(int declaration) {
+            return declarations.get(declaration);
+        }
+
+        /**
+         * Returns the index of the first character of the given declaration.
+         */
+        public int getStart(int declaration) {
+            return starts[declaration];
+        }
+
+        public Ast.Source getSource() {
+            return source;
+        }
+
+    }
+
+    /**
+     * Returns the tokens and source of a program after replacing
+     * {@code removed} characters at {@code offset} with {@code inserted},
+     * where {@code ast} was parsed from {@code tokens} before the edit. This
+     * splits all of the tokens first; editors should keep the result and
+     * reparse it on the next edit instead.
+     */
+    public static Result reparse(Ast.Source ast, List<Token> tokens, int offset, int removed, String inserted) throws ParseException {
+        return reparse(Result.of(ast, tokens), offset, removed, inserted);
+    }
+
+    /**
+     * Returns the tokens and source of a program after replacing
+     * {@code removed} characters at {@code offset} with {@code inserted}.
+     */
+    public static Result reparse(Result result, int offset, int removed, String inserted) throws ParseException {
+        int[] starts = result.starts;
+        List<List<Token>> declarations = result.declarations;
+        int count = starts.length;
+        if (count == 0 || !result.split) {
+            return parse(result, offset, removed, inserted);
+        }
+        int end = offset + removed;
+        // The damaged tokens are [first, last), which are those overlapping
+        // or touching the edit, since text inserted next to a token may join
+        // it. A token is found by its declaration and its position in it.
+        int first = Math.max(declaration(starts, offset), 0);
+        int firstToken = search(declarations.get(first), offset - starts[first], true);
+        if (firstToken == declarations.get(first).size()) {
+            first++;
+            firstToken = 0;
+        }
+        int last = Math.max(declaration(starts, end), 0);
+        int lastToken = search(declarations.get(last), end - starts[last], false);
+        if (lastToken == declarations.get(last).size()) {
+            last++;
+            lastToken = 0;
+        }
+        boolean damaged = last > first || last == first && lastToken > firstToken;
+        // An edit between tokens is parsed with the declaration after it.
+        int from = first;
+        int to = damaged ? (lastToken > 0 ? last : last - 1) + 1 : Math.min(from + 1, count);
+
+        int start = from < count ? Math.min(offset, starts[from]) : offset;
+        int stop = to > from ? Math.max(end, end(result, to - 1)) : end;
+        StringBuilder text = text(result, from, to, start, stop);
+        text.replace(offset - start, end - start, inserted);
+
+        Ast.Source parsed;
+        List<Token> region;
+        try {
+            region = new Lexer(text.toString()).lex();
+            // The edited declarations must start with one, or an edit such
+            // as joining text to a LET has made them part of the one before.
+            Symbol symbol = region.isEmpty() ? null : region.get(0).getSymbol();
+            if (symbol != Symbol.LET && symbol != Symbol.DEF && !region.isEmpty()) {
+                return parse(result, offset, removed, inserted);
+            }
+            parsed = new Parser(region).parseSource();
+        } catch (ParseException e) {
+            // An error at the end of the edited declarations may not be one
+            // if they are followed by others, so the full parse reports it.
+            return parse(result, offset, removed, inserted);
+        }
+
+        Ast.Source ast = result.source;
+        int fields = ast.getFields().size();
+        List<Ast.Field> prefixFields = ast.getFields().subList(0, Math.min(from, fields));
+        List<Ast.Method> prefixMethods = ast.getMethods().subList(0, Math.max(0, from - fields));
+        List<Ast.Field> suffixFields = ast.getFields().subList(Math.min(to, fields), fields);
+        List<Ast.Method> suffixMethods = ast.getMethods().subList(Math.max(0, to - fields), ast.getMethods().size());
+        // Fields must come before methods, which the parser only checks
+        // within the edited declarations.
+        if (!prefixMethods.isEmpty() && !parsed.getFields().isEmpty() || !suffixFields.isEmpty() && !parsed.getMethods().isEmpty()) {
+            return parse(result, offset, removed, inserted);
+        }
+
+        List<Ast.Field> newFields = new ArrayList<>(prefixFields.size() + parsed.getFields().size() + suffixFields.size());
+        newFields.addAll(prefixFields);
+        newFields.addAll(parsed.getFields());
+        newFields.addAll(suffixFields);
+        List<Ast.Method> newMethods = new ArrayList<>(prefixMethods.size() + parsed.getMethods().size() + suffixMethods.size());
+        newMethods.addAll(prefixMethods);
+        newMethods.addAll(parsed.getMethods());
+        newMethods.addAll(suffixMethods);
+
+        // The edited declarations are split out of the lexed region, and the
+        // declarations after them are only moved by the change in length.
+        Result split = Result.of(parsed, region);
+        if (!split.split) {
+            return parse(result, offset, removed, inserted);
+        }
+        int delta = inserted.length() - removed;
+        int size = from + split.starts.length + count - to;
+        int[] newStarts = new int[size];
+        List<List<Token>> newDeclarations = new ArrayList<>(size);
+        newDeclarations.addAll(declarations.subList(0, from));
+        newDeclarations.addAll(split.declarations);
+        newDeclarations.addAll(declarations.subList(to, count));
+        System.arraycopy(starts, 0, newStarts, 0, from);
+        for (int i = 0; i < split.starts.length; i++) {
+            newStarts[from + i] = start + split.starts[i];
+        }
+        for (int i = to; i < count; i++) {
+            newStarts[i - to + from + split.starts.length] = starts[i] + delta;
+        }
+        return new Result(newStarts, newDeclarations, new Ast.Source(newFields, newMethods), true);
+    }
+
+    /**
+     * Lexes and parses the whole program after the edit.
+     */
+    private static Result parse(Result result, int offset, int removed, String inserted) {
+        int count = result.starts.length;
+        int stop = count == 0 ? 0 : end(result, count - 1);
+        StringBuilder text = text(result, 0, count, 0, Math.max(stop, offset + removed));
+        text.replace(offset, offset + removed, inserted);
+        List<Token> tokens = new Lexer(text.toString()).lex();
+        return Result.of(new Parser(tokens).parseSource(), tokens);
+    }
+
+    /**
+     * Returns the index of the first token which ends at or after
+     * {@code offset} if {@code ends}, or otherwise which starts after
+     * {@code offset}, by binary search since tokens are in order.
+     */
+    private static int search(List<Token> tokens, int offset, boolean ends) {
+        int low = 0;
+        int high = tokens.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            Token token = tokens.get(middle);
+            if (ends ? token.getIndex() + token.getLength() < offset : token.getIndex() <= offset) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Returns the index of the first token of each top-level declaration.
+     * Each {@code DO} opens a block which is closed by an {@code END}, so
+     * {@code LET} is only a field outside of any block. The token after a
+     * {@code LET}, {@code DEF} or {@code .} is a name, which the parser
+     * accepts even if it is a keyword.
+     */
+    private static int[] declarations(List<Token> tokens) {
+        int[] declarations = new int[16];
+        int count = 0;
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); i++) {
+            Symbol symbol = tokens.get(i).getSymbol();
+            if (i > 0 && (tokens.get(i - 1).getSymbol() == Symbol.LET || tokens.get(i - 1).getSymbol() == Symbol.DEF || tokens.get(i - 1).getSymbol() == Symbol.PERIOD)) {
+                continue;
+            }
+            if (depth == 0 && (symbol == Symbol.LET || symbol == Symbol.DEF)) {
+                if (count == declarations.length) {
+                    declarations = Arrays.copyOf(declarations, count * 2);
+                }
+                declarations[count++] = i;
+            } else if (symbol == Symbol.DO) {
+                depth++;
+            } else if (symbol == Symbol.END) {
+                depth--;
+            }
+        }
+        return Arrays.copyOf(declarations, count);
+    }
+
+    /**
+     * Returns the last declaration starting at or before {@code offset}, or
+     * {@code -1} if there is none.
+     */
+    private static int declaration(int[] starts, int offset) {
+        int i = Arrays.binarySearch(starts, offset);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /**
+     * Returns the index after the last character of the given declaration.
+     */
+    private static int end(Result result, int declaration) {
+        List<Token> tokens = result.declarations.get(declaration);
+        Token token = tokens.get(tokens.size() - 1);
+        return result.starts[declaration] + token.getIndex() + token.getLength();
+    }
+
+    /**
+     * Rebuilds the text of {@code [start, stop)} from the tokens of the
+     * declarations in {@code [from, to)}, with spaces between them. The lexer
+     * only skips whitespace between tokens, so this lexes to the same tokens.
+     */
+    private static StringBuilder text(Result result, int from, int to, int start, int stop) {
+        StringBuilder text = new StringBuilder(stop - start);
+        for (int i = from; i < to; i++) {
+            int offset = result.starts[i] - start;
+            for (Token token : result.declarations.get(i)) {
+                while (text.length() < token.getIndex() + offset) {
+                    text.append(' ');
+                }
+                text.append(token.getLiteral());
+            }
+        }
+        while (text.length() < stop - start) {
+            text.append(' ');
+        }
+        return text;
+    }
+
+}
@@ -3,7 +3,6 @@ package plc.project;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 import java.math.RoundingMode;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -13,12 +12,44 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
     private Scope scope = new Scope(null);
 
+    /**
+     * The frames of variables resolved by the {@link Resolver}: the fields of
+     * the source being run, and the locals of the method being executed. Code
+     * in a resolved method does not create scopes for its blocks.
+     */
+    private Environment.PlcObject[] fields = null;
+    private Environment.PlcObject[] locals = null;
+
+    /**
+     * The int values of range loop variables in {@link #locals}, whose
+     * objects are only created if they are read, which is marked by a
+     * {@code null} local. Created by the first range loop of a call.
+     */
+    private int[] counters = null;
+
+    /**
+     * The value of the {@code RETURN} statement being completed, or
+     * {@code null}. Statements stop executing once it is set, and the
+     * enclosing method call returns and clears it.
+     */
+    private Environment.PlcObject returned = null;
+
+    /**
+     * The number of method calls being executed, so a {@code RETURN} outside
+     * of any method is an error instead of stopping later statements.
+     */
+    private int calls = 0;
+
     public Interpreter(Scope parent) {
-        scope = new Scope(parent);
-        scope.defineFunction("print", 1, args -> {
+        // Built-in functions are defined in a parent scope, so the program
+        // may define methods with the same names.
+        Scope builtins = new Scope(parent);
+        builtins.defineFunction("print", 1, args -> {
             System.out.println(args.get(0).getValue());
             return Environment.NIL;
         });
+        builtins.defineFunction("range", 2, Environment::range);
+        scope = new Scope(builtins);
     }
 
     public Scope getScope() {
@@ -30,6 +61,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
 
         //throw new UnsupportedOperationException(); //TODO
         {
+            this.fields = new Environment.PlcObject[ast.getFields().size()];
             for (Ast.Field fields : ast.getFields())
             {
                 visit(fields);
@@ -47,7 +79,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Field ast) {
         //throw new UnsupportedOperationException(); //TODO
-        if (ast.getValue().isPresent()) {
+        if (ast.getSlot() >= 0) {
+            fields[ast.getSlot()] = ast.getValue().isPresent() ? visit(ast.getValue().get()) : Environment.NIL;
+        }
+        else if (ast.getValue().isPresent()) {
             scope.defineVariable(ast.getName(), visit(ast.getValue().get()));
         }
         else {
@@ -60,23 +95,40 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Method ast) {
         //throw new UnsupportedOperationException(); //TODO
         {
+            if (ast.getFrameSize() >= 0) {
+                scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
+                    Environment.PlcObject[] previous = locals;
+                    int[] previousCounters = counters;
+                    locals = new Environment.PlcObject[ast.getFrameSize()];
+                    counters = null;
+                    for (int i = 0; i < args.size(); i++) {
+                        locals[i] = args.get(i);
+                    }
+                    calls++;
+                    try {
+                        execute(ast.getStatements());
+                        return complete();
+                    }
+                    finally {
+                        calls--;
+                        locals = previous;
+                        counters = previousCounters;
+                    }
+                });
+                return Environment.NIL;
+            }
             scope.defineFunction(ast.getName(), ast.getParameters().size(), args -> {
+                calls++;
                 try {
                     scope = new Scope(scope);
-                    ast.getParameters().forEach(name -> {
-                        args.forEach(value -> {
-                            scope.defineVariable(name, value);
-                        });
-                    });
-                    for (Ast.Stmt stmt: ast.getStatements()) {
-                        visit(stmt);
+                    for (int i = 0; i < args.size(); i++) {
+                        scope.defineVariable(ast.getParameters().get(i), args.get(i));
                     }
-                    return Environment.NIL;
-                }
-                catch (Return temp) {
-                    return temp.value;
+                    execute(ast.getStatements());
+                    return complete();
                 }
                 finally {
+                    calls--;
                     scope = scope.getParent();
                 }
             });
@@ -94,7 +146,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Declaration ast) {
         //throw new UnsupportedOperationException(); //TODO (in lecture)
-        if (ast.getValue().isPresent()) {
+        if (ast.getSlot() >= 0) {
+            locals[ast.getSlot()] = ast.getValue().isPresent() ? visit(ast.getValue().get()) : Environment.NIL;
+        }
+        else if (ast.getValue().isPresent()) {
             scope.defineVariable (ast.getName(), visit (ast.getValue().get()));
         }
         else {
@@ -112,6 +167,10 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                 visit(receiver.getReceiver().get()).setField(receiver.getName(),visit(ast.getValue()));
                 return Environment.NIL;
             }
+            if (receiver.getSlot() >= 0) {
+                frame(receiver.getDepth())[receiver.getSlot()] = visit(ast.getValue());
+                return Environment.NIL;
+            }
             scope.lookupVariable(receiver.getName()).setValue(visit(ast.getValue()));
             return Environment.NIL;
         }
@@ -123,12 +182,14 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Stmt.If ast) {
         //throw new UnsupportedOperationException(); //TODO
+        if (locals != null) {
+            execute(requireType(Boolean.class, visit(ast.getCondition())) ? ast.getThenStatements() : ast.getElseStatements());
+            return Environment.NIL;
+        }
         if(requireType(Boolean.class, visit(ast.getCondition()))) {
             scope = new Scope(scope);
             try {
-                for (Ast.Stmt stat : ast.getThenStatements()) {
-                    visit(stat);
-                }
+                execute(ast.getThenStatements());
             }
             finally {
                 scope = scope.getParent();
@@ -137,9 +198,7 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         else {
             scope = new Scope(scope);
             try {
-                for (Ast.Stmt stat : ast.getElseStatements()) {
-                    visit(stat);
-                }
+                execute(ast.getElseStatements());
             }
             finally {
                 scope = scope.getParent();
@@ -152,31 +211,73 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Stmt.For ast) {
         //throw new UnsupportedOperationException(); //TODO
-        Iterable item = requireType(Iterable.class, visit(ast.getValue()));
-        item.forEach( newItem -> {
-            try {
-                scope = new Scope(scope);
-                scope.defineVariable(ast.getName(), PlcObject.class.cast(newItem));
-                ast.getStatements().forEach( one -> {
-                    visit(one);
-                });
+        Iterable<?> item = requireType(Iterable.class, visit(ast.getValue()));
+        if (ast.getSlot() >= 0) {
+            if (item instanceof Environment.Range) {
+                Environment.Range range = (Environment.Range) item;
+                if (counters == null) {
+                    counters = new int[locals.length];
+                }
+                for (int i = range.getStart(); i < range.getEnd() && returned == null; i++) {
+                    counters[ast.getSlot()] = i;
+                    locals[ast.getSlot()] = null;
+                    execute(ast.getStatements());
+                }
+                return Environment.NIL;
             }
-            finally {
-                scope = scope.getParent();
+            for (Object newItem : item) {
+                locals[ast.getSlot()] = Environment.element(newItem);
+                execute(ast.getStatements());
+                if (returned != null) {
+                    break;
+                }
             }
-        });
+            return Environment.NIL;
+        }
+
+        // The loop variable is defined once, in a scope reused by every
+        // iteration. The body only needs a scope of its own per iteration if
+        // it declares variables, which must not clash with the last one's.
+        boolean declares = ast.getStatements().stream().anyMatch(stmt -> stmt instanceof Ast.Stmt.Declaration);
+        scope = new Scope(scope);
+        try {
+            scope.defineVariable(ast.getName(), Environment.NIL);
+            Environment.Variable variable = scope.lookupVariable(ast.getName());
+            if (item instanceof Environment.Range) {
+                Environment.Range range = (Environment.Range) item;
+                for (int i = range.getStart(); i < range.getEnd() && returned == null; i++) {
+                    variable.setValue(i);
+                    executeLoopBody(ast.getStatements(), declares);
+                }
+                return Environment.NIL;
+            }
+            for (Object newItem : item) {
+                variable.setValue(Environment.element(newItem));
+                executeLoopBody(ast.getStatements(), declares);
+                if (returned != null) {
+                    break;
+                }
+            }
+        }
+        finally {
+            scope = scope.getParent();
+        }
         return Environment.NIL;
     }
 
     @Override
     public Environment.PlcObject visit(Ast.Stmt.While ast) {
         //throw new UnsupportedOperationException(); //TODO (in lecture)
-        while (requireType(Boolean.class, visit(ast.getCondition()))) {
+        if (locals != null) {
+            while (returned == null && requireType(Boolean.class, visit(ast.getCondition()))) {
+                execute(ast.getStatements());
+            }
+            return Environment.NIL;
+        }
+        while (returned == null && requireType(Boolean.class, visit(ast.getCondition()))) {
             try {
                 scope = new Scope(scope);
-                for (Ast.Stmt stmt : ast.getStatements()) {
-                    visit(stmt);
-                }
+                execute(ast.getStatements());
             }
             finally {
                 scope = scope.getParent();
@@ -190,8 +291,11 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     @Override
     public Environment.PlcObject visit(Ast.Stmt.Return ast) {
         //throw new UnsupportedOperationException(); //TODO
-        Environment.PlcObject value = visit(ast.getValue());
-        throw new Return(value);
+        if (calls == 0) {
+            throw new RuntimeException("Expected RETURN to be inside of a method.");
+        }
+        returned = visit(ast.getValue());
+        return Environment.NIL;
     }
 
     @Override
@@ -233,105 +337,80 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
                     }
                     return Environment.create(false);
                 }
+        }
+
+        // Every other operator evaluates both operands exactly once, left to
+        // right, and then dispatches on their values.
+        Object left = visit(ast.getLeft()).getValue();
+        Object right = visit(ast.getRight()).getValue();
+        switch (ast.getOperator()) {
+            case "==":
+                return Environment.create(left.equals(right));
+
+            case "!=":
+                return Environment.create(!left.equals(right));
 
             case "<":
-                if(visit(ast.getLeft()).getValue().getClass() != visit(ast.getRight()).getValue().getClass()) {
-                    throw new RuntimeException();
-                }
-                if(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) < 0) {
-                    return Environment.create(true);
-                }
-                return Environment.create(false);
+                return Environment.create(compare(left, right) < 0);
 
-            case ">=":
-                if(visit(ast.getLeft()).getValue().getClass() != visit(ast.getRight()).getValue().getClass()) {
-                    throw new RuntimeException();
-                }
-                if(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) >= 0) {
-                    return Environment.create(true);
-                }
-                return Environment.create(false);
+            case "<=":
+                return Environment.create(compare(left, right) <= 0);
 
-            case "==":
-                if(visit(ast.getLeft()).getValue().equals(visit(ast.getRight()).getValue())) {
-                    return Environment.create(true);
-                }
-                return Environment.create(false);
+            case ">":
+                return Environment.create(compare(left, right) > 0);
+
+            case ">=":
+                return Environment.create(compare(left, right) >= 0);
 
             case "+":
-                if(visit(ast.getLeft()).getValue() instanceof String || visit(ast.getRight()).getValue() instanceof String) {
-                    return Environment.create((String)visit(ast.getLeft()).getValue() + (String)visit(ast.getRight()).getValue());
-                }
-                else if(visit(ast.getLeft()).getValue() instanceof BigInteger && visit(ast.getRight()).getValue() instanceof BigInteger) {
-                    BigInteger result = requireType(BigInteger.class, visit(ast.getLeft())).add(requireType(BigInteger.class, visit(ast.getRight())));
-                    return Environment.create(result);
-                }
-                else if(visit(ast.getLeft()).getValue() instanceof BigDecimal && visit(ast.getRight()).getValue() instanceof BigDecimal) {
-                    BigDecimal result = requireType(BigDecimal.class, visit(ast.getLeft())).add(requireType(BigDecimal.class, visit(ast.getRight())));
-                    return Environment.create(result);
+                if (left instanceof String || right instanceof String) {
+                    return Environment.create(left.toString() + right.toString());
                 }
-                throw new RuntimeException();
-
-            case "/":
-                if(visit(ast.getLeft()).getValue() instanceof BigInteger && visit(ast.getRight()).getValue() instanceof BigInteger) {
-                    if(requireType(BigInteger.class, visit(ast.getRight())).equals(0)) {
-                        throw new RuntimeException();
-                    }
-
-                    BigInteger result = requireType(BigInteger.class, visit(ast.getLeft())).divide(requireType(BigInteger.class, visit(ast.getRight())));
-                    return Environment.create(result);
+                if (left instanceof BigInteger && right instanceof BigInteger) {
+                    return Environment.create(((BigInteger) left).add((BigInteger) right));
                 }
-                else if(visit(ast.getLeft()).getValue() instanceof BigDecimal && visit(ast.getRight()).getValue() instanceof BigDecimal) {
-                    if(requireType(BigDecimal.class, visit(ast.getRight())).equals(0)) {
-                        throw new RuntimeException();
-                    }
-
-                    BigDecimal result = requireType(BigDecimal.class, visit(ast.getLeft())).divide(requireType(BigDecimal.class, visit(ast.getRight())), 1, RoundingMode.HALF_EVEN);
-                    return Environment.create(result);
+                if (left instanceof BigDecimal && right instanceof BigDecimal) {
+                    return Environment.create(((BigDecimal) left).add((BigDecimal) right));
                 }
-                throw new RuntimeException();
+                break;
 
             case "-":
-                if(visit(ast.getLeft()).getValue() instanceof BigInteger && visit(ast.getRight()).getValue() instanceof BigInteger) {
-                    BigInteger result = requireType(BigInteger.class, visit(ast.getLeft())).subtract(requireType(BigInteger.class, visit(ast.getRight())));
-                    return Environment.create(result);
+                if (left instanceof BigInteger && right instanceof BigInteger) {
+                    return Environment.create(((BigInteger) left).subtract((BigInteger) right));
                 }
-                else if(visit(ast.getLeft()).getValue() instanceof BigDecimal && visit(ast.getRight()).getValue() instanceof BigDecimal) {
-                    BigDecimal result = requireType(BigDecimal.class, visit(ast.getLeft())).subtract(requireType(BigDecimal.class, visit(ast.getRight())));
-                    return Environment.create(result);
+                if (left instanceof BigDecimal && right instanceof BigDecimal) {
+                    return Environment.create(((BigDecimal) left).subtract((BigDecimal) right));
                 }
-                throw new RuntimeException();
+                break;
 
             case "*":
-                if(visit(ast.getLeft()).getValue() instanceof BigInteger && visit(ast.getRight()).getValue() instanceof BigInteger) {
-                    BigInteger result = requireType(BigInteger.class, visit(ast.getLeft())).multiply(requireType(BigInteger.class, visit(ast.getRight())));
-                    return Environment.create(result);
+                if (left instanceof BigInteger && right instanceof BigInteger) {
+                    return Environment.create(((BigInteger) left).multiply((BigInteger) right));
                 }
-                else if(visit(ast.getLeft()).getValue() instanceof BigDecimal && visit(ast.getRight()).getValue() instanceof BigDecimal) {
-                    BigDecimal result = requireType(BigDecimal.class, visit(ast.getLeft())).multiply(requireType(BigDecimal.class, visit(ast.getRight())));
-                    return Environment.create(result);
+                if (left instanceof BigDecimal && right instanceof BigDecimal) {
+                    return Environment.create(((BigDecimal) left).multiply((BigDecimal) right));
                 }
-                throw new RuntimeException();
+                break;
 
-            case "<=":
-                if(visit(ast.getLeft()).getValue().getClass() != visit(ast.getRight()).getValue().getClass()) {
-                    throw new RuntimeException();
+            case "/":
+                if (left instanceof BigInteger && right instanceof BigInteger) {
+                    if (((BigInteger) right).signum() == 0) {
+                        throw new RuntimeException("Division by zero.");
+                    }
+                    return Environment.create(((BigInteger) left).divide((BigInteger) right));
                 }
-                if(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) <= 0) {
-                    return Environment.create(true);
+                if (left instanceof BigDecimal && right instanceof BigDecimal) {
+                    if (((BigDecimal) right).signum() == 0) {
+                        throw new RuntimeException("Division by zero.");
+                    }
+                    return Environment.create(((BigDecimal) left).divide((BigDecimal) right, 1, RoundingMode.HALF_EVEN));
                 }
-                return Environment.create(false);
+                break;
 
-            case ">":
-                if(visit(ast.getLeft()).getValue().getClass() != visit(ast.getRight()).getValue().getClass()) {
-                    throw new RuntimeException();
-                }
-                if(requireType(Comparable.class, visit(ast.getLeft())).compareTo(requireType(Comparable.class, visit(ast.getRight()))) > 0) {
-                    return Environment.create(true);
-                }
-                return Environment.create(false);
+            default:
+                throw new RuntimeException("Unknown operator " + ast.getOperator() + ".");
         }
-        throw new RuntimeException();
+        throw new RuntimeException("Invalid operands for " + ast.getOperator() + ": " + left.getClass().getName() + " and " + right.getClass().getName() + ".");
     }
 
     @Override
@@ -340,6 +419,13 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
         if (ast.getReceiver().isPresent()) {
             return visit(ast.getReceiver().get()).getField(ast.getName()).getValue();
         }
+        if (ast.getSlot() >= 0) {
+            Environment.PlcObject[] frame = frame(ast.getDepth());
+            if (frame[ast.getSlot()] == null && frame == locals) {
+                frame[ast.getSlot()] = Environment.create(BigInteger.valueOf(counters[ast.getSlot()]));
+            }
+            return frame[ast.getSlot()];
+        }
         return scope.lookupVariable(ast.getName()).getValue();
     }
 
@@ -347,25 +433,38 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     public Environment.PlcObject visit(Ast.Expr.Function ast) {
         //throw new UnsupportedOperationException(); //TODO
 
-        List<Environment.PlcObject> args = new ArrayList<>();
+        // Method arguments start at index 1, leaving index 0 for the receiver.
+        int offset = ast.getReceiver().isPresent() ? 1 : 0;
+        Environment.PlcObject[] args = new Environment.PlcObject[ast.getArguments().size() + offset];
 
-        for (Ast.Expr argument : ast.getArguments()) {
-            args.add(visit(argument));
+        for (int i = 0; i < ast.getArguments().size(); i++) {
+            args[i + offset] = visit(ast.getArguments().get(i));
         }
 
         if (ast.getReceiver().isPresent()) {
             Environment.PlcObject obj = visit(ast.getReceiver().get());
-
-            return obj.callMethod(ast.getName(),args);
+            Environment.Type type = obj.getType();
+            Environment.Function function = ast.getCachedFunction(type);
+            if (function == null) {
+                function = type.getScope().lookupFunction(ast.getKey());
+                ast.setCachedFunction(type, function);
+            }
+            args[0] = obj;
+            return function.invoke(Arrays.asList(args));
         }
         else {
-            Environment.Function function = scope.lookupFunction(ast.getName(),ast.getArguments().size());
-
-            return function.invoke(args);
-
+            Environment.Function function = ast.getCachedFunction(scope);
+            if (function == null) {
+                function = scope.lookupFunction(ast.getKey());
+                ast.setCachedFunction(scope, function);
+            }
+            return function.invoke(Arrays.asList(args));
         }
 
+    }
 
+    private Environment.PlcObject[] frame(int depth) {
+        return depth == Resolver.LOCAL ? locals : fields;
     }
 
     /**
@@ -380,16 +479,53 @@ public class Interpreter implements Ast.Visitor<Environment.PlcObject> {
     }
 
     /**
-     * Exception class for returning values.
+     * Compares two operands of the same {@link Comparable} type.
      */
-    private static class Return extends RuntimeException {
+    @SuppressWarnings("unchecked")
+    static int compare(Object left, Object right) {
+        if (!(left instanceof Comparable) || left.getClass() != right.getClass()) {
+            throw new RuntimeException("Expected comparable operands of the same type, received " + left.getClass().getName() + " and " + right.getClass().getName() + ".");
+        }
+        return ((Comparable<Object>) left).compareTo(right);
+    }
 
-        private final Environment.PlcObject value;
+    /**
+     * Executes statements in order, stopping after a {@code RETURN}.
+     */
+    private void execute(List<Ast.Stmt> statements) {
+        for (Ast.Stmt stmt : statements) {
+            visit(stmt);
+            if (returned != null) {
+                return;
+            }
+        }
+    }
 
-        private Return(Environment.PlcObject value) {
-            this.value = value;
+    /**
+     * Executes the body of a loop, in a new scope if it declares variables.
+     */
+    private void executeLoopBody(List<Ast.Stmt> statements, boolean declares) {
+        if (!declares) {
+            execute(statements);
+            return;
+        }
+        scope = new Scope(scope);
+        try {
+            execute(statements);
+        }
+        finally {
+            scope = scope.getParent();
         }
+    }
 
+    /**
+     * Completes a method call, returning the value of its {@code RETURN}
+     * statement or {@code NIL}.
+     */
+    private Environment.PlcObject complete() {
+        Environment.PlcObject value = returned;
+        returned = null;
+        return value != null ? value : Environment.NIL;
     }
 
 }
@@ -1,9 +1,19 @@
 package plc.project;
 
-import org.omg.CORBA.IdentifierHelper;
-
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * The lexer works through three main functions:
@@ -21,10 +31,90 @@ import java.util.List;
  */
 public final class Lexer {
 
+    /**
+     * Character classes used by the table-driven fast path. Each entry of
+     * {@link #CLASSES} is a bitmask of the classes the (ASCII) character
+     * belongs to; anything outside of ASCII belongs to no class, which matches
+     * the behavior of the regex patterns this replaces.
+     */
+    private static final int IDENTIFIER_START = 1;
+    private static final int IDENTIFIER_PART = 1 << 1;
+    private static final int DIGIT = 1 << 2;
+    private static final int SIGN = 1 << 3;
+    private static final int OPERATOR = 1 << 4;
+    private static final int WHITESPACE = 1 << 5;
+    private static final int ESCAPE = 1 << 6;
+
+    private static final byte[] CLASSES = new byte[128];
+
+    static {
+        for (char c = 'A'; c <= 'Z'; c++) {
+            define(c, IDENTIFIER_START | IDENTIFIER_PART);
+            define(Character.toLowerCase(c), IDENTIFIER_START | IDENTIFIER_PART);
+        }
+        define('_', IDENTIFIER_START | IDENTIFIER_PART);
+        define('-', IDENTIFIER_PART | SIGN);
+        define('+', SIGN);
+        for (char c = '0'; c <= '9'; c++) {
+            define(c, IDENTIFIER_PART | DIGIT);
+        }
+        for (char c : "<>!=".toCharArray()) {
+            define(c, OPERATOR);
+        }
+        for (char c : " \t\n\u000B\f\r\b".toCharArray()) {
+            define(c, WHITESPACE);
+        }
+        for (char c : "bnrt\"'\\".toCharArray()) {
+            define(c, ESCAPE);
+        }
+    }
+
+    private static void define(char c, int mask) {
+        CLASSES[c] |= mask;
+    }
+
+    private static boolean is(char c, int mask) {
+        return c < CLASSES.length && (CLASSES[c] & mask) != 0;
+    }
+
+    /**
+     * Canonical instances of all single-character literals. Keywords and
+     * compound operators use the literal of their {@link Token.Symbol}, so
+     * tokens with either kind of literal share an instance instead of copying
+     * it out of the input.
+     */
+    private static final String[] CHARACTERS = new String[128];
+
+    static {
+        for (char c = 0; c < CHARACTERS.length; c++) {
+            CHARACTERS[c] = String.valueOf(c);
+        }
+    }
+
     private final CharStream chars;
+    private final String source;
 
     public Lexer(String input) {
         chars = new CharStream(input);
+        source = input;
+    }
+
+    /**
+     * Creates a lexer which reads the input incrementally from {@code reader},
+     * buffering only the characters of the token currently being lexed.
+     */
+    public Lexer(Reader reader) {
+        chars = new CharStream(reader);
+        source = null;
+    }
+
+    /**
+     * Creates a lexer over a (typically memory-mapped) UTF-8 encoded file,
+     * which is decoded on demand rather than copied onto the heap.
+     */
+    public Lexer(MappedByteBuffer buffer) {
+        chars = new CharStream(buffer);
+        source = null;
     }
 
     /**
@@ -33,19 +123,65 @@ public final class Lexer {
      */
     public List<Token> lex() {
         List<Token> tokenList = new ArrayList<>();
-        while (chars.index <= chars.input.length()) {
-            //skip over whitespace if negate is true
-            if (peek("[^\\s\b\r\n\t]")) {
-                tokenList.add(lexToken());
-            } else {
-                chars.advance();
-                //skip to the next in the string
-                chars.skip();  //Length = 0
-            }
+        Iterator<Token> iterator = tokens();
+        while (iterator.hasNext()) {
+            tokenList.add(iterator.next());
         }
         return tokenList;
     }
 
+    /**
+     * Lexes the input into a {@link TokenBuffer}, which stores the tokens as
+     * primitive arrays over the input string. This is only supported for
+     * lexers created from a {@link String}, since the buffer refers back to it
+     * for literals.
+     */
+    public TokenBuffer lexBuffer() {
+        if (source == null) {
+            throw new IllegalStateException("A token buffer requires a lexer created from a String.");
+        }
+        TokenBuffer buffer = new TokenBuffer(source);
+        Iterator<Token> iterator = tokens();
+        while (iterator.hasNext()) {
+            Token token = iterator.next();
+            buffer.add(token.getType(), token.getIndex(), token.getLength(), token.getSymbol());
+        }
+        return buffer;
+    }
+
+    /**
+     * Returns an iterator which lexes the input lazily, one token per call to
+     * {@link Iterator#next()}, instead of materializing the entire list as
+     * {@link #lex()} does. The iterator shares the state of this lexer, so it
+     * should not be mixed with other calls to {@link #lex()}.
+     */
+    public Iterator<Token> tokens() {
+        return new Iterator<Token>() {
+
+            @Override
+            public boolean hasNext() {
+                skipWhitespace();
+                return chars.has(0);
+            }
+
+            @Override
+            public Token next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return lexToken();
+            }
+
+        };
+    }
+
+    private void skipWhitespace() {
+        while (peek(WHITESPACE)) {
+            chars.advance();
+            chars.skip();
+        }
+    }
+
     /**
      * This method determines the type of the next token, delegating to the
      * appropriate lex method. As such, it is best for this method to not change
@@ -55,15 +191,15 @@ public final class Lexer {
      * by {@link #lex()}
      **/
     public Token lexToken() {
-        if (peek("[A-Za-z_]")) {
+        if (peek(IDENTIFIER_START)) {
             return lexIdentifier();
-        } else if (peek("[+\\-]","[0-9]") || peek("[0-9]")) {
+        } else if (peek(DIGIT) || peek(SIGN, DIGIT)) {
             return lexNumber();
-        } else if (peek("\'")) {
+        } else if (peek('\'')) {
             return lexCharacter();
-        } else if (peek("\"")) {
+        } else if (peek('"')) {
             return lexString();
-        } else if (peek("\\\\")) {
+        } else if (peek('\\')) {
             lexEscape();
         } else {
             return lexOperator();
@@ -74,8 +210,8 @@ public final class Lexer {
 
 
     public Token lexIdentifier() {
-        if (match("[A-za-z_]")) {
-            while (match("[A-za-z0-9_\\-]")) {
+        if (match(IDENTIFIER_START)) {
+            while (match(IDENTIFIER_PART)) {
             }
             return chars.emit(Token.Type.IDENTIFIER);
         }
@@ -83,50 +219,47 @@ public final class Lexer {
     }
 
     public Token lexNumber() {
-        Token.Type tokenType = Token.Type.INTEGER;
-        boolean decimalFlag = false;
-        boolean multiDecimalChecker = false;
-
-        match("[+-]");
-        while (match("[0-9]")) {
-            if (match("\\.", "[0-9]")) {
-                while (match("[0-9]")) {
-                }
-                return chars.emit(Token.Type.DECIMAL);
+        match(SIGN);
+        while (match(DIGIT)) {
+        }
+        if (peek('.') && chars.has(1) && is(chars.get(1), DIGIT)) {
+            chars.advance();
+            while (match(DIGIT)) {
             }
+            return chars.emit(Token.Type.DECIMAL);
         }
         return chars.emit(Token.Type.INTEGER);
     }
 
     public Token lexCharacter() {
-            match("\'");
-            if (peek("[^\'\r\n]")) {
-                if (peek("\\\\")) {
-                    lexEscape();
-                } else {
-                    chars.advance();
-                }
-            }
-            else {
-                throw new ParseException("Not Valid",chars.index);
-            }
-            if (!match("\'")) {
-                throw new ParseException("Not Valid", chars.index);
+        match('\'');
+        if (chars.has(0) && !peek('\'') && !peek('\r') && !peek('\n')) {
+            if (peek('\\')) {
+                lexEscape();
+            } else {
+                chars.advance();
             }
+        }
+        else {
+            throw new ParseException("Not Valid",chars.index);
+        }
+        if (!match('\'')) {
+            throw new ParseException("Not Valid", chars.index);
+        }
 
         return chars.emit(Token.Type.CHARACTER);
     }
 
     public Token lexString() {
-        match("\"");
-        while(match("[^\"\r\n]")) {
-            if(match("\\\\")) {
-                if(!match("[brnt\"'\\\\]")) {
-                    throw new ParseException("Not Valid",chars.index);
-                }
+        match('"');
+        while (chars.has(0) && !peek('"') && !peek('\r') && !peek('\n')) {
+            if (peek('\\')) {
+                lexEscape();
+            } else {
+                chars.advance();
             }
         }
-        if (match("\"")) {
+        if (match('"')) {
             return chars.emit(Token.Type.STRING);
         }
         else {
@@ -135,21 +268,66 @@ public final class Lexer {
     }
 
     public void lexEscape() {
-        match("\\\\");
-        if (!match("[bnrt\"\'\\\\]")) {
+        match('\\');
+        if (!match(ESCAPE)) {
             throw new ParseException("Not Valid ", chars.index);
         }
     }
 
     public Token lexOperator() {
-        if (match("[<>!=]")) {
-            match("=");
+        if (match(OPERATOR)) {
+            match('=');
         } else {
             chars.advance();
         }
         return chars.emit(Token.Type.OPERATOR);
     }
 
+    /**
+     * Returns true if the next character belongs to any of the character
+     * classes in {@code mask}. Unlike {@link #peek(String...)} this is a table
+     * lookup and does not allocate.
+     */
+    private boolean peek(int mask) {
+        return chars.has(0) && is(chars.get(0), mask);
+    }
+
+    /**
+     * Returns true if the next two characters belong to the {@code first} and
+     * {@code second} character classes respectively.
+     */
+    private boolean peek(int first, int second) {
+        return chars.has(1) && is(chars.get(0), first) && is(chars.get(1), second);
+    }
+
+    /**
+     * Returns true if the next character is exactly {@code c}.
+     */
+    private boolean peek(char c) {
+        return chars.has(0) && chars.get(0) == c;
+    }
+
+    /**
+     * As {@link #peek(int)}, but also advances past the matched character.
+     */
+    private boolean match(int mask) {
+        boolean matched = peek(mask);
+        if (matched) {
+            chars.advance();
+        }
+        return matched;
+    }
+
+    /**
+     * As {@link #peek(char)}, but also advances past the matched character.
+     */
+    private boolean match(char c) {
+        boolean matched = peek(c);
+        if (matched) {
+            chars.advance();
+        }
+        return matched;
+    }
 
     /**
      * Returns true if the next sequence of characters match the given patterns,
@@ -191,19 +369,33 @@ public final class Lexer {
      * You should rely on peek/match for state management in nearly all cases.
      * The only field you need to access is {@link #index} for any {@link
      * ParseException} which is thrown.
+     * <p>
+     * The characters themselves come from an {@link Input}, which is either
+     * the whole input string or a sliding window over a {@link Reader} or
+     * {@link ByteBuffer}. Indices are always absolute (in characters from the
+     * start of the input), so token and exception indices are the same no
+     * matter where the input comes from.
      */
     public static final class CharStream {
 
-        private final String input;
+        private final Input input;
         private int index = 0;
         private int length = 0;
 
         public CharStream(String input) {
-            this.input = input;
+            this.input = new StringInput(input);
+        }
+
+        public CharStream(Reader reader) {
+            this.input = new ReaderInput(reader);
+        }
+
+        public CharStream(ByteBuffer buffer) {
+            this.input = new DecodingInput(buffer);
         }
 
         public boolean has(int offset) {
-            return index + offset < input.length();
+            return input.has(index + offset);
         }
 
         public char get(int offset) {
@@ -217,12 +409,225 @@ public final class Lexer {
 
         public void skip() {
             length = 0;
+            input.release(index);
         }
 
         public Token emit(Token.Type type) {
             int start = index - length;
+            Token token = null;
+            if (type == Token.Type.IDENTIFIER || type == Token.Type.OPERATOR) {
+                Token.Symbol symbol = symbol(start, index);
+                if (symbol != null) {
+                    token = new Token(type, symbol.getLiteral(), start, symbol);
+                } else if (length == 1 && input.charAt(start) < CHARACTERS.length) {
+                    token = new Token(type, CHARACTERS[input.charAt(start)], start, null);
+                }
+            }
+            if (token == null) {
+                token = input.token(type, start, index);
+            }
             skip();
-            return new Token(type, input.substring(start, index), start);
+            return token;
+        }
+
+        /**
+         * Returns the keyword or operator {@code input[start, end)} is, if any,
+         * using the perfect hash from {@link Token.Symbol}.
+         */
+        private Token.Symbol symbol(int start, int end) {
+            Token.Symbol symbol = Token.Symbol.candidate(input.charAt(start), input.charAt(end - 1), end - start);
+            if (symbol != null && symbol.getLiteral().length() == end - start
+                    && input.regionMatches(start, symbol.getLiteral())) {
+                return symbol;
+            }
+            return null;
+        }
+    }
+
+    /**
+     * The characters backing a {@link CharStream}, addressed by absolute index.
+     * Characters before the index passed to {@link #release(int)} will no
+     * longer be requested and may be discarded.
+     */
+    private interface Input {
+
+        boolean has(int index);
+
+        char charAt(int index);
+
+        boolean regionMatches(int start, String other);
+
+        Token token(Token.Type type, int start, int end);
+
+        void release(int index);
+
+    }
+
+    private static final class StringInput implements Input {
+
+        private final String input;
+
+        private StringInput(String input) {
+            this.input = input;
         }
+
+        @Override
+        public boolean has(int index) {
+            return index < input.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return input.charAt(index);
+        }
+
+        @Override
+        public boolean regionMatches(int start, String other) {
+            return input.regionMatches(start, other, 0, other.length());
+        }
+
+        @Override
+        public Token token(Token.Type type, int start, int end) {
+            return new Token(type, input, start, end - start);
+        }
+
+        @Override
+        public void release(int index) {}
+
     }
+
+    /**
+     * A sliding window of characters which is refilled on demand. The window
+     * starts at the last released index, so its size is bounded by the longest
+     * token (plus lookahead) rather than the size of the input.
+     */
+    private static abstract class WindowInput implements Input {
+
+        private char[] buffer = new char[8192];
+        private int offset = 0;
+        private int limit = 0;
+        private int released = 0;
+        private boolean eof = false;
+
+        /**
+         * Reads characters into {@code buffer[start..end)}, returning the
+         * number read or -1 at the end of the input.
+         */
+        protected abstract int fill(char[] buffer, int start, int end) throws IOException;
+
+        @Override
+        public boolean has(int index) {
+            while (index >= offset + limit && !eof) {
+                refill();
+            }
+            return index < offset + limit;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (!has(index) || index < offset) {
+                throw new IndexOutOfBoundsException("Index " + index + " is outside of the input window.");
+            }
+            return buffer[index - offset];
+        }
+
+        @Override
+        public boolean regionMatches(int start, String other) {
+            for (int i = 0; i < other.length(); i++) {
+                if (charAt(start + i) != other.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * The window is reused, so the literal has to be copied out of it.
+         */
+        @Override
+        public Token token(Token.Type type, int start, int end) {
+            if (start < offset || end > offset + limit) {
+                throw new IndexOutOfBoundsException("Range " + start + "-" + end + " is outside of the input window.");
+            }
+            return new Token(type, new String(buffer, start - offset, end - start), start);
+        }
+
+        @Override
+        public void release(int index) {
+            released = Math.max(released, index);
+        }
+
+        private void refill() {
+            int discard = Math.min(released, offset + limit) - offset;
+            if (discard > 0) {
+                System.arraycopy(buffer, discard, buffer, 0, limit - discard);
+                offset += discard;
+                limit -= discard;
+            }
+            if (buffer.length - limit < 2) {
+                char[] grown = new char[buffer.length * 2];
+                System.arraycopy(buffer, 0, grown, 0, limit);
+                buffer = grown;
+            }
+            try {
+                int read = fill(buffer, limit, buffer.length);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    limit += read;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    private static final class ReaderInput extends WindowInput {
+
+        private final Reader reader;
+
+        private ReaderInput(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        protected int fill(char[] buffer, int start, int end) throws IOException {
+            return reader.read(buffer, start, end - start);
+        }
+
+    }
+
+    /**
+     * Decodes UTF-8 from a byte buffer into the window as it is needed, so a
+     * memory-mapped file is never copied onto the heap as a whole.
+     */
+    private static final class DecodingInput extends WindowInput {
+
+        private final ByteBuffer bytes;
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private boolean flushed = false;
+
+        private DecodingInput(ByteBuffer bytes) {
+            this.bytes = bytes.duplicate();
+        }
+
+        @Override
+        protected int fill(char[] buffer, int start, int end) {
+            if (flushed) {
+                return -1;
+            }
+            CharBuffer out = CharBuffer.wrap(buffer, start, end - start);
+            CoderResult result = decoder.decode(bytes, out, true);
+            if (result.isUnderflow()) {
+                decoder.flush(out);
+                flushed = true;
+            }
+            return out.position() - start;
+        }
+
+    }
+
 }
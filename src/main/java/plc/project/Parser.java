@@ -1,12 +1,12 @@
 package plc.project;
 
-import java.sql.Array;
+import java.util.Iterator;
 import java.util.List;
 import java.math.BigInteger;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Optional;
-import java.util.List;
+import plc.project.Token.Symbol;
 
 /**
  * The parser takes the sequence of tokens emitted by the lexer and turns that
@@ -25,18 +25,52 @@ public final class Parser {
 
     private final TokenStream tokens;
 
+    /**
+     * The errors collected by {@link #parseSource(List)}, or {@code null} if
+     * errors should be thrown instead of recovered from.
+     */
+    private List<ParseException> errors = null;
 
+
+    /**
+     * Returns the index to report an error at: the start of the next token if
+     * {@code present} and there is one, otherwise the end of the last token,
+     * or {@code 0} if there are no tokens. Errors at the end of the input,
+     * such as a missing {@code ;}, are therefore reported after the last
+     * token rather than failing to read past it.
+     */
     private int parseIndex(boolean present) {
-        if (present) {
-            return tokens.get(0).getIndex();
+        if (present && tokens.has(0)) {
+            return tokens.index(0);
+        }
+        else if (tokens.index > 0) {
+            return tokens.length(-1) + tokens.index(-1);
         }
         else {
-            return tokens.get(-1).getLiteral().length() + tokens.get(-1).getIndex();
+            return 0;
         }
     }
 
 
     public Parser(List<Token> tokens) {
+        this(tokens.iterator());
+    }
+
+    /**
+     * Creates a parser which pulls tokens on demand, such as from {@link
+     * Lexer#tokens()}, so lexing and parsing happen in a single pass while only
+     * a small window of tokens is held in memory.
+     */
+    public Parser(Iterator<Token> tokens) {
+        this.tokens = new TokenStream(tokens);
+    }
+
+    /**
+     * Creates a parser which reads directly from the primitive arrays of a
+     * {@link TokenBuffer}, such as from {@link Lexer#lexBuffer()}, without
+     * creating {@link Token} objects.
+     */
+    public Parser(TokenBuffer tokens) {
         this.tokens = new TokenStream(tokens);
     }
 
@@ -49,19 +83,20 @@ public final class Parser {
         List<Ast.Field> fields = new ArrayList<Ast.Field>();
 
         if (peek(Token.Type.IDENTIFIER) && tokens.has(0)) {
-            while (peek(Token.Type.IDENTIFIER)) {
-                if (peek("LET")) {
-                    while (peek("LET")) {
+            // Any other identifier ends the loop and is reported below.
+            while (peek(Symbol.LET) || peek(Symbol.DEF)) {
+                if (peek(Symbol.LET)) {
+                    while (peek(Symbol.LET)) {
                         fields.add(parseField());
-                        if ((!peek("LET") && !peek("DEF")) && tokens.has(0)) {
+                        if ((!peek(Symbol.LET) && !peek(Symbol.DEF)) && tokens.has(0)) {
                             throw new ParseException("Not Valid Let or Def" + " At Index:" + parseIndex(true), parseIndex(true));
                         }
                     }
                 }
-                if (peek("DEF")) {
-                    while (peek("DEF")) {
+                if (peek(Symbol.DEF)) {
+                    while (peek(Symbol.DEF)) {
                         methods.add(parseMethod());
-                        if (!peek("DEF") && tokens.has(0)) {
+                        if (!peek(Symbol.DEF) && tokens.has(0)) {
                             throw new ParseException("Not Valid Def" + " At Index:" + parseIndex(true), parseIndex(true));
                         }
                     }
@@ -74,6 +109,85 @@ public final class Parser {
             throw new ParseException("Not Valid ID" + " At Index:" + parseIndex(true), parseIndex(true));
     }
 
+    /**
+     * Parses the {@code source} rule, recovering from errors instead of
+     * stopping at the first one. Each error is added to {@code errors} and
+     * the parser resynchronizes: within a block it skips past the next
+     * {@code ;} or up to the next {@code END}, {@code ELSE}, {@code DEF} or
+     * {@code LET}, and at the top level it skips to the next {@code DEF} or
+     * {@code LET}.
+     *
+     * The returned source contains every field, method and statement which
+     * parsed successfully, so all errors in a file are found in one pass.
+     */
+    public Ast.Source parseSource(List<ParseException> errors) {
+        this.errors = errors;
+        try {
+            List<Ast.Field> fields = new ArrayList<>();
+            List<Ast.Method> methods = new ArrayList<>();
+            while (tokens.has(0)) {
+                int start = tokens.index;
+                try {
+                    if (peek(Symbol.LET)) {
+                        if (!methods.isEmpty()) {
+                            errors.add(new ParseException("Field After Method" + " At Index:" + parseIndex(true), parseIndex(true)));
+                        }
+                        fields.add(parseField());
+                    } else if (peek(Symbol.DEF)) {
+                        methods.add(parseMethod());
+                    } else {
+                        throw new ParseException("Not Valid Let or Def" + " At Index:" + parseIndex(true), parseIndex(true));
+                    }
+                } catch (ParseException e) {
+                    errors.add(e);
+                    if (tokens.index == start) {
+                        tokens.advance();
+                    }
+                    while (tokens.has(0) && !peek(Symbol.LET) && !peek(Symbol.DEF)) {
+                        tokens.advance();
+                    }
+                }
+            }
+            return new Ast.Source(fields, methods);
+        } finally {
+            this.errors = null;
+        }
+    }
+
+    /**
+     * Parses statements into {@code statements} until the next token is
+     * {@code END}, {@code terminator}, or there are no more tokens. When
+     * recovering from errors, a statement which fails to parse is skipped
+     * up to the next synchronization point (see {@link #parseSource(List)}),
+     * and the block ends early at a {@code DEF}, which cannot be inside one.
+     */
+    private void parseBlock(List<Ast.Stmt> statements, Symbol terminator) {
+        while (tokens.has(0) && !peek(Symbol.END) && !peek(terminator)) {
+            if (errors == null) {
+                statements.add(parseStatement());
+                continue;
+            }
+            if (peek(Symbol.DEF)) {
+                return;
+            }
+            int start = tokens.index;
+            try {
+                statements.add(parseStatement());
+            } catch (ParseException e) {
+                errors.add(e);
+                if (tokens.index == start) {
+                    tokens.advance();
+                }
+                while (tokens.has(0) && !peek(Symbol.END) && !peek(Symbol.ELSE) && !peek(Symbol.DEF) && !peek(Symbol.LET)) {
+                    if (match(Symbol.SEMICOLON)) {
+                        break;
+                    }
+                    tokens.advance();
+                }
+            }
+        }
+    }
+
     /**
      * Parses the {@code field} rule. This method should only be called if the
      * next tokens start a field, aka {@code LET}.
@@ -81,15 +195,15 @@ public final class Parser {
     public Ast.Field parseField() throws ParseException {
         //Updated for Part 4
         //field ::= 'LET' identifier ':' identifier ('=' expression)? ';'
-        match("LET");
+        match(Symbol.LET);
 
         if(!match(Token.Type.IDENTIFIER)) {
             throw new ParseException("Expected Identifier in Field" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
-        String name = tokens.get(-1).getLiteral();
+        String name = tokens.literal(-1);
 
-        if(!match(":")) {
+        if(!match(Symbol.COLON)) {
             throw new ParseException("Expected Colon in Field" + " At Index:" + parseIndex(true),
                     parseIndex(true));
         }
@@ -98,15 +212,15 @@ public final class Parser {
             throw new ParseException("Expected Identifier in Field" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
-        String typeName = tokens.get(-1).getLiteral();
+        String typeName = tokens.literal(-1);
 
         Optional<Ast.Expr> value = Optional.empty();
 
-        if(match("=")){
+        if(match(Symbol.EQUALS)){
             value = Optional.of(parseExpression());
         }
 
-        if(!match(";")) {
+        if(!match(Symbol.SEMICOLON)) {
             throw new ParseException("Expected Semicolon in Field" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
@@ -123,55 +237,64 @@ public final class Parser {
         //Updated for Part 4
         //'DEF' identifier '(' (identifier ':' identifier (',' identifier ':' identifier)*)? ')' (':' identifier)? 'DO' statement* 'END'
 
-        match("DEF");
+        match(Symbol.DEF);
 
         if(!match(Token.Type.IDENTIFIER)) {
             throw new ParseException("Expected Identifier in Method" + " At Index:" + parseIndex(true),
                     parseIndex(true));
         }
 
-        String name = tokens.get(-1).getLiteral();
+        String name = tokens.literal(-1);
         List<String> parameters = new ArrayList<>();
         List <String> parameterTypeNames = new ArrayList<>();
         Optional <String> returnTypeName = Optional.empty();
         List<Ast.Stmt> statements = new ArrayList<>();
 
-        if(!match("(")) {
+        if(!match(Symbol.LEFT_PAREN)) {
             throw new ParseException("Expected Open Parenthesis in Method" + " At Index:" + parseIndex(true),
                     parseIndex(true));
         }
 
-        while(!match(")")) {
-            parameters.add(tokens.get(-1).getLiteral());
-            if(!match(":")) {
-                throw new ParseException("Expected Colon in Method" + " At Index:" + parseIndex(true),
-                        parseIndex(true));
-            }
-            parameterTypeNames.add(tokens.get(-1).getLiteral());
-            if (!peek(")")) {
-                while (match(",")) {
-                    parameters.add(tokens.get(-1).getLiteral());
+        if (!peek(Symbol.RIGHT_PAREN)) {
+            do {
+                if (!match(Token.Type.IDENTIFIER)) {
+                    throw new ParseException("Expected Identifier in Method" + " At Index:" + parseIndex(tokens.has(0)),
+                            parseIndex(tokens.has(0)));
                 }
-            }
+                parameters.add(tokens.literal(-1));
+                if (!match(Symbol.COLON)) {
+                    throw new ParseException("Expected Colon in Method" + " At Index:" + parseIndex(tokens.has(0)),
+                            parseIndex(tokens.has(0)));
+                }
+                if (!match(Token.Type.IDENTIFIER)) {
+                    throw new ParseException("Expected Identifier in Method" + " At Index:" + parseIndex(tokens.has(0)),
+                            parseIndex(tokens.has(0)));
+                }
+                parameterTypeNames.add(tokens.literal(-1));
+            } while (match(Symbol.COMMA));
         }
 
-        if(match(":")){
+        if (!match(Symbol.RIGHT_PAREN)) {
+            throw new ParseException("Expected Closed Parenthesis in Method" + " At Index:" + parseIndex(tokens.has(0)),
+                    parseIndex(tokens.has(0)));
+        }
+
+        if(match(Symbol.COLON)){
             if(!match(Token.Type.IDENTIFIER)) {
                 throw new ParseException("Expected Identifier in Method" + " At Index:" + parseIndex(true),
                         parseIndex(true));
             }
-            returnTypeName = Optional.of(tokens.get(-1).getLiteral());
+            returnTypeName = Optional.of(tokens.literal(-1));
         }
 
-        if (!match("DO")) {
+        if (!match(Symbol.DO)) {
             throw new ParseException("Expected \"DO\" in Method" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
-        while(!peek("END"))
-        {
-            statements.add(parseStatement());
+        parseBlock(statements, Symbol.END);
+        if (!match(Symbol.END)) {
+            throw new ParseException("Expected \"END\" in Method" + " At Index:" + parseIndex(tokens.has(0)), parseIndex(tokens.has(0)));
         }
-        match("END");
 
         //String name, List <String> parameters, List <String> parameterTypeNames, Optional <String> returnTypeName, List <Stmt> statements
         return new Ast.Method(name, parameters, parameterTypeNames, returnTypeName, statements);
@@ -184,42 +307,45 @@ public final class Parser {
              */
             public Ast.Stmt parseStatement() throws ParseException {
         //throw new UnsupportedOperationException(); //TODO
-        if (peek("LET")) {
-            return parseDeclarationStatement();
-        } else if (peek("IF")) {
-            return parseIfStatement();
-        } else if (peek("FOR")) {
-            return parseForStatement();
-        } else if (peek("WHILE")) {
-            return parseWhileStatement();
-        } else if (peek("RETURN")) {
-            return parseReturnStatement();
-        } else {
-            Ast.Expr temp = parseExpression();
-            if (peek("=")) {
-                match("=");
-                Ast.Expr val = parseExpression();
-                if (peek(";")) {
-                    match(";");
-                    return new Ast.Stmt.Assignment(temp, val);
+        Symbol symbol = peekSymbol();
+        if (symbol != null) {
+            switch (symbol) {
+                case LET:
+                    return parseDeclarationStatement();
+                case IF:
+                    return parseIfStatement();
+                case FOR:
+                    return parseForStatement();
+                case WHILE:
+                    return parseWhileStatement();
+                case RETURN:
+                    return parseReturnStatement();
+            }
+        }
+        Ast.Expr temp = parseExpression();
+        if (peek(Symbol.EQUALS)) {
+            match(Symbol.EQUALS);
+            Ast.Expr val = parseExpression();
+            if (peek(Symbol.SEMICOLON)) {
+                match(Symbol.SEMICOLON);
+                return new Ast.Stmt.Assignment(temp, val);
+            } else {
+                if (tokens.has(0)) {
+                    throw new ParseException("Not Valid ;" + " At Index:" + parseIndex(true), parseIndex(true));
                 } else {
-                    if (tokens.has(0)) {
-                        throw new ParseException("Not Valid ;" + " At Index:" + parseIndex(true), parseIndex(true));
-                    } else {
-                        throw new ParseException("Not Valid ;" + " At Index:" + (parseIndex(false)), parseIndex(false));
-                    }
+                    throw new ParseException("Not Valid ;" + " At Index:" + (parseIndex(false)), parseIndex(false));
                 }
+            }
+        } else {
+            if (peek(Symbol.SEMICOLON)) {
+                match(Symbol.SEMICOLON);
+                return new Ast.Stmt.Expression(temp);
             } else {
-                if (peek(";")) {
-                    match(";");
-                    return new Ast.Stmt.Expression(temp);
-                } else {
-                    if (tokens.has(0))
-                        throw new ParseException("Not Valid ;" + " At Index:" + parseIndex(true), parseIndex(true));
+                if (tokens.has(0))
+                    throw new ParseException("Not Valid ;" + " At Index:" + parseIndex(true), parseIndex(true));
 
-                    else {
-                        throw new ParseException("Not Valid ;" + " At Index:" + (parseIndex(false)), parseIndex(false));
-                    }
+                else {
+                    throw new ParseException("Not Valid ;" + " At Index:" + (parseIndex(false)), parseIndex(false));
                 }
             }
         }
@@ -234,29 +360,29 @@ public final class Parser {
         //Updated for Part 4
         // LET identifier (':' identifier)? ('=' expression)? ';'
 
-        match("LET");
+        match(Symbol.LET);
 
         if(!match(Token.Type.IDENTIFIER)) {
             throw new ParseException("Expected Identifier in Declaration Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
-        String name = tokens.get(-1).getLiteral();
+        String name = tokens.literal(-1);
         Optional<String> typeName = Optional.empty();
         Optional<Ast.Expr> value = Optional.empty();
 
-        if(match(":")){
+        if(match(Symbol.COLON)){
             if(!match(Token.Type.IDENTIFIER)) {
                 throw new ParseException("Expected Identifier in Method" + " At Index:" + parseIndex(true),
                         parseIndex(true));
             }
-            typeName = Optional.of(tokens.get(-1).getLiteral());
+            typeName = Optional.of(tokens.literal(-1));
         }
 
-        if(match("=")) {
+        if(match(Symbol.EQUALS)) {
             value = Optional.of(parseExpression());
         }
 
-        if(!match(";")) {
+        if(!match(Symbol.SEMICOLON)) {
             throw new ParseException("Expected Semicolon in Declaration Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
@@ -270,11 +396,11 @@ public final class Parser {
      */
     public Ast.Stmt.If parseIfStatement() throws ParseException {
         //'IF' expression 'DO' statement* ('ELSE' statement*)? 'END'
-        match("IF");
+        match(Symbol.IF);
 
         Ast.Expr value = parseExpression();
 
-        if (!match("DO")) {
+        if (!match(Symbol.DO)) {
             if (tokens.has(0)) {
                 throw new ParseException("Expected \"DO\" in If Statement" + " At Index:" + parseIndex(true), parseIndex(true));
             }
@@ -286,23 +412,14 @@ public final class Parser {
         List<Ast.Stmt> thenStatements = new ArrayList<Ast.Stmt>();
         List<Ast.Stmt> elseStatements = new ArrayList<Ast.Stmt>();
 
-        while(!peek("END")) {
-            thenStatements.add(parseStatement());
-            if (peek("ELSE")) {
-                match("ELSE");
-                while(!peek("END")){
-                    elseStatements.add(parseStatement());
-                    if (!tokens.has(0)) {
-                        throw new ParseException("Expected \"END\" in If Statement" + " At Index:" + parseIndex(true), parseIndex(true));
-                    }
-                }
-            }
-            if (!tokens.has(0)) {
-                throw new ParseException("Expected \"END\" in If Statement" + " At Index:" + parseIndex(true), parseIndex(true));
-            }
+        parseBlock(thenStatements, Symbol.ELSE);
+        if (match(Symbol.ELSE)) {
+            parseBlock(elseStatements, Symbol.END);
         }
 
-        match("END");
+        if (!match(Symbol.END)) {
+            throw new ParseException("Expected \"END\" in If Statement" + " At Index:" + parseIndex(tokens.has(0)), parseIndex(tokens.has(0)));
+        }
         return new Ast.Stmt.If(value, thenStatements, elseStatements);
     }
 
@@ -313,31 +430,29 @@ public final class Parser {
      */
     public Ast.Stmt.For parseForStatement() throws ParseException {
         // 'FOR' identifier 'IN' expression 'DO' statement* 'END'
-        match("FOR");
+        match(Symbol.FOR);
 
         if (!match(Token.Type.IDENTIFIER)) {
             throw new ParseException("Expected Identifier in For Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
-        String name = tokens.get(-1).getLiteral();
+        String name = tokens.literal(-1);
 
-        if (!match("IN")) {
+        if (!match(Symbol.IN)) {
             throw new ParseException("Expected \"IN\" in For Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
         Ast.Expr value = parseExpression();
 
-        if (!match("DO")) {
+        if (!match(Symbol.DO)) {
             throw new ParseException("Expected \"DO\" in For Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
         List<Ast.Stmt> stmtArrayList = new ArrayList<>();
-        while(!peek("END")) {
-            stmtArrayList.add(parseStatement());
-        }
+        parseBlock(stmtArrayList, Symbol.END);
 
-        if (!match("END")) {
-            throw new ParseException("Expected \"END\" in For Statement" + " At Index:" + parseIndex(true), parseIndex(true));
+        if (!match(Symbol.END)) {
+            throw new ParseException("Expected \"END\" in For Statement" + " At Index:" + parseIndex(tokens.has(0)), parseIndex(tokens.has(0)));
         }
 
         return new Ast.Stmt.For(name, value, stmtArrayList);
@@ -351,21 +466,19 @@ public final class Parser {
     public Ast.Stmt.While parseWhileStatement() throws ParseException {
         //'WHILE' expression 'DO' statement* 'END'
 
-        match("WHILE");
+        match(Symbol.WHILE);
 
         Ast.Expr value = parseExpression();
 
-        if (!match("DO")) {
+        if (!match(Symbol.DO)) {
             throw new ParseException("Expected \"DO\" in While Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
 
         List<Ast.Stmt> stmtArrayList = new ArrayList<>();
-        while(!peek("END")) {
-            stmtArrayList.add(parseStatement());
-        }
+        parseBlock(stmtArrayList, Symbol.END);
 
-        if (!match("END")) {
-            throw new ParseException("Expected \"END\" in For Statement" + " At Index:" + parseIndex(true), parseIndex(true));
+        if (!match(Symbol.END)) {
+            throw new ParseException("Expected \"END\" in While Statement" + " At Index:" + parseIndex(tokens.has(0)), parseIndex(tokens.has(0)));
         }
 
         return new Ast.Stmt.While(value, stmtArrayList);
@@ -378,11 +491,11 @@ public final class Parser {
      */
     public Ast.Stmt.Return parseReturnStatement() throws ParseException {
         //'RETURN' expression ';'
-        match("RETURN");
+        match(Symbol.RETURN);
 
         Ast.Expr value = parseExpression();
 
-        if(!match(";")) {
+        if(!match(Symbol.SEMICOLON)) {
         throw new ParseException("Expected Semicolon in While Statement" + " At Index:" + parseIndex(true), parseIndex(true));
         }
         return new Ast.Stmt.Return(value);
@@ -395,96 +508,78 @@ public final class Parser {
         return parseLogicalExpression();
     }
 
+    /**
+     * Binding power of each binary operator, indexed by {@link Symbol}
+     * ordinal, with 0 for symbols which are not binary operators. Higher
+     * levels bind tighter, and every level is left associative.
+     */
+    private static final int LOGICAL = 1;
+    private static final int EQUALITY = 2;
+    private static final int ADDITIVE = 3;
+    private static final int MULTIPLICATIVE = 4;
+    private static final int[] PRECEDENCE = new int[Symbol.values().length];
+
+    static {
+        PRECEDENCE[Symbol.AND.ordinal()] = LOGICAL;
+        PRECEDENCE[Symbol.OR.ordinal()] = LOGICAL;
+        PRECEDENCE[Symbol.LESS.ordinal()] = EQUALITY;
+        PRECEDENCE[Symbol.LESS_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Symbol.GREATER.ordinal()] = EQUALITY;
+        PRECEDENCE[Symbol.GREATER_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Symbol.EQUAL_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Symbol.NOT_EQUAL.ordinal()] = EQUALITY;
+        PRECEDENCE[Symbol.PLUS.ordinal()] = ADDITIVE;
+        PRECEDENCE[Symbol.MINUS.ordinal()] = ADDITIVE;
+        PRECEDENCE[Symbol.ASTERISK.ordinal()] = MULTIPLICATIVE;
+        PRECEDENCE[Symbol.SLASH.ordinal()] = MULTIPLICATIVE;
+    }
+
     /**
      * Parses the {@code logical-expression} rule.
      */
     public Ast.Expr parseLogicalExpression() throws ParseException {
-        Ast.Expr expr = parseEqualityExpression();
-        while (match("AND")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseEqualityExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match("OR")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseEqualityExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        return expr;
+        return parseBinaryExpression(LOGICAL);
     }
 
     /**
      * Parses the {@code equality-expression} rule.
      */
     public Ast.Expr parseEqualityExpression() throws ParseException {
-        Ast.Expr expr = parseAdditiveExpression();
-        while (match("<")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseAdditiveExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match("<=")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseAdditiveExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match(">")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseAdditiveExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match(">=")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseAdditiveExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match("==")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseAdditiveExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match("!=")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseAdditiveExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        return expr;
+        return parseBinaryExpression(EQUALITY);
     }
 
     /**
      * Parses the {@code additive-expression} rule.
      */
     public Ast.Expr parseAdditiveExpression() throws ParseException {
-        Ast.Expr expr = parseMultiplicativeExpression();
-        while (match("+")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseMultiplicativeExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match("-")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseMultiplicativeExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        return expr;
+        return parseBinaryExpression(ADDITIVE);
     }
 
     /**
      * Parses the {@code multiplicative-expression} rule.
      */
     public Ast.Expr parseMultiplicativeExpression() throws ParseException {
+        return parseBinaryExpression(MULTIPLICATIVE);
+    }
+
+    /**
+     * Parses a chain of binary operators with at least the given precedence
+     * using precedence climbing. Each operator is looked up once in {@link
+     * #PRECEDENCE}, rather than trying every operator of every level in turn,
+     * and operators of the same level may be mixed (such as {@code a - b + c}).
+     */
+    private Ast.Expr parseBinaryExpression(int precedence) throws ParseException {
         Ast.Expr expr = parseSecondaryExpression();
-        while (match("*")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseSecondaryExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
-        }
-        while (match("/")) {
-            String operator = tokens.get(-1).getLiteral();
-            Ast.Expr right = parseSecondaryExpression();
-            expr = new Ast.Expr.Binary(operator, expr, right);
+        while (true) {
+            Symbol symbol = peekSymbol();
+            int next = symbol == null ? 0 : PRECEDENCE[symbol.ordinal()];
+            if (next < precedence) {
+                return expr;
+            }
+            tokens.advance();
+            Ast.Expr right = parseBinaryExpression(next + 1);
+            expr = new Ast.Expr.Binary(symbol.getLiteral(), expr, right);
         }
-        return expr;
     }
 
     /**
@@ -492,26 +587,23 @@ public final class Parser {
      */
     public Ast.Expr parseSecondaryExpression() throws ParseException {
         Ast.Expr expr = parsePrimaryExpression();
-        List<Ast.Expr> list = new ArrayList<Ast.Expr>();
-        while (match(".")) {
+        while (match(Symbol.PERIOD)) {
             if (!match(Token.Type.IDENTIFIER))
                 throw new ParseException("Token.Type.IDENTIFIER should follow '.'", -1);
             else{
-                String functionName = tokens.get(-1).getLiteral();
-                if (match("(")) {
-                    expr = new Ast.Expr.Function(Optional.of(expr), functionName, list);
-                    while(!match(")")){
-                        list.add(parseExpression());
-                        if (!peek(")")){
-                            if(!peek(",")){
-                                throw new ParseException("Expected Closed Parenthesis in Secondary Expression" + " At Index:" + parseIndex(true), parseIndex(true));
-                            }
-                            else if (peek(")")) {
-                                throw new ParseException("Expected Comma Before Closing Parenthesis" + " At Index:" + parseIndex(true), parseIndex(true));
-                            }
-                            expr = new Ast.Expr.Function(Optional.of(expr), functionName, list);
-                        }
+                String functionName = tokens.literal(-1);
+                if (match(Symbol.LEFT_PAREN)) {
+                    List<Ast.Expr> arguments = new ArrayList<>();
+                    if (!peek(Symbol.RIGHT_PAREN)) {
+                        do {
+                            arguments.add(parseExpression());
+                        } while (match(Symbol.COMMA));
                     }
+                    if (!match(Symbol.RIGHT_PAREN)) {
+                        throw new ParseException("Expected Closed Parenthesis in Secondary Expression" + " At Index:" + parseIndex(tokens.has(0)),
+                                parseIndex(tokens.has(0)));
+                    }
+                    expr = new Ast.Expr.Function(Optional.of(expr), functionName, arguments);
                 }
                 else {
                     expr = new Ast.Expr.Access(Optional.of(expr), functionName);
@@ -529,27 +621,35 @@ public final class Parser {
      * not strictly necessary.
      */
     public Ast.Expr parsePrimaryExpression() throws ParseException {
-        if (match("NIL")) {
-            return new Ast.Expr.Literal(null);
-        } else if (match("TRUE")) {
-            return new Ast.Expr.Literal(true);
-        } else if (match("FALSE")) {
-            return new Ast.Expr.Literal(false);
-        } else if (match(Token.Type.INTEGER)) {
-            BigInteger num = new BigInteger(tokens.get(-1).getLiteral());
+        Symbol symbol = peekSymbol();
+        if (symbol != null) {
+            switch (symbol) {
+                case NIL:
+                    tokens.advance();
+                    return new Ast.Expr.Literal(null);
+                case TRUE:
+                    tokens.advance();
+                    return new Ast.Expr.Literal(true);
+                case FALSE:
+                    tokens.advance();
+                    return new Ast.Expr.Literal(false);
+            }
+        }
+        if (match(Token.Type.INTEGER)) {
+            BigInteger num = new BigInteger(tokens.literal(-1));
             return new Ast.Expr.Literal(num);
         }
         else if (match(Token.Type.DECIMAL)) {
-            BigDecimal num = new BigDecimal(tokens.get(-1).getLiteral());
+            BigDecimal num = new BigDecimal(tokens.literal(-1));
             return new Ast.Expr.Literal(num);
         }
         else if (match(Token.Type.CHARACTER)) {
-            if (tokens.get(-1).getLiteral().length() < 4) {
-                Character character = tokens.get(-1).getLiteral().charAt(1);
+            if (tokens.literal(-1).length() < 4) {
+                Character character = tokens.literal(-1).charAt(1);
                 return new Ast.Expr.Literal(character);
             }
             else {
-                String string = tokens.get(-1).getLiteral();
+                String string = tokens.literal(-1);
                 string = string.replace("\\b", "\b");
                 string = string.replace("\\r", "\r");
                 string = string.replace("\\n", "\n");
@@ -564,7 +664,7 @@ public final class Parser {
         }
 
         else if (match(Token.Type.STRING)) {
-            String string = tokens.get(-1).getLiteral();
+            String string = tokens.literal(-1);
             string = string.replace("\\b", "\b");
             string = string.replace("\\r", "\r");
             string = string.replace("\\n", "\n");
@@ -577,11 +677,11 @@ public final class Parser {
             return new Ast.Expr.Literal(string);
         }
 
-        else if (peek("(")) {
-            match("(");
+        else if (peek(Symbol.LEFT_PAREN)) {
+            match(Symbol.LEFT_PAREN);
             Ast.Expr.Group group = new Ast.Expr.Group(parseExpression());
-            if (peek(")")) {
-                match(")");
+            if (peek(Symbol.RIGHT_PAREN)) {
+                match(Symbol.RIGHT_PAREN);
                 return group;
             } else {
                 if (tokens.has(0)) {
@@ -594,21 +694,21 @@ public final class Parser {
         }
 
         else if (peek(Token.Type.IDENTIFIER)) {
-            String name = tokens.get(0).getLiteral();
+            String name = tokens.literal(0);
             match(Token.Type.IDENTIFIER);
-            if (peek("(")) {
-                match("(");
+            if (peek(Symbol.LEFT_PAREN)) {
+                match(Symbol.LEFT_PAREN);
                 List<Ast.Expr> arguments = new ArrayList<Ast.Expr>();
-                while (!peek(")")) {
+                while (!peek(Symbol.RIGHT_PAREN)) {
                     arguments.add(parseExpression());
-                    if (peek(",")) {
-                        match(",");
-                        if (peek(")")) {
+                    if (peek(Symbol.COMMA)) {
+                        match(Symbol.COMMA);
+                        if (peek(Symbol.RIGHT_PAREN)) {
                             throw new ParseException("Invalid per trailing comma" + " At Index:" + parseIndex(true), parseIndex(true));
                         }
                     }
                 }
-                match(")");
+                match(Symbol.RIGHT_PAREN);
                 return new Ast.Expr.Function(Optional.empty(), name, arguments);
             }
             else {
@@ -634,7 +734,9 @@ public final class Parser {
      * literal is the same.
      *
      * In other words, {@code Token(IDENTIFIER, "literal")} is matched by both
-     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}.
+     * {@code peek(Token.Type.IDENTIFIER)} and {@code peek("literal")}. Keywords
+     * and operators may also be matched by their {@link Symbol}, which compares
+     * the symbol classified by the lexer instead of the literal.
      */
     private boolean peek(Object... patterns) {
         for (int i = 0; i < patterns.length; i++) {
@@ -642,12 +744,17 @@ public final class Parser {
                 return false;
             }
             else if (patterns[i] instanceof Token.Type) {
-                if (patterns[i] != tokens.get(i).getType()) {
+                if (!tokens.isType(i, (Token.Type) patterns[i])) {
+                    return false;
+                }
+            }
+            else if (patterns[i] instanceof Symbol) {
+                if (tokens.symbol(i) != patterns[i]) {
                     return false;
                 }
             }
             else if (patterns[i] instanceof String) {
-                if (!patterns[i].equals(tokens.get(i).getLiteral())) {
+                if (!tokens.hasLiteral(i, (String) patterns[i])) {
                     return false;
                 }
             }
@@ -671,27 +778,151 @@ public final class Parser {
         return peek;
     }
 
+    /**
+     * Returns {@code true} if the next token is the given keyword or operator.
+     * This is the common case of {@link #peek(Object...)}, without the varargs
+     * array or the literal comparison.
+     */
+    private boolean peek(Symbol symbol) {
+        return tokens.has(0) && tokens.symbol(0) == symbol;
+    }
+
+    /**
+     * As {@link #peek(Symbol)}, but also advances the token stream.
+     */
+    private boolean match(Symbol symbol) {
+        boolean peek = peek(symbol);
+        if (peek) {
+            tokens.advance();
+        }
+        return peek;
+    }
+
+    /**
+     * Returns the symbol of the next token, or {@code null} if there is no next
+     * token or it is not a keyword or operator.
+     */
+    private Symbol peekSymbol() {
+        return tokens.has(0) ? tokens.symbol(0) : null;
+    }
+
+    /**
+     * A window over the token source. Tokens are read either directly from a
+     * {@link TokenBuffer} or pulled from an iterator, in which case only the
+     * previous token and a bounded number of lookahead tokens are buffered,
+     * which is all the parser needs ({@code get(-1)} for literals and {@code
+     * peek} for upcoming tokens).
+     */
     private static final class TokenStream {
 
-        private final List<Token> tokens;
+        private static final int LOOKBEHIND = 1;
+        private static final int LOOKAHEAD = 7;
+
+        private final TokenBuffer tokens;
+        private final Iterator<Token> source;
+        private final Token[] buffer;
         private int index = 0;
+        private int size = 0;
+
+        private TokenStream(Iterator<Token> source) {
+            this.tokens = null;
+            this.source = source;
+            this.buffer = new Token[LOOKBEHIND + LOOKAHEAD];
+        }
 
-        private TokenStream(List<Token> tokens) {
+        private TokenStream(TokenBuffer tokens) {
             this.tokens = tokens;
+            this.source = null;
+            this.buffer = null;
         }
 
         /**
          * Returns true if there is a token at index + offset.
          */
         public boolean has(int offset) {
-            return index + offset < tokens.size();
+            if (tokens != null) {
+                return index + offset < tokens.size();
+            }
+            if (offset >= LOOKAHEAD) {
+                throw new IllegalArgumentException("Lookahead of " + offset + " exceeds the token window.");
+            }
+            while (index + offset >= size && source.hasNext()) {
+                buffer[size++ % buffer.length] = source.next();
+            }
+            return index + offset < size;
         }
 
         /**
          * Gets the token at index + offset.
          */
         public Token get(int offset) {
-            return tokens.get(index + offset);
+            if (tokens != null) {
+                return tokens.get(index + offset);
+            }
+            if (offset < -LOOKBEHIND || index + offset < 0 || !has(offset)) {
+                throw new IndexOutOfBoundsException("Token " + (index + offset) + " is outside of the token window.");
+            }
+            return buffer[(index + offset) % buffer.length];
+        }
+
+        /**
+         * Returns true if the token at index + offset has the given type.
+         */
+        public boolean isType(int offset, Token.Type type) {
+            if (tokens != null) {
+                return tokens.isType(index + offset, type);
+            }
+            return get(offset).getType() == type;
+        }
+
+        /**
+         * Returns true if the token at index + offset has the given literal.
+         */
+        public boolean hasLiteral(int offset, String literal) {
+            if (tokens != null) {
+                return tokens.hasLiteral(index + offset, literal);
+            }
+            return get(offset).hasLiteral(literal);
+        }
+
+        /**
+         * Gets the symbol of the token at index + offset, if any.
+         */
+        public Symbol symbol(int offset) {
+            if (tokens != null) {
+                return tokens.getSymbol(index + offset);
+            }
+            return get(offset).getSymbol();
+        }
+
+        /**
+         * Gets the literal of the token at index + offset.
+         */
+        public String literal(int offset) {
+            if (tokens != null) {
+                return tokens.getLiteral(index + offset);
+            }
+            return get(offset).getLiteral();
+        }
+
+        /**
+         * Gets the start index of the token at index + offset.
+         */
+        public int index(int offset) {
+            if (tokens != null) {
+                return tokens.getIndex(index + offset);
+            }
+            return get(offset).getIndex();
+        }
+
+        /**
+         * Gets the literal length of the token at index + offset.
+         */
+        public int length(int offset) {
+            if (tokens != null) {
+                return tokens.getLength(index + offset);
+            }
+            return get(offset).getLength();
         }
 
         /**
@@ -0,0 +1,698 @@
+package plc.project;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * Generates random, syntactically valid programs for stress testing and
+ * benchmarking the pipeline. Programs are built as an {@link Ast.Source} and
+ * can be turned into source text with {@link #print(Ast)}, which the lexer
+ * and parser read back as an equal AST.
+ *
+ * The same seed and knobs always produce the same program. The knobs are:
+ *
+ *  - {@code depth}, the maximum nesting of IF/WHILE/FOR statements
+ *  - {@code branching}, the maximum number of statements per block (and
+ *    parameters/arguments per method/call)
+ *  - {@code expressionDepth}, the maximum depth of expression trees
+ *
+ * Programs from {@link #generate(int)} are only guaranteed to be
+ * syntactically valid, not to pass the {@link Analyzer}; names and types are
+ * chosen at random. Programs from {@link #typed(int)} only use declared names
+ * with matching types, so they also pass the analyzer, run in the
+ * {@link Interpreter} and {@link Compiler}, and can be generated.
+ */
+public final class ProgramGenerator {
+
+    private static final String[] NAMES = {"a", "b", "c", "d", "e", "f", "g", "h", "x", "y", "z"};
+    private static final String[] TYPES = {"Integer", "Decimal", "Boolean", "Character", "String", "Any"};
+    private static final String[][] OPERATORS = {
+            {"AND", "OR"},
+            {"<", "<=", ">", ">=", "==", "!="},
+            {"+", "-"},
+            {"*", "/"},
+    };
+
+    private static final String[] VALUE_TYPES = {"Integer", "Decimal", "Boolean", "Character", "String"};
+    private static final String[] COMPARABLE_TYPES = {"Integer", "Decimal", "Character", "String"};
+
+    private final Random random;
+    private final int depth;
+    private final int branching;
+    private final int expressionDepth;
+
+    /**
+     * The variables in scope while generating a typed program, innermost
+     * last, and the names assigned in each enclosing block.
+     */
+    private final List<Variable> variables = new ArrayList<>();
+    private final List<List<String>> assigned = new ArrayList<>();
+    private int locals = 0;
+
+    public ProgramGenerator(long seed) {
+        this(seed, 3, 4, 3);
+    }
+
+    public ProgramGenerator(long seed, int depth, int branching, int expressionDepth) {
+        this.random = new Random(seed);
+        this.depth = depth;
+        this.branching = branching;
+        this.expressionDepth = expressionDepth;
+    }
+
+    /**
+     * Generates a program whose printed source is at least {@code size}
+     * characters, with roughly one field for every two methods.
+     */
+    public Ast.Source generate(int size) {
+        List<Ast.Method> methods = new ArrayList<>();
+        int length = 0;
+        while (length < size || methods.isEmpty()) {
+            Ast.Method method = method("method" + methods.size());
+            methods.add(method);
+            length += print(method).length() + 1;
+        }
+        List<Ast.Field> fields = new ArrayList<>();
+        for (int i = 0; i < methods.size() / 2; i++) {
+            fields.add(field("field" + i));
+        }
+        return new Ast.Source(fields, methods);
+    }
+
+    /**
+     * Generates a well-typed program whose printed source is at least
+     * {@code size} characters, with one field for every two methods and a
+     * {@code main} method calling every other method once.
+     *
+     * Every variable is declared before it is used, with the type of every
+     * value assigned to it. Loops count up to a small bound, and methods only
+     * call {@code print}, so the program always terminates. The analyzer does
+     * not accept {@code RETURN} statements, groups or uses of parameters in
+     * the method body, so those are never generated, and the operands of
+     * each binary expression bind tightly enough to print without groups.
+     */
+    public Ast.Source typed(int size) {
+        List<Ast.Field> fields = new ArrayList<>();
+        List<Ast.Method> methods = new ArrayList<>();
+        variables.clear();
+        int length = 0;
+        while (length < size || methods.isEmpty()) {
+            if (methods.size() % 2 == 1) {
+                String type = valueType();
+                Ast.Field field = new Ast.Field("field" + fields.size(), type, Optional.of(typedExpression(type, expressionDepth, 0)));
+                variables.add(new Variable(field.getName(), type, -1, false));
+                fields.add(field);
+                length += print(field).length() + 1;
+            }
+            Ast.Method method = typedMethod("method" + methods.size());
+            methods.add(method);
+            length += print(method).length() + 1;
+        }
+        List<Ast.Stmt> calls = new ArrayList<>();
+        for (Ast.Method method : methods) {
+            List<Ast.Expr> arguments = new ArrayList<>();
+            for (String type : method.getParameterTypeNames()) {
+                arguments.add(typedExpression(type, expressionDepth, 0));
+            }
+            calls.add(new Ast.Stmt.Expression(new Ast.Expr.Function(Optional.empty(), method.getName(), arguments)));
+        }
+        methods.add(new Ast.Method("main", new ArrayList<>(), new ArrayList<>(), Optional.of("Integer"), calls));
+        return new Ast.Source(fields, methods);
+    }
+
+    private Ast.Method typedMethod(String name) {
+        List<String> parameters = new ArrayList<>();
+        List<String> parameterTypeNames = new ArrayList<>();
+        int count = random.nextInt(branching + 1);
+        for (int i = 0; i < count; i++) {
+            parameters.add("p" + i);
+            parameterTypeNames.add(valueType());
+        }
+        locals = 0;
+        return new Ast.Method(name, parameters, parameterTypeNames, Optional.of("Integer"), typedBlock(depth, new ArrayList<>()));
+    }
+
+    /**
+     * Returns up to {@code branching} statements after the given ones, which
+     * may nest up to {@code depth} more levels. Variables declared in the
+     * block go out of scope at its end.
+     */
+    private List<Ast.Stmt> typedBlock(int depth, List<Ast.Stmt> statements) {
+        int scope = variables.size();
+        assigned.add(new ArrayList<>());
+        int count = 1 + random.nextInt(branching);
+        for (int i = 0; i < count; i++) {
+            typedStatement(depth, statements);
+        }
+        assigned.remove(assigned.size() - 1);
+        variables.subList(scope, variables.size()).clear();
+        return statements;
+    }
+
+    /**
+     * Adds a statement to the block, or two for a WHILE loop, whose counter
+     * is declared before it.
+     */
+    private void typedStatement(int depth, List<Ast.Stmt> statements) {
+        switch (random.nextInt(depth > 0 ? 7 : 4)) {
+            case 0:
+                statements.add(new Ast.Stmt.Expression(new Ast.Expr.Function(Optional.empty(), "print",
+                        List.of(typedExpression(valueType(), expressionDepth, 0)))));
+                return;
+            case 1:
+            case 2: {
+                // The analyzer defines an assigned variable again in the
+                // current block, so a variable can only be assigned once in
+                // each block, and not in the block declaring it.
+                List<Variable> candidates = new ArrayList<>();
+                for (Variable variable : variables) {
+                    if (!variable.counter && variable.block < assigned.size() - 1
+                            && !assigned.get(assigned.size() - 1).contains(variable.name)) {
+                        candidates.add(variable);
+                    }
+                }
+                if (!candidates.isEmpty()) {
+                    Variable variable = candidates.get(random.nextInt(candidates.size()));
+                    Ast.Expr value = typedExpression(variable.type, expressionDepth, 0);
+                    assigned.get(assigned.size() - 1).add(variable.name);
+                    statements.add(new Ast.Stmt.Assignment(new Ast.Expr.Access(Optional.empty(), variable.name), value));
+                } else {
+                    typedDeclaration(statements);
+                }
+                return;
+            }
+            case 3:
+                typedDeclaration(statements);
+                return;
+            case 4: {
+                Ast.Expr condition = typedExpression("Boolean", expressionDepth, 0);
+                List<Ast.Stmt> thenStatements = typedBlock(depth - 1, new ArrayList<>());
+                List<Ast.Stmt> elseStatements = random.nextBoolean() ? typedBlock(depth - 1, new ArrayList<>()) : new ArrayList<>();
+                statements.add(new Ast.Stmt.If(condition, thenStatements, elseStatements));
+                return;
+            }
+            case 5: {
+                String name = "v" + locals++;
+                Ast.Expr.Access counter = new Ast.Expr.Access(Optional.empty(), name);
+                statements.add(new Ast.Stmt.Declaration(name, Optional.of("Integer"), Optional.of(integer(0))));
+                variables.add(new Variable(name, "Integer", assigned.size() - 1, true));
+                List<Ast.Stmt> body = typedBlock(depth - 1, new ArrayList<>());
+                body.add(new Ast.Stmt.Assignment(counter, new Ast.Expr.Binary("+", counter, integer(1))));
+                statements.add(new Ast.Stmt.While(new Ast.Expr.Binary("<", counter, integer(1 + random.nextInt(4))), body));
+                return;
+            }
+            default: {
+                String name = "v" + locals++;
+                Ast.Expr value = new Ast.Expr.Function(Optional.empty(), "range", List.of(integer(0), integer(1 + random.nextInt(4))));
+                int scope = variables.size();
+                variables.add(new Variable(name, "Integer", assigned.size(), true));
+                List<Ast.Stmt> body = typedBlock(depth - 1, new ArrayList<>());
+                variables.subList(scope, variables.size()).clear();
+                statements.add(new Ast.Stmt.For(name, value, body));
+            }
+        }
+    }
+
+    /**
+     * Adds the declaration of a new variable, with a value of a random type.
+     */
+    private void typedDeclaration(List<Ast.Stmt> statements) {
+        String type = valueType();
+        Ast.Expr value = typedExpression(type, expressionDepth, 0);
+        String name = "v" + locals++;
+        variables.add(new Variable(name, type, assigned.size() - 1, false));
+        statements.add(new Ast.Stmt.Declaration(name, random.nextBoolean() ? Optional.of(type) : Optional.empty(), Optional.of(value)));
+    }
+
+    /**
+     * Returns an expression of the given type and at most the given depth,
+     * which binds at least as tightly as the given precedence without being
+     * grouped.
+     */
+    private Ast.Expr typedExpression(String type, int depth, int precedence) {
+        if (depth > 0 && random.nextInt(3) > 0) {
+            switch (type) {
+                case "Boolean":
+                    if (precedence <= 0 && random.nextBoolean()) {
+                        return new Ast.Expr.Binary(random.nextBoolean() ? "AND" : "OR",
+                                typedExpression(type, depth - 1, 0), typedExpression(type, depth - 1, 1));
+                    } else if (precedence <= 1) {
+                        String operand = COMPARABLE_TYPES[random.nextInt(COMPARABLE_TYPES.length)];
+                        return new Ast.Expr.Binary(OPERATORS[1][random.nextInt(OPERATORS[1].length)],
+                                typedExpression(operand, depth - 1, 2), typedExpression(operand, depth - 1, 2));
+                    }
+                    break;
+                case "Integer":
+                case "Decimal":
+                    if (precedence <= 2 && random.nextBoolean()) {
+                        return new Ast.Expr.Binary(random.nextBoolean() ? "+" : "-",
+                                typedExpression(type, depth - 1, 2), typedExpression(type, depth - 1, 3));
+                    } else if (precedence <= 3) {
+                        // Only literals are multiplied or divided by, so
+                        // values stay small and are never divided by zero.
+                        Ast.Expr right = type.equals("Integer") ? integer(1 + random.nextInt(9))
+                                : new Ast.Expr.Literal(BigDecimal.valueOf(1 + random.nextInt(99), 1));
+                        return new Ast.Expr.Binary(random.nextBoolean() ? "*" : "/", typedExpression(type, depth - 1, 3), right);
+                    }
+                    break;
+                case "String":
+                    // Only the left operand may use variables, so assigning
+                    // in a loop lengthens a string linearly, not doubling it.
+                    if (precedence <= 2) {
+                        Ast.Expr right = random.nextBoolean() ? new Ast.Expr.Literal(name()) : integer(random.nextInt(100));
+                        return new Ast.Expr.Binary("+", typedExpression(type, depth - 1, 2), right);
+                    }
+                    break;
+            }
+        }
+        List<Variable> candidates = new ArrayList<>();
+        for (Variable variable : variables) {
+            if (variable.type.equals(type)) {
+                candidates.add(variable);
+            }
+        }
+        if (!candidates.isEmpty() && random.nextBoolean()) {
+            return new Ast.Expr.Access(Optional.empty(), candidates.get(random.nextInt(candidates.size())).name);
+        }
+        switch (type) {
+            case "Integer":
+                return integer(random.nextInt(100));
+            case "Decimal":
+                return new Ast.Expr.Literal(BigDecimal.valueOf(random.nextInt(10000), 1 + random.nextInt(2)));
+            case "Boolean":
+                return new Ast.Expr.Literal(random.nextBoolean());
+            case "Character":
+                return new Ast.Expr.Literal((char) ('a' + random.nextInt(26)));
+            default:
+                return new Ast.Expr.Literal(name() + " " + name());
+        }
+    }
+
+    private static Ast.Expr integer(int value) {
+        return new Ast.Expr.Literal(BigInteger.valueOf(value));
+    }
+
+    private String valueType() {
+        return VALUE_TYPES[random.nextInt(VALUE_TYPES.length)];
+    }
+
+    public Ast.Field field(String name) {
+        Optional<Ast.Expr> value = random.nextBoolean() ? Optional.of(expression(expressionDepth)) : Optional.empty();
+        return new Ast.Field(name, type(), value);
+    }
+
+    public Ast.Method method(String name) {
+        List<String> parameters = new ArrayList<>();
+        List<String> parameterTypeNames = new ArrayList<>();
+        int count = random.nextInt(branching + 1);
+        for (int i = 0; i < count; i++) {
+            parameters.add("p" + i);
+            parameterTypeNames.add(type());
+        }
+        Optional<String> returnTypeName = random.nextBoolean() ? Optional.of(type()) : Optional.empty();
+        return new Ast.Method(name, parameters, parameterTypeNames, returnTypeName, block(depth));
+    }
+
+    /**
+     * Returns up to {@code branching} statements, which may nest up to {@code
+     * depth} more levels.
+     */
+    public List<Ast.Stmt> block(int depth) {
+        List<Ast.Stmt> statements = new ArrayList<>();
+        int count = 1 + random.nextInt(branching);
+        for (int i = 0; i < count; i++) {
+            statements.add(statement(depth));
+        }
+        return statements;
+    }
+
+    public Ast.Stmt statement(int depth) {
+        int kind = random.nextInt(depth > 0 ? 8 : 5);
+        switch (kind) {
+            case 0:
+                return new Ast.Stmt.Expression(call(expressionDepth));
+            case 1:
+                return new Ast.Stmt.Declaration(name(),
+                        random.nextBoolean() ? Optional.of(type()) : Optional.empty(),
+                        Optional.of(expression(expressionDepth)));
+            case 2:
+            case 3:
+                return new Ast.Stmt.Assignment(new Ast.Expr.Access(Optional.empty(), name()), expression(expressionDepth));
+            case 4:
+                return new Ast.Stmt.Return(expression(expressionDepth));
+            case 5:
+                return new Ast.Stmt.If(expression(expressionDepth), block(depth - 1),
+                        random.nextBoolean() ? block(depth - 1) : new ArrayList<>());
+            case 6:
+                return new Ast.Stmt.While(expression(expressionDepth), block(depth - 1));
+            default:
+                return new Ast.Stmt.For(name(), expression(expressionDepth), block(depth - 1));
+        }
+    }
+
+    /**
+     * Returns an expression tree of at most the given depth.
+     */
+    public Ast.Expr expression(int depth) {
+        return expression(depth, 0);
+    }
+
+    /**
+     * Returns a chain of {@code length} operands joined by random binary
+     * operators, such as {@code a + b * c < d AND e}, which is the shape that
+     * stresses the expression parser the most.
+     */
+    public Ast.Expr chain(int length) {
+        Ast.Expr expr = primary(0);
+        for (int i = 1; i < length; i++) {
+            int precedence = random.nextInt(OPERATORS.length);
+            String operator = OPERATORS[precedence][random.nextInt(OPERATORS[precedence].length)];
+            Ast.Expr left = precedenceOf(expr) < precedence ? new Ast.Expr.Group(expr) : expr;
+            expr = new Ast.Expr.Binary(operator, left, primary(0));
+        }
+        return expr;
+    }
+
+    /**
+     * Returns {@code depth} statements nested inside each other, alternating
+     * between IF, WHILE and FOR.
+     */
+    public Ast.Stmt nested(int depth) {
+        Ast.Stmt stmt = new Ast.Stmt.Expression(call(0));
+        for (int i = 0; i < depth; i++) {
+            List<Ast.Stmt> body = new ArrayList<>();
+            body.add(stmt);
+            switch (i % 3) {
+                case 0:
+                    stmt = new Ast.Stmt.If(expression(1), body, new ArrayList<>());
+                    break;
+                case 1:
+                    stmt = new Ast.Stmt.While(expression(1), body);
+                    break;
+                default:
+                    stmt = new Ast.Stmt.For(name(), expression(1), body);
+                    break;
+            }
+        }
+        return stmt;
+    }
+
+    /**
+     * Returns an expression which binds at least as tightly as the given
+     * precedence (0 for any expression), wrapping it in a group if the chosen
+     * operator binds less tightly, so that printing and parsing it again gives
+     * the same tree.
+     */
+    private Ast.Expr expression(int depth, int precedence) {
+        if (depth <= 0 || random.nextInt(4) == 0) {
+            return primary(depth);
+        }
+        int level = random.nextInt(OPERATORS.length);
+        String operator = OPERATORS[level][random.nextInt(OPERATORS[level].length)];
+        Ast.Expr expr = new Ast.Expr.Binary(operator, expression(depth - 1, level), expression(depth - 1, level + 1));
+        return level < precedence ? new Ast.Expr.Group(expr) : expr;
+    }
+
+    private Ast.Expr primary(int depth) {
+        switch (random.nextInt(depth > 0 ? 10 : 8)) {
+            case 0:
+                return new Ast.Expr.Literal(null);
+            case 1:
+                return new Ast.Expr.Literal(random.nextBoolean());
+            case 2:
+                return new Ast.Expr.Literal(BigInteger.valueOf(random.nextInt(2000) - 1000));
+            case 3:
+                return new Ast.Expr.Literal(BigDecimal.valueOf(random.nextInt(20000) - 10000, 1 + random.nextInt(3)));
+            case 4:
+                return new Ast.Expr.Literal((char) ('a' + random.nextInt(26)));
+            case 5:
+                return new Ast.Expr.Literal(name() + " " + name());
+            case 6:
+                return new Ast.Expr.Access(Optional.empty(), name());
+            case 7:
+                return call(0);
+            case 8:
+                return new Ast.Expr.Access(Optional.of(receiver(depth - 1)), name());
+            default:
+                return call(depth - 1);
+        }
+    }
+
+    private Ast.Expr.Function call(int depth) {
+        Optional<Ast.Expr> receiver = depth > 0 && random.nextBoolean() ? Optional.of(receiver(depth - 1)) : Optional.empty();
+        List<Ast.Expr> arguments = new ArrayList<>();
+        int count = random.nextInt(branching + 1);
+        for (int i = 0; i < count; i++) {
+            arguments.add(expression(depth));
+        }
+        return new Ast.Expr.Function(receiver, name(), arguments);
+    }
+
+    /**
+     * Returns an expression which can be the receiver of a field or method,
+     * which must not be a binary expression or literal.
+     */
+    private Ast.Expr receiver(int depth) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return new Ast.Expr.Access(Optional.empty(), name());
+            case 1:
+                return call(depth);
+            default:
+                return new Ast.Expr.Group(expression(depth));
+        }
+    }
+
+    private String name() {
+        return NAMES[random.nextInt(NAMES.length)];
+    }
+
+    private String type() {
+        return TYPES[random.nextInt(TYPES.length)];
+    }
+
+    /**
+     * A variable in scope while generating a typed program, declared in the
+     * block at the given depth (-1 for fields). Loop counters are never
+     * assigned.
+     */
+    private static final class Variable {
+
+        private final String name;
+        private final String type;
+        private final int block;
+        private final boolean counter;
+
+        private Variable(String name, String type, int block, boolean counter) {
+            this.name = name;
+            this.type = type;
+            this.block = block;
+            this.counter = counter;
+        }
+
+    }
+
+    private static int precedenceOf(Ast.Expr expr) {
+        if (expr instanceof Ast.Expr.Binary) {
+            String operator = ((Ast.Expr.Binary) expr).getOperator();
+            for (int i = 0; i < OPERATORS.length; i++) {
+                for (String candidate : OPERATORS[i]) {
+                    if (candidate.equals(operator)) {
+                        return i;
+                    }
+                }
+            }
+        }
+        return OPERATORS.length;
+    }
+
+    /**
+     * Prints an AST as source code.
+     */
+    public static String print(Ast ast) {
+        Printer printer = new Printer();
+        printer.visit(ast);
+        return printer.builder.toString();
+    }
+
+    private static final class Printer implements Ast.Visitor<Void> {
+
+        private final StringBuilder builder = new StringBuilder();
+        private int indent = 0;
+
+        private void print(Object... objects) {
+            for (Object object : objects) {
+                if (object instanceof Ast) {
+                    visit((Ast) object);
+                } else {
+                    builder.append(object);
+                }
+            }
+        }
+
+        private void newline() {
+            builder.append('\n');
+            for (int i = 0; i < indent; i++) {
+                builder.append("    ");
+            }
+        }
+
+        private void block(List<Ast.Stmt> statements) {
+            indent++;
+            for (Ast.Stmt stmt : statements) {
+                newline();
+                print(stmt);
+            }
+            indent--;
+            newline();
+        }
+
+        private void arguments(List<Ast.Expr> arguments) {
+            print("(");
+            for (int i = 0; i < arguments.size(); i++) {
+                print(i == 0 ? "" : ", ", arguments.get(i));
+            }
+            print(")");
+        }
+
+        @Override
+        public Void visit(Ast.Source ast) {
+            for (Ast.Field field : ast.getFields()) {
+                print(field, "\n");
+            }
+            for (Ast.Method method : ast.getMethods()) {
+                print(method, "\n");
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Field ast) {
+            print("LET ", ast.getName(), ": ", ast.getTypeName());
+            ast.getValue().ifPresent(value -> print(" = ", value));
+            print(";");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Method ast) {
+            print("DEF ", ast.getName(), "(");
+            for (int i = 0; i < ast.getParameters().size(); i++) {
+                print(i == 0 ? "" : ", ", ast.getParameters().get(i), ": ", ast.getParameterTypeNames().get(i));
+            }
+            print(")");
+            ast.getReturnTypeName().ifPresent(type -> print(": ", type));
+            print(" DO");
+            block(ast.getStatements());
+            print("END");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Expression ast) {
+            print(ast.getExpression(), ";");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Declaration ast) {
+            print("LET ", ast.getName());
+            ast.getTypeName().ifPresent(type -> print(": ", type));
+            ast.getValue().ifPresent(value -> print(" = ", value));
+            print(";");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Assignment ast) {
+            print(ast.getReceiver(), " = ", ast.getValue(), ";");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.If ast) {
+            print("IF ", ast.getCondition(), " DO");
+            block(ast.getThenStatements());
+            if (!ast.getElseStatements().isEmpty()) {
+                print("ELSE");
+                block(ast.getElseStatements());
+            }
+            print("END");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.For ast) {
+            print("FOR ", ast.getName(), " IN ", ast.getValue(), " DO");
+            block(ast.getStatements());
+            print("END");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.While ast) {
+            print("WHILE ", ast.getCondition(), " DO");
+            block(ast.getStatements());
+            print("END");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Stmt.Return ast) {
+            print("RETURN ", ast.getValue(), ";");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Literal ast) {
+            Object literal = ast.getLiteral();
+            if (literal == null) {
+                print("NIL");
+            } else if (literal instanceof Boolean) {
+                print((Boolean) literal ? "TRUE" : "FALSE");
+            } else if (literal instanceof BigDecimal) {
+                print(((BigDecimal) literal).toPlainString());
+            } else if (literal instanceof Character) {
+                print("'", literal, "'");
+            } else if (literal instanceof String) {
+                print("\"", literal, "\"");
+            } else {
+                print(literal);
+            }
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Group ast) {
+            print("(", ast.getExpression(), ")");
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Binary ast) {
+            print(ast.getLeft(), " ", ast.getOperator(), " ", ast.getRight());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Access ast) {
+            ast.getReceiver().ifPresent(receiver -> print(receiver, "."));
+            print(ast.getName());
+            return null;
+        }
+
+        @Override
+        public Void visit(Ast.Expr.Function ast) {
+            ast.getReceiver().ifPresent(receiver -> print(receiver, "."));
+            print(ast.getName());
+            arguments(ast.getArguments());
+            return null;
+        }
+
+    }
+
+}
@@ -0,0 +1,197 @@
+package plc.project;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves the variables of a source to slots in array-backed frames, so the
+ * {@link Interpreter} can access them by index instead of looking up names.
+ * Each {@link Ast.Field}, {@link Ast.Stmt.Declaration}, {@link Ast.Stmt.For}
+ * and {@link Ast.Expr.Access} is given a depth and slot, and each
+ * {@link Ast.Method} the size of its frame.
+ *
+ * Depth {@link #LOCAL} is the frame of the enclosing method, where parameters
+ * take the first slots and every other local its own slot after them. Depth
+ * {@link #FIELD} is the frame of the source's fields. A name which is not
+ * declared in the source, such as a variable in the interpreter's parent
+ * scope, is left unresolved and looked up by name at runtime.
+ */
+public final class Resolver implements Ast.Visitor<Void> {
+
+    public static final int LOCAL = 0;
+    public static final int FIELD = 1;
+
+    /**
+     * The symbol table, with one scope for the fields and one for each block.
+     */
+    private Scope scope = new Scope(null);
+    private final Map<Environment.Variable, int[]> slots = new IdentityHashMap<>();
+    private int fields = 0;
+    private int size = 0;
+
+    @Override
+    public Void visit(Ast.Source ast) {
+        for (Ast.Field field : ast.getFields()) {
+            visit(field);
+        }
+        for (Ast.Method method : ast.getMethods()) {
+            visit(method);
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Field ast) {
+        if (ast.getValue().isPresent()) {
+            visit(ast.getValue().get());
+        }
+        int slot = fields++;
+        define(ast.getName(), FIELD, slot);
+        ast.setSlot(FIELD, slot);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Method ast) {
+        scope = new Scope(scope);
+        size = 0;
+        try {
+            for (String parameter : ast.getParameters()) {
+                define(parameter, LOCAL, size++);
+            }
+            for (Ast.Stmt stmt : ast.getStatements()) {
+                visit(stmt);
+            }
+            ast.setFrameSize(size);
+        } finally {
+            scope = scope.getParent();
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Expression ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Declaration ast) {
+        if (ast.getValue().isPresent()) {
+            visit(ast.getValue().get());
+        }
+        int slot = size++;
+        define(ast.getName(), LOCAL, slot);
+        ast.setSlot(LOCAL, slot);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Assignment ast) {
+        visit(ast.getReceiver());
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.If ast) {
+        visit(ast.getCondition());
+        visitBlock(ast.getThenStatements());
+        visitBlock(ast.getElseStatements());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.For ast) {
+        visit(ast.getValue());
+        scope = new Scope(scope);
+        try {
+            int slot = size++;
+            define(ast.getName(), LOCAL, slot);
+            ast.setSlot(LOCAL, slot);
+            for (Ast.Stmt stmt : ast.getStatements()) {
+                visit(stmt);
+            }
+        } finally {
+            scope = scope.getParent();
+        }
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.While ast) {
+        visit(ast.getCondition());
+        visitBlock(ast.getStatements());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Stmt.Return ast) {
+        visit(ast.getValue());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Literal ast) {
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Group ast) {
+        visit(ast.getExpression());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Binary ast) {
+        visit(ast.getLeft());
+        visit(ast.getRight());
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Access ast) {
+        if (ast.getReceiver().isPresent()) {
+            visit(ast.getReceiver().get());
+            return null;
+        }
+        Environment.Variable variable;
+        try {
+            variable = scope.lookupVariable(ast.getName());
+        } catch (RuntimeException e) {
+            return null;
+        }
+        int[] resolved = slots.get(variable);
+        ast.setSlot(resolved[0], resolved[1]);
+        return null;
+    }
+
+    @Override
+    public Void visit(Ast.Expr.Function ast) {
+        if (ast.getReceiver().isPresent()) {
+            visit(ast.getReceiver().get());
+        }
+        for (Ast.Expr argument : ast.getArguments()) {
+            visit(argument);
+        }
+        return null;
+    }
+
+    private void visitBlock(List<Ast.Stmt> statements) {
+        scope = new Scope(scope);
+        try {
+            for (Ast.Stmt stmt : statements) {
+                visit(stmt);
+            }
+        } finally {
+            scope = scope.getParent();
+        }
+    }
+
+    private void define(String name, int depth, int slot) {
+        Environment.Variable variable = scope.defineVariable(name, name, Environment.Type.ANY, Environment.NIL);
+        slots.put(variable, new int[] {depth, slot});
+    }
+
+}
@@ -0,0 +1,225 @@
+package plc.project;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Compiles the Java source written by the {@link Generator} in memory with
+ * the system {@link JavaCompiler}, and loads the resulting {@code Main}
+ * class. No files are written and no {@code javac} process is started.
+ *
+ * Compiled classes are cached by a SHA-256 hash of their source, so
+ * compiling the same program again only generates its source. The cache
+ * holds a bounded number of classes and evicts the least recently used, so
+ * the class loaders of old programs can be collected. Each source is
+ * compiled outside of the cache's lock, and threads compiling the same
+ * source at once wait for a single compilation. The compiler and its file
+ * manager are created once and reused, since creating them is a large part
+ * of the cost of a compilation.
+ */
+public final class SourceCompiler {
+
+    private static final String CLASS_NAME = "Main";
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private final JavaCompiler compiler;
+    private final StandardJavaFileManager files;
+    private final Map<String, FutureTask<Class<?>>> cache;
+
+    public SourceCompiler() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a compiler whose cache holds at most {@code capacity} classes.
+     */
+    public SourceCompiler(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Expected a cache capacity of at least 1, received " + capacity + ".");
+        }
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, FutureTask<Class<?>>> eldest) {
+                return size() > capacity;
+            }
+
+        };
+        compiler = ToolProvider.getSystemJavaCompiler();
+        if (compiler == null) {
+            throw new IllegalStateException("No Java compiler is available, which requires running on a JDK.");
+        }
+        files = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the Java source of an analyzed source, as written by the
+     * {@link Generator}.
+     */
+    public static String generate(Ast.Source ast) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        return writer.toString();
+    }
+
+    /**
+     * Generates, compiles and loads the {@code Main} class of an analyzed
+     * source.
+     */
+    public Class<?> compile(Ast.Source ast) {
+        return compile(generate(ast));
+    }
+
+    /**
+     * Compiles and loads a {@code Main} class from its Java source, or returns
+     * the cached class if the same source has been compiled before.
+     */
+    public Class<?> compile(String source) {
+        String hash = Hashes.sha256(source);
+        FutureTask<Class<?>> task = new FutureTask<>(() -> load(source));
+        FutureTask<Class<?>> cached;
+        synchronized (cache) {
+            cached = cache.putIfAbsent(hash, task);
+        }
+        if (cached == null) {
+            cached = task;
+            task.run();
+        }
+        try {
+            return cached.get();
+        } catch (ExecutionException e) {
+            // Failed compilations are not cached.
+            synchronized (cache) {
+                cache.remove(hash, cached);
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            } else if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for another thread to compile the same source.", e);
+        }
+    }
+
+    /**
+     * Compiles an analyzed source and returns the result of calling
+     * {@code main()} on a new instance of its class. Unlike the generated
+     * {@code main(String[])}, this does not exit the JVM.
+     */
+    public int run(Ast.Source ast) {
+        Class<?> type = compile(ast);
+        try {
+            Constructor<?> constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+            Method main = type.getDeclaredMethod("main");
+            main.setAccessible(true);
+            return (Integer) main.invoke(constructor.newInstance());
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Expected a class with a main() method returning int.", e);
+        }
+    }
+
+    /**
+     * Returns the number of compiled classes in the cache.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private Class<?> load(String source) {
+        Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject input = new SimpleJavaFileObject(URI.create("string:///" + CLASS_NAME + ".java"), JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+
+        };
+        JavaFileManager output = new ForwardingJavaFileManager<JavaFileManager>(files) {
+
+            @Override
+            public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+                return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+
+                    @Override
+                    public OutputStream openOutputStream() {
+                        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                        classes.put(className, bytes);
+                        return bytes;
+                    }
+
+                };
+            }
+
+        };
+        // The standard file manager is shared, and is not safe to use from
+        // multiple compilations at once.
+        boolean success;
+        synchronized (files) {
+            success = compiler.getTask(null, output, diagnostics, null, null, Collections.singletonList(input)).call();
+        }
+        if (!success) {
+            StringBuilder message = new StringBuilder("Failed to compile generated source:");
+            for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+                message.append(System.lineSeparator())
+                        .append("line ").append(diagnostic.getLineNumber()).append(": ")
+                        .append(diagnostic.getMessage(null));
+            }
+            throw new RuntimeException(message.toString());
+        }
+        ClassLoader loader = new ClassLoader(SourceCompiler.class.getClassLoader()) {
+
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                ByteArrayOutputStream bytes = classes.get(name);
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+                byte[] bytecode = bytes.toByteArray();
+                return defineClass(name, bytecode, 0, bytecode.length);
+            }
+
+        };
+        try {
+            return loader.loadClass(CLASS_NAME);
+        } catch (ClassNotFoundException e) {
+            throw new RuntimeException("Expected the generated source to declare class " + CLASS_NAME + ".", e);
+        }
+    }
+
+}
@@ -1,5 +1,7 @@
 package plc.project;
 
+import java.util.Arrays;
+
 public final class Token {
 
     public enum Type {
@@ -11,14 +13,166 @@ public final class Token {
         OPERATOR
     }
 
+    /**
+     * The keywords and operators of the language. Lexed tokens are classified
+     * into a symbol once, so the parser can compare (and switch on) symbols
+     * instead of comparing literals.
+     * <p>
+     * Symbols are found with a perfect hash of the first character, last
+     * character and length of the literal, which are distinct for every
+     * symbol. The hash seed is chosen when the class is initialized so that
+     * the table has no collisions.
+     */
+    public enum Symbol {
+        LET("LET"),
+        DEF("DEF"),
+        DO("DO"),
+        END("END"),
+        IF("IF"),
+        ELSE("ELSE"),
+        FOR("FOR"),
+        IN("IN"),
+        WHILE("WHILE"),
+        RETURN("RETURN"),
+        AND("AND"),
+        OR("OR"),
+        NIL("NIL"),
+        TRUE("TRUE"),
+        FALSE("FALSE"),
+        LEFT_PAREN("("),
+        RIGHT_PAREN(")"),
+        COMMA(","),
+        SEMICOLON(";"),
+        COLON(":"),
+        PERIOD("."),
+        EQUALS("="),
+        PLUS("+"),
+        MINUS("-"),
+        ASTERISK("*"),
+        SLASH("/"),
+        LESS("<"),
+        LESS_EQUAL("<="),
+        GREATER(">"),
+        GREATER_EQUAL(">="),
+        EQUAL_EQUAL("=="),
+        NOT_EQUAL("!=");
+
+        private static final Symbol[] TABLE = new Symbol[128];
+        private static final int SEED;
+
+        static {
+            int seed = 1;
+            while (!fill(seed)) {
+                if (++seed > 1 << 16) {
+                    throw new AssertionError("No perfect hash seed for the symbol table.");
+                }
+            }
+            SEED = seed;
+        }
+
+        private static boolean fill(int seed) {
+            Arrays.fill(TABLE, null);
+            for (Symbol symbol : values()) {
+                String literal = symbol.literal;
+                int hash = hash(seed, literal.charAt(0), literal.charAt(literal.length() - 1), literal.length());
+                if (TABLE[hash] != null) {
+                    return false;
+                }
+                TABLE[hash] = symbol;
+            }
+            return true;
+        }
+
+        private static int hash(int seed, char first, char last, int length) {
+            return (first * seed + last * 31 + length) & (TABLE.length - 1);
+        }
+
+        private final String literal;
+
+        Symbol(String literal) {
+            this.literal = literal;
+        }
+
+        public String getLiteral() {
+            return literal;
+        }
+
+        /**
+         * Returns the only symbol which could have a literal with the given
+         * first character, last character and length, or {@code null}. The
+         * caller still needs to compare the full literal.
+         */
+        static Symbol candidate(char first, char last, int length) {
+            return TABLE[hash(SEED, first, last, length)];
+        }
+
+        /**
+         * Returns the symbol for {@code source[start, end)}, or {@code null}.
+         */
+        public static Symbol lookup(String source, int start, int end) {
+            if (end <= start) {
+                return null;
+            }
+            Symbol symbol = candidate(source.charAt(start), source.charAt(end - 1), end - start);
+            if (symbol != null && symbol.literal.length() == end - start
+                    && source.regionMatches(start, symbol.literal, 0, end - start)) {
+                return symbol;
+            }
+            return null;
+        }
+
+        public static Symbol lookup(String literal) {
+            return lookup(literal, 0, literal.length());
+        }
+
+    }
+
     private final Type type;
-    private final String literal;
+    private final String source;
     private final int index;
+    private final int length;
+    private final Symbol symbol;
+    private String literal;
 
     public Token(Type type, String literal, int index) {
+        this(type, literal, index, symbolOf(type, literal, 0, literal.length()));
+    }
+
+    /**
+     * Creates a token whose symbol has already been classified by the lexer.
+     */
+    Token(Type type, String literal, int index, Symbol symbol) {
         this.type = type;
+        this.source = null;
         this.literal = literal;
         this.index = index;
+        this.length = literal.length();
+        this.symbol = symbol;
+    }
+
+    /**
+     * Creates a token which refers to {@code source[index, index + length)}
+     * instead of holding a copy of its literal. The literal is only created
+     * if {@link #getLiteral()} is called.
+     */
+    Token(Type type, String source, int index, int length) {
+        this.type = type;
+        this.source = source;
+        this.literal = null;
+        this.index = index;
+        this.length = length;
+        this.symbol = symbolOf(type, source, index, index + length);
+    }
+
+    /**
+     * Only identifiers and operators can be symbols; a string literal such as
+     * {@code "LET"} is not the keyword.
+     */
+    static Symbol symbolOf(Type type, String source, int start, int end) {
+        if (type != Type.IDENTIFIER && type != Type.OPERATOR) {
+            return null;
+        }
+        return Symbol.lookup(source, start, end);
     }
 
     public Type getType() {
@@ -26,6 +180,9 @@ public final class Token {
     }
 
     public String getLiteral() {
+        if (literal == null) {
+            literal = source.substring(index, index + length);
+        }
         return literal;
     }
 
@@ -33,17 +190,50 @@ public final class Token {
         return index;
     }
 
+    /**
+     * Returns the keyword or operator this token is, or {@code null}.
+     */
+    public Symbol getSymbol() {
+        return symbol;
+    }
+
+    /**
+     * Returns the length of the literal without creating it.
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * Returns true if the literal is equal to {@code literal}, without creating
+     * the literal for tokens which are slices of the source.
+     */
+    public boolean hasLiteral(String literal) {
+        if (this.literal != null) {
+            return this.literal.equals(literal);
+        }
+        return length == literal.length() && source.regionMatches(index, literal, 0, length);
+    }
+
+    /**
+     * Returns this token moved by {@code offset} characters, such as after an
+     * edit earlier in the source.
+     */
+    Token shift(int offset) {
+        return offset == 0 ? this : new Token(type, getLiteral(), index + offset, symbol);
+    }
+
     @Override
     public boolean equals(Object obj) {
         return obj instanceof Token
                 && type == ((Token) obj).type
-                && literal.equals(((Token) obj).literal)
-                && index == ((Token) obj).index;
+                && index == ((Token) obj).index
+                && ((Token) obj).hasLiteral(getLiteral());
     }
 
     @Override
     public String toString() {
-        return type + "=" + literal + "@" + index;
+        return type + "=" + getLiteral() + "@" + index;
     }
 
 }
@@ -0,0 +1,114 @@
+package plc.project;
+
+import java.util.Arrays;
+
+/**
+ * A compact, struct-of-arrays list of tokens over a shared source string.
+ * Each token is stored as a {@code byte} type (the {@link Token.Type}
+ * ordinal), a {@code byte} symbol (the {@link Token.Symbol} ordinal plus one,
+ * or zero for none), an {@code int} start index and an {@code int} length,
+ * which is 10 bytes per token instead of a {@link Token} object and its
+ * literal.
+ *
+ * Literals are only created when requested through {@link #getLiteral(int)}
+ * or {@link #get(int)}, and {@link #hasLiteral(int, String)} compares against
+ * the source directly.
+ */
+public final class TokenBuffer {
+
+    private static final Token.Type[] TYPES = Token.Type.values();
+    private static final Token.Symbol[] SYMBOLS = Token.Symbol.values();
+
+    private final String source;
+    private byte[] types = new byte[64];
+    private byte[] symbols = new byte[64];
+    private int[] starts = new int[64];
+    private int[] lengths = new int[64];
+    private int size = 0;
+
+    public TokenBuffer(String source) {
+        this.source = source;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void add(Token.Type type, int start, int length) {
+        add(type, start, length, Token.symbolOf(type, source, start, start + length));
+    }
+
+    /**
+     * Adds a token whose symbol has already been classified by the lexer.
+     */
+    public void add(Token.Type type, int start, int length, Token.Symbol symbol) {
+        if (size == types.length) {
+            types = Arrays.copyOf(types, size * 2);
+            symbols = Arrays.copyOf(symbols, size * 2);
+            starts = Arrays.copyOf(starts, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        types[size] = (byte) type.ordinal();
+        symbols[size] = (byte) (symbol == null ? 0 : symbol.ordinal() + 1);
+        starts[size] = start;
+        lengths[size] = length;
+        size++;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Token.Type getType(int i) {
+        return TYPES[types[check(i)]];
+    }
+
+    /**
+     * Returns true if the token at {@code i} has the given type, comparing the
+     * stored ordinal without decoding it.
+     */
+    public boolean isType(int i, Token.Type type) {
+        return types[check(i)] == type.ordinal();
+    }
+
+    /**
+     * Returns the keyword or operator the token at {@code i} is, or {@code
+     * null}.
+     */
+    public Token.Symbol getSymbol(int i) {
+        int symbol = symbols[check(i)];
+        return symbol == 0 ? null : SYMBOLS[symbol - 1];
+    }
+
+    public int getIndex(int i) {
+        return starts[check(i)];
+    }
+
+    public int getLength(int i) {
+        return lengths[check(i)];
+    }
+
+    public String getLiteral(int i) {
+        return source.substring(starts[check(i)], starts[i] + lengths[i]);
+    }
+
+    public boolean hasLiteral(int i, String literal) {
+        return lengths[check(i)] == literal.length() && source.regionMatches(starts[i], literal, 0, lengths[i]);
+    }
+
+    /**
+     * Returns the token at {@code i} as a {@link Token}, which refers to the
+     * source rather than copying its literal.
+     */
+    public Token get(int i) {
+        return new Token(TYPES[types[check(i)]], source, starts[i], lengths[i]);
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + " is out of bounds for " + size + " tokens.");
+        }
+        return i;
+    }
+
+}
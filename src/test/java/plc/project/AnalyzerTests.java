@@ -1,6 +1,7 @@
 package plc.project;
 
 import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -375,6 +376,23 @@ public final class AnalyzerTests {
         );
     }
 
+    @Test
+    public void testShadowedBuiltin() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF range(start: Integer, end: Integer): Integer DO",
+                "    print(1);",
+                "END",
+                "DEF main(): Integer DO",
+                "    print(range(1, 2));",
+                "END"
+        )).lex()).parseSource();
+        new Analyzer(null).visit(ast);
+        Ast.Expr.Function print = (Ast.Expr.Function) ((Ast.Stmt.Expression) ast.getMethods().get(1).getStatements().get(0)).getExpression();
+        Ast.Expr.Function range = (Ast.Expr.Function) print.getArguments().get(0);
+        Assertions.assertEquals(ast.getMethods().get(0).getFunction(), range.getFunction());
+        Assertions.assertEquals(Environment.Type.INTEGER, range.getType());
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource
     public void testFunctionExpression(String test, Ast.Expr.Function ast, Ast.Expr.Function expected) {
@@ -0,0 +1,161 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+final class AstCacheTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSerialize(String test, String input) {
+        Ast.Source ast = parse(input);
+        Assertions.assertEquals(ast, AstCache.deserialize(ByteBuffer.wrap(AstCache.serialize(ast))));
+        new Analyzer(null).visit(ast);
+        Ast.Source analyzed = AstCache.deserialize(ByteBuffer.wrap(AstCache.serialize(ast)));
+        Assertions.assertEquals(ast, analyzed);
+        Assertions.assertEquals(generate(ast), generate(analyzed));
+    }
+
+    private static Stream<Arguments> testSerialize() {
+        return Stream.of(
+                Arguments.of("Main", String.join("\n",
+                        "DEF main(): Integer DO",
+                        "    print(\"Hello, World!\");",
+                        "END"
+                )),
+                Arguments.of("Fields", String.join("\n",
+                        "LET count: Integer = 0;",
+                        "LET name: String;",
+                        "DEF main(): Integer DO",
+                        "    WHILE count < 3 DO",
+                        "        count = count + 1;",
+                        "    END",
+                        "    print(name.slice(1, count));",
+                        "END"
+                )),
+                Arguments.of("Literals", String.join("\n",
+                        "DEF log(): Nil DO",
+                        "    print(\"caf\u00e9\\n\");",
+                        "END",
+                        "DEF main(): Integer DO",
+                        "    LET big: Integer = 1234567890;",
+                        "    LET decimal: Decimal = 0.125;",
+                        "    FOR i IN range(0, 5) DO",
+                        "        IF i > 2 AND TRUE DO",
+                        "            big = big + i;",
+                        "        ELSE",
+                        "            log();",
+                        "            print('c');",
+                        "        END",
+                        "    END",
+                        "END"
+                ))
+        );
+    }
+
+    @Test
+    void testMalformed() {
+        byte[] bytes = AstCache.serialize(parse("DEF main(): Integer DO print(1); END"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstCache.deserialize(ByteBuffer.wrap(new byte[] {1, 2, 3})));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstCache.deserialize(ByteBuffer.wrap(bytes, 0, bytes.length - 1)));
+        byte[] corrupted = bytes.clone();
+        corrupted[corrupted.length - 2] ^= 1;
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstCache.deserialize(ByteBuffer.wrap(corrupted)));
+    }
+
+    @Test
+    void testMalformedCount() {
+        // A string table of -1 strings, as a varint, with a valid checksum.
+        byte[] body = {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F};
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstCache.deserialize(serialized(body)));
+        // A string table of 1000 strings in only four bytes.
+        Assertions.assertThrows(IllegalArgumentException.class, () -> AstCache.deserialize(serialized(new byte[] {(byte) 0xE8, 0x07, 0, 0, 0, 0})));
+    }
+
+    private static ByteBuffer serialized(byte[] body) {
+        byte[] header = AstCache.serialize(new Ast.Source(Arrays.asList(), Arrays.asList()));
+        CRC32 checksum = new CRC32();
+        checksum.update(body);
+        ByteBuffer buffer = ByteBuffer.allocate(9 + body.length);
+        buffer.put(header, 0, 5).putInt((int) checksum.getValue()).put(body).flip();
+        return buffer;
+    }
+
+    @Test
+    void testCache() throws IOException {
+        Path directory = Files.createTempDirectory("ast");
+        try {
+            String source = "DEF main(): Integer DO print(1); END";
+            AstCache cache = new AstCache(directory);
+            Assertions.assertEquals(parse(source), cache.parse(source));
+            Path path = directory.resolve(Hashes.sha256(source) + ".ast");
+            Assertions.assertTrue(Files.exists(path));
+
+            // Replaces the cached file, so the source is only loaded from it
+            // if it is not parsed again.
+            Ast.Source other = parse("DEF main(): Integer DO print(2); END");
+            Files.write(path, AstCache.serialize(other));
+            Assertions.assertEquals(other, cache.parse(source));
+
+            byte[] corrupted = AstCache.serialize(parse(source));
+            corrupted[corrupted.length - 2] ^= 1;
+            Files.write(path, corrupted);
+            Assertions.assertEquals(parse(source), cache.parse(source));
+            Assertions.assertArrayEquals(AstCache.serialize(parse(source)), Files.readAllBytes(path));
+
+            Files.write(path, new byte[] {1, 2, 3});
+            Assertions.assertEquals(parse(source), cache.parse(source));
+            Assertions.assertEquals(parse(source), new AstCache(directory).parse(source));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testAnalyze() throws IOException {
+        Path directory = Files.createTempDirectory("ast");
+        try {
+            String source = "LET x: Integer = 1; DEF main(): Integer DO print(x + 1); END";
+            Ast.Source ast = parse(source);
+            new Analyzer(null).visit(ast);
+            Assertions.assertEquals(generate(ast), generate(new AstCache(directory).analyze(source)));
+            Assertions.assertEquals(generate(ast), generate(new AstCache(directory).analyze(source)));
+            Assertions.assertTrue(Files.exists(directory.resolve(Hashes.sha256(source) + ".analyzed.ast")));
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseSource();
+    }
+
+    private static String generate(Ast.Source ast) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        return writer.toString();
+    }
+
+    private static void delete(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+final class BytecodeGeneratorTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSource(String test, String input, String expected) throws ReflectiveOperationException {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        new Analyzer(null).visit(ast);
+        Assertions.assertEquals(expected, run(ast)[1]);
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Hello, World!", String.join("\n",
+                        "DEF main(): Integer DO",
+                        "    print(\"Hello, World!\");",
+                        "END"
+                ), lines("Hello, World!")),
+                Arguments.of("Fields", String.join("\n",
+                        "LET count: Integer = 0;",
+                        "LET name: String = \"plc\";",
+                        "DEF main(): Integer DO",
+                        "    WHILE count < 3 DO",
+                        "        count = count + 1;",
+                        "    END",
+                        "    print(name + count);",
+                        "    print(name.length);",
+                        "    print(name.slice(1, 3));",
+                        "END"
+                ), lines("plc3", "3", "lc")),
+                Arguments.of("Operators", String.join("\n",
+                        "DEF main(): Integer DO",
+                        "    print(1 + 2 * 3 - 8 / 3);",
+                        "    print(1.5 * 2.0);",
+                        "    print(1 < 2 AND 2.0 >= 2.5);",
+                        "    print(\"a\" < \"b\" OR 1 / 0 == 0);",
+                        "    print('a' != 'b');",
+                        "    print(\"a\" + 'b' + 1.5 + TRUE);",
+                        "END"
+                ), lines("5", "3.0", "false", "true", "true", "ab1.5true")),
+                Arguments.of("Loops", String.join("\n",
+                        "DEF log(): Nil DO",
+                        "    print(\"done\");",
+                        "END",
+                        "DEF main(): Integer DO",
+                        "    LET total: Integer = 0;",
+                        "    FOR i IN range(0, 5) DO",
+                        "        LET square = i * i;",
+                        "        IF square > 5 DO",
+                        "            total = total + square;",
+                        "        ELSE",
+                        "            print(square);",
+                        "        END",
+                        "    END",
+                        "    print(total);",
+                        "    log();",
+                        "END"
+                ), lines("0", "1", "4", "25", "done"))
+        );
+    }
+
+    @Test
+    void testReturn() throws ReflectiveOperationException {
+        // DEF main(): Integer DO RETURN square(7); END
+        // DEF square(x: Integer): Integer DO RETURN x * x; END
+        Environment.Function square = new Environment.Function("square", "square", Arrays.asList(Environment.Type.INTEGER), Environment.Type.INTEGER, args -> Environment.NIL);
+        Ast.Source source = new Ast.Source(Arrays.asList(), Arrays.asList(
+                init(new Ast.Method("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Stmt.Return(init(new Ast.Expr.Function(Optional.empty(), "square", Arrays.asList(
+                                init(new Ast.Expr.Literal(BigInteger.valueOf(7)), ast -> ast.setType(Environment.Type.INTEGER))
+                        )), ast -> ast.setFunction(square)))
+                )), ast -> ast.setFunction(new Environment.Function("main", "main", Arrays.asList(), Environment.Type.INTEGER, args -> Environment.NIL))),
+                init(new Ast.Method("square", Arrays.asList("x"), Arrays.asList("Integer"), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Stmt.Return(init(new Ast.Expr.Binary("*",
+                                init(new Ast.Expr.Access(Optional.empty(), "x"), ast -> ast.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, Environment.NIL))),
+                                init(new Ast.Expr.Access(Optional.empty(), "x"), ast -> ast.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, Environment.NIL)))
+                        ), ast -> ast.setType(Environment.Type.INTEGER)))
+                )), ast -> ast.setFunction(square))
+        ));
+        Assertions.assertEquals(49, run(source)[0]);
+    }
+
+    @Test
+    void testDivideByZero() throws ReflectiveOperationException {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "LET zero: Integer = 0;",
+                "DEF main(): Integer DO",
+                "    print(1 / zero);",
+                "END"
+        )).lex()).parseSource();
+        new Analyzer(null).visit(ast);
+        InvocationTargetException exception = Assertions.assertThrows(InvocationTargetException.class, () -> run(ast));
+        Assertions.assertEquals(ArithmeticException.class, exception.getCause().getClass());
+    }
+
+    /**
+     * Generates and loads the class, returning the result of main and
+     * everything it printed.
+     */
+    private static Object[] run(Ast.Source ast) throws ReflectiveOperationException {
+        byte[] bytecode = new BytecodeGenerator("Main").generate(ast);
+        Class<?> main = BytecodeGenerator.define("Main", bytecode);
+        Object instance = main.getConstructor().newInstance();
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            return new Object[] {main.getMethod("main").invoke(instance), out.toString()};
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    private static String lines(String... lines) {
+        return String.join(System.lineSeparator(), lines) + System.lineSeparator();
+    }
+
+    private static <T> T init(T value, Consumer<T> initializer) {
+        initializer.accept(value);
+        return value;
+    }
+
+}
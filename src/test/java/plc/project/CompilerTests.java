@@ -0,0 +1,214 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Compiled programs are checked against the {@link Interpreter}, comparing
+ * both the value returned by main and everything printed.
+ */
+final class CompilerTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testSource(String test, String input, Object expected) {
+        Ast.Source ast = new Parser(new Lexer(input).lex()).parseSource();
+        test(ast, expected);
+    }
+
+    private static Stream<Arguments> testSource() {
+        return Stream.of(
+                Arguments.of("Return", String.join("\n",
+                        "DEF main() DO",
+                        "    RETURN 1 + 2 * 3;",
+                        "END"
+                ), BigInteger.valueOf(7)),
+                Arguments.of("Fields", String.join("\n",
+                        "LET x: Integer = 1;",
+                        "LET y: Integer = x + 10;",
+                        "DEF main() DO",
+                        "    x = x + y;",
+                        "    print(x);",
+                        "    RETURN x;",
+                        "END"
+                ), BigInteger.valueOf(12)),
+                Arguments.of("Operators", String.join("\n",
+                        "DEF main() DO",
+                        "    print(1 < 2 AND 2.0 >= 1.5);",
+                        "    print(\"a\" + 1 == \"a1\");",
+                        "    print('a' != 'b' OR 1 / 0 == 0);",
+                        "    print(7 / 2 - 1 > 0 AND 1.0 / 4.0 < 0.3);",
+                        "END"
+                ), null),
+                Arguments.of("Loops", String.join("\n",
+                        "DEF main() DO",
+                        "    LET i = 0;",
+                        "    LET total = 0;",
+                        "    WHILE i < 10 DO",
+                        "        LET square = i * i;",
+                        "        IF square > 20 DO",
+                        "            RETURN total;",
+                        "        END",
+                        "        total = total + square;",
+                        "        i = i + 1;",
+                        "    END",
+                        "END"
+                ), BigInteger.valueOf(30)),
+                Arguments.of("Calls", String.join("\n",
+                        "LET calls: Integer = 0;",
+                        "DEF main() DO",
+                        "    print(double(double(3)));",
+                        "    RETURN calls;",
+                        "END",
+                        "DEF double(x: Integer) DO",
+                        "    calls = calls + 1;",
+                        "    RETURN x * 2;",
+                        "END"
+                ), BigInteger.valueOf(2)),
+                Arguments.of("Recursion", String.join("\n",
+                        "DEF main() DO",
+                        "    RETURN fib(15);",
+                        "END",
+                        "DEF fib(n: Integer) DO",
+                        "    IF n < 2 DO",
+                        "        RETURN n;",
+                        "    END",
+                        "    RETURN fib(n - 1) + fib(n - 2);",
+                        "END"
+                ), BigInteger.valueOf(610)),
+                Arguments.of("Range", String.join("\n",
+                        "DEF main() DO",
+                        "    LET total = 0;",
+                        "    FOR i IN range(0, 100) DO",
+                        "        IF i > 50 DO",
+                        "            RETURN total;",
+                        "        END",
+                        "        total = total + i;",
+                        "    END",
+                        "END"
+                ), BigInteger.valueOf(1275)),
+                Arguments.of("Shadowed Range", String.join("\n",
+                        "DEF range(start: Integer, end: Integer) DO",
+                        "    RETURN 7;",
+                        "END",
+                        "DEF main() DO",
+                        "    RETURN range(1, 2);",
+                        "END"
+                ), BigInteger.valueOf(7)),
+                Arguments.of("Overflow", String.join("\n",
+                        "DEF main() DO",
+                        "    LET x: Integer = 1;",
+                        "    LET i: Integer = 0;",
+                        "    WHILE i < 40 DO",
+                        "        x = x * 2;",
+                        "        i = i + 1;",
+                        "    END",
+                        "    print(x - 1);",
+                        "    x = x / 1048576;",
+                        "    print(x + 1);",
+                        "    print(-2147483648 / -1);",
+                        "    RETURN x * x * x;",
+                        "END"
+                ), BigInteger.ONE.shiftLeft(60))
+        );
+    }
+
+    @Test
+    void testAnalyzed() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "LET field: Integer = 3;",
+                "DEF main(): Integer DO",
+                "    LET x: Integer = 0;",
+                "    LET y = x * 2 + field - 1;",
+                "    WHILE x < 8 DO",
+                "        x = x + 1;",
+                "    END",
+                "    IF x >= 8 AND y < 10 DO",
+                "        print(y / 2);",
+                "    ELSE",
+                "        print(y);",
+                "    END",
+                "    print(2.5 * 2.0);",
+                "END"
+        )).lex()).parseSource();
+        new Analyzer(null).visit(ast);
+        test(ast, Environment.NIL.getValue());
+    }
+
+    @Test
+    void testRepeatedRuns() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "LET count: Integer = 0;",
+                "DEF main() DO",
+                "    count = count + 1;",
+                "    RETURN count;",
+                "END"
+        )).lex()).parseSource();
+        Compiler.Program program = new Compiler(null).compile(ast);
+        Assertions.assertEquals(BigInteger.ONE, program.run().getValue());
+        Assertions.assertEquals(BigInteger.ONE, program.run().getValue());
+    }
+
+    @Test
+    void testJavaIterable() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF main() DO",
+                "    LET sum = 0;",
+                "    FOR n IN integers DO",
+                "        sum = sum + n * n;",
+                "    END",
+                "    RETURN sum;",
+                "END"
+        )).lex()).parseSource();
+        Scope scope = new Scope(null);
+        scope.defineVariable("integers", Environment.create(Arrays.asList(1, 2, 3, 4)));
+        Assertions.assertEquals(BigInteger.valueOf(30), new Interpreter(scope).visit(ast).getValue());
+        Assertions.assertEquals(BigInteger.valueOf(30), new Compiler(scope).compile(ast).run().getValue());
+    }
+
+    @Test
+    void testUndefinedFunction() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF main() DO",
+                "    undefined();",
+                "END"
+        )).lex()).parseSource();
+        Assertions.assertThrows(RuntimeException.class, () -> new Compiler(null).compile(ast));
+    }
+
+    /**
+     * Runs the source with both the interpreter and the compiler and checks
+     * they agree. If expected is null, only the printed output is compared.
+     */
+    private static void test(Ast.Source ast, Object expected) {
+        Object[] interpreted = capture(() -> new Interpreter(null).visit(ast));
+        Object[] compiled = capture(() -> new Compiler(null).compile(ast).run());
+        Assertions.assertEquals(interpreted[1], compiled[1]);
+        Assertions.assertEquals(interpreted[0], compiled[0]);
+        if (expected != null) {
+            Assertions.assertEquals(expected, compiled[0]);
+        }
+    }
+
+    private static Object[] capture(Supplier<Environment.PlcObject> run) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            return new Object[] {run.get().getValue(), out.toString()};
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+}
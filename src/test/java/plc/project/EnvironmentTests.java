@@ -0,0 +1,70 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+final class EnvironmentTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testCreate(String test, Object value, Environment.Type type) {
+        Environment.PlcObject object = Environment.create(value);
+        Assertions.assertEquals(value, object.getValue());
+        Assertions.assertEquals(type.getName(), object.getType().getName());
+        Assertions.assertThrows(RuntimeException.class, () -> object.getField("field"));
+        Assertions.assertThrows(RuntimeException.class, () -> object.callMethod("stringify", Arrays.asList()));
+    }
+
+    private static Stream<Arguments> testCreate() {
+        return Stream.of(
+                Arguments.of("Boolean", true, Environment.Type.BOOLEAN),
+                Arguments.of("Small Integer", BigInteger.TEN, Environment.Type.INTEGER),
+                Arguments.of("Large Integer", new BigInteger("123456789012345678901234567890"), Environment.Type.INTEGER),
+                Arguments.of("Decimal", new BigDecimal("1.5"), Environment.Type.DECIMAL),
+                Arguments.of("Character", 'c', Environment.Type.CHARACTER),
+                Arguments.of("String", "string", Environment.Type.STRING),
+                Arguments.of("Other", new Object[0].getClass(), Environment.Type.ANY)
+        );
+    }
+
+    @Test
+    void testCached() {
+        Assertions.assertSame(Environment.NIL, Environment.create(null));
+        Assertions.assertSame(Environment.create(true), Environment.create(Boolean.TRUE));
+        Assertions.assertNotSame(Environment.create(true), Environment.create(false));
+        Assertions.assertSame(Environment.create(BigInteger.valueOf(-128)), Environment.create(new BigInteger("-128")));
+        Assertions.assertSame(Environment.create(BigInteger.valueOf(1024)), Environment.create(new BigInteger("1024")));
+        Assertions.assertNotSame(Environment.create(BigInteger.valueOf(1025)), Environment.create(BigInteger.valueOf(1025)));
+    }
+
+    @Test
+    void testCallMethod() {
+        Scope scope = new Scope(null);
+        scope.defineFunction("method", 2, args -> Environment.create(args.get(0).getValue() + ":" + args.get(1).getValue()));
+        Environment.PlcObject object = new Environment.PlcObject(scope, "object");
+        Environment.PlcObject[] arguments = {null, Environment.create("argument")};
+        Assertions.assertEquals("object:argument", object.callMethod("method", arguments).getValue());
+        Assertions.assertEquals("object:argument", object.callMethod("method", Arrays.asList(Environment.create("argument"))).getValue());
+    }
+
+    @Test
+    void testFunctionKey() {
+        Scope scope = new Scope(new Scope(null));
+        scope.getParent().defineFunction("function", 1, args -> Environment.NIL);
+        Scope.Key key = new Scope.Key("function", 1);
+        Assertions.assertEquals(new Scope.Key("function", 1), key);
+        Assertions.assertNotEquals(new Scope.Key("function", 2), key);
+        Assertions.assertEquals("function/1", key.toString());
+        Assertions.assertSame(scope.lookupFunction("function", 1), scope.lookupFunction(key));
+        Assertions.assertThrows(RuntimeException.class, () -> scope.lookupFunction(new Scope.Key("function", 2)));
+    }
+
+}
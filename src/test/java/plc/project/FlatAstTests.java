@@ -0,0 +1,140 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.stream.Stream;
+
+final class FlatAstTests {
+
+    @ParameterizedTest
+    @MethodSource
+    void testRoundTrip(String test, String input) {
+        Ast.Source ast = parse(input);
+        FlatAst flat = FlatAst.of(ast);
+        Assertions.assertEquals(ast, flat.toAst());
+        Assertions.assertEquals(FlatAst.Kind.SOURCE, flat.getKind(flat.getRoot()));
+    }
+
+    @ParameterizedTest
+    @MethodSource("testRoundTrip")
+    void testGenerate(String test, String input) {
+        Ast.Source ast = parse(input);
+        FlatAst flat = FlatAst.of(ast);
+        new Analyzer(null).visit(ast);
+        flat.analyze(new Analyzer(null));
+        Assertions.assertEquals(generate(ast), generate(flat));
+        Assertions.assertEquals(generate(ast), generate(FlatAst.of(ast)));
+    }
+
+    @Test
+    void testAnalyzeMissingMain() {
+        FlatAst flat = FlatAst.of(parse(String.join("\n",
+                "DEF main(): Nil DO",
+                "    print(1);",
+                "END"
+        )));
+        Assertions.assertThrows(RuntimeException.class, () -> flat.analyze(new Analyzer(null)));
+    }
+
+    private static Stream<Arguments> testRoundTrip() {
+        return Stream.of(
+                Arguments.of("Main", String.join("\n",
+                        "DEF main(): Integer DO",
+                        "    print(\"Hello, World!\");",
+                        "END"
+                )),
+                Arguments.of("Fields", String.join("\n",
+                        "LET count: Integer = 0;",
+                        "LET name: String;",
+                        "DEF main(): Integer DO",
+                        "    WHILE count < 3 DO",
+                        "        count = count + 1;",
+                        "    END",
+                        "    print(name.length);",
+                        "    print(name.slice(1, count));",
+                        "END"
+                )),
+                Arguments.of("Statements", String.join("\n",
+                        "DEF log(): Nil DO",
+                        "    print(\"small\");",
+                        "END",
+                        "DEF main(): Integer DO",
+                        "    LET total: Integer = 0;",
+                        "    LET value: Decimal = 1.5;",
+                        "    FOR i IN range(0, 5) DO",
+                        "        IF i > 2 AND TRUE DO",
+                        "            total = total + i;",
+                        "        ELSE",
+                        "            log();",
+                        "            print('c');",
+                        "        END",
+                        "    END",
+                        "    print(total * 2);",
+                        "END"
+                ))
+        );
+    }
+
+    @Test
+    void testCursor() {
+        FlatAst flat = FlatAst.of(parse(String.join("\n",
+                "LET x: Integer = 1 + 2;",
+                "DEF main(): Integer DO",
+                "    print(x);",
+                "END"
+        )));
+        FlatAst.Cursor cursor = flat.cursor();
+        Assertions.assertEquals(FlatAst.Kind.SOURCE, cursor.getKind());
+        Assertions.assertEquals(2, cursor.getChildCount());
+        cursor.enter(0);
+        Assertions.assertEquals(FlatAst.Kind.FIELD, cursor.getKind());
+        Assertions.assertEquals("x", cursor.getName());
+        Assertions.assertEquals("Integer", cursor.getTypeName());
+        cursor.enter(0);
+        Assertions.assertEquals(FlatAst.Kind.BINARY, cursor.getKind());
+        Assertions.assertEquals("+", cursor.getName());
+        cursor.exit();
+        cursor.exit();
+        Assertions.assertThrows(IllegalStateException.class, cursor::exit);
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> cursor.enter(2));
+
+        // Counts the nodes of each tree, which are the same for a visitor
+        // over the cursor as over the encoding.
+        FlatAst.Visitor<Integer> count = new FlatAst.Visitor<>() {
+
+            @Override
+            public Integer visit(FlatAst.Cursor cursor) {
+                int total = 1;
+                for (int i = 0; i < cursor.getChildCount(); i++) {
+                    total += cursor.visit(this, i);
+                }
+                return total;
+            }
+
+        };
+        Assertions.assertEquals(flat.size(), (int) count.visit(cursor));
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseSource();
+    }
+
+    private static String generate(Ast.Source ast) {
+        StringWriter writer = new StringWriter();
+        new Generator(new PrintWriter(writer)).visit(ast);
+        return writer.toString();
+    }
+
+    private static String generate(FlatAst flat) {
+        StringWriter writer = new StringWriter();
+        flat.generate(new Generator(new PrintWriter(writer)));
+        return writer.toString();
+    }
+
+}
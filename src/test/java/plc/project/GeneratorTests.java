@@ -123,6 +123,33 @@ public class GeneratorTests {
         );
     }
 
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testForStatement(String test, Ast.Stmt.For ast, String expected) {
+        test(ast, expected);
+    }
+
+    private static Stream<Arguments> testForStatement() {
+        return Stream.of(
+                Arguments.of("Range",
+                        // FOR i IN range(0, 10) DO LET x: Integer; END
+                        new Ast.Stmt.For("i",
+                                init(new Ast.Expr.Function(Optional.empty(), "range", Arrays.asList(
+                                        init(new Ast.Expr.Literal(BigInteger.ZERO), ast -> ast.setType(Environment.Type.INTEGER)),
+                                        init(new Ast.Expr.Literal(BigInteger.TEN), ast -> ast.setType(Environment.Type.INTEGER))
+                                )), ast -> ast.setFunction(new Environment.Function("range", Environment.RANGE, Arrays.asList(Environment.Type.INTEGER, Environment.Type.INTEGER), Environment.Type.INTEGER_ITERABLE, args -> Environment.NIL))),
+                                Arrays.asList(init(new Ast.Stmt.Declaration("x", Optional.of("Integer"), Optional.empty()), ast -> ast.setVariable(new Environment.Variable("x", "x", Environment.Type.INTEGER, Environment.NIL))))
+                        ),
+                        String.join(System.lineSeparator(),
+                                "for (int i$ = 0, i$end = 10; i$ < i$end; i$++) {",
+                                "    int i = i$;",
+                                "    int x;",
+                                "}"
+                        )
+                )
+        );
+    }
+
     @ParameterizedTest(name = "{0}")
     @MethodSource
     void testBinaryExpression(String test, Ast.Expr.Binary ast, String expected) {
@@ -0,0 +1,100 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+final class IncrementalParserTests {
+
+    private static final String SOURCE = String.join("\n",
+            "LET x: Integer = 1;",
+            "LET name: String;",
+            "DEF f(): Integer DO",
+            "    LET y = x;",
+            "    IF y > 0 DO",
+            "        RETURN y;",
+            "    END",
+            "END",
+            "DEF main(): Integer DO",
+            "    print(\"Hello, World!\");",
+            "END",
+            ""
+    );
+
+    @ParameterizedTest
+    @MethodSource
+    void testReparse(String test, String target, int removed, String inserted) {
+        int offset = SOURCE.indexOf(target);
+        List<Token> tokens = new Lexer(SOURCE).lex();
+        IncrementalParser.Result result = IncrementalParser.reparse(new Parser(tokens).parseSource(), tokens, offset, removed, inserted);
+        String edited = SOURCE.substring(0, offset) + inserted + SOURCE.substring(offset + removed);
+        List<Token> expected = new Lexer(edited).lex();
+        Assertions.assertEquals(expected, result.getTokens());
+        Assertions.assertEquals(new Parser(expected).parseSource(), result.getSource());
+    }
+
+    private static Stream<Arguments> testReparse() {
+        return Stream.of(
+                Arguments.of("Field Value", "1;", 1, "12"),
+                Arguments.of("Join Identifier", "y;", 1, "yy"),
+                Arguments.of("Method Statement", "    print", 0, "    f();\n"),
+                Arguments.of("Between Methods", "DEF main", 0, "DEF g() DO END\n"),
+                Arguments.of("Between Fields", "LET name", 0, "LET z: Decimal;\n"),
+                Arguments.of("Remove Field", "LET name: String;\n", 18, ""),
+                Arguments.of("Across Methods", "END\nDEF main", "END\nDEF main(): Integer DO\n".length(), ""),
+                Arguments.of("Rest of File", "\n", SOURCE.length() - SOURCE.indexOf('\n'), "\nDEF g() DO END"),
+                Arguments.of("Whitespace", "    LET y", 4, "  ")
+        );
+    }
+
+    @Test
+    void testReuse() {
+        List<Token> tokens = new Lexer(SOURCE).lex();
+        Ast.Source ast = new Parser(tokens).parseSource();
+        IncrementalParser.Result result = IncrementalParser.reparse(ast, tokens, SOURCE.indexOf("Hello"), 5, "Goodbye");
+        Assertions.assertSame(ast.getFields().get(0), result.getSource().getFields().get(0));
+        Assertions.assertSame(ast.getFields().get(1), result.getSource().getFields().get(1));
+        Assertions.assertSame(ast.getMethods().get(0), result.getSource().getMethods().get(0));
+        Assertions.assertNotSame(ast.getMethods().get(1), result.getSource().getMethods().get(1));
+        Assertions.assertSame(tokens.get(0), result.getTokens().get(0));
+    }
+
+    @Test
+    void testTokenReuse() {
+        List<Token> tokens = new Lexer(SOURCE).lex();
+        IncrementalParser.Result result = IncrementalParser.Result.of(new Parser(tokens).parseSource(), tokens);
+        IncrementalParser.Result edited = IncrementalParser.reparse(result, SOURCE.indexOf("1;"), 1, "12");
+        Assertions.assertNotSame(result.getTokens(0), edited.getTokens(0));
+        for (int i = 1; i < 4; i++) {
+            Assertions.assertSame(result.getTokens(i), edited.getTokens(i));
+            Assertions.assertEquals(result.getStart(i) + 1, edited.getStart(i));
+        }
+
+        String text = SOURCE.replace("x: Integer = 1", "x: Integer = 12");
+        int offset = text.indexOf("y > 0");
+        edited = IncrementalParser.reparse(edited, offset, 1, "x");
+        text = text.substring(0, offset) + "x" + text.substring(offset + 1);
+        Assertions.assertEquals(new Lexer(text).lex(), edited.getTokens());
+        Assertions.assertEquals(new Parser(new Lexer(text).lex()).parseSource(), edited.getSource());
+    }
+
+    @Test
+    void testError() {
+        List<Token> tokens = new Lexer(SOURCE).lex();
+        Ast.Source ast = new Parser(tokens).parseSource();
+        String field = "LET w: Integer;";
+        int offset = SOURCE.indexOf("DEF main");
+        ParseException expected = Assertions.assertThrows(ParseException.class,
+                () -> new Parser(new Lexer(SOURCE.substring(0, offset) + field + SOURCE.substring(offset)).lex()).parseSource());
+        ParseException actual = Assertions.assertThrows(ParseException.class,
+                () -> IncrementalParser.reparse(ast, tokens, offset, 0, field));
+        Assertions.assertEquals(expected.getIndex(), actual.getIndex());
+        Assertions.assertThrows(ParseException.class, () -> IncrementalParser.reparse(ast, tokens, SOURCE.indexOf("\"Hello"), 1, ""));
+    }
+
+}
@@ -83,6 +83,16 @@ final class InterpreterTests {
                         )),
                         Arrays.asList(Environment.create(BigInteger.TEN)),
                         BigInteger.valueOf(100)
+                ),
+                Arguments.of("Multiple Arguments",
+                        new Ast.Method("main", Arrays.asList("x", "y"), Arrays.asList(
+                                new Ast.Stmt.Return(new Ast.Expr.Binary("-",
+                                        new Ast.Expr.Access(Optional.empty(), "x"),
+                                        new Ast.Expr.Access(Optional.empty(), "y")
+                                ))
+                        )),
+                        Arrays.asList(Environment.create(BigInteger.TEN), Environment.create(BigInteger.ONE)),
+                        BigInteger.valueOf(9)
                 )
         );
     }
@@ -196,6 +206,42 @@ final class InterpreterTests {
         Assertions.assertEquals(BigInteger.TEN, scope.lookupVariable("sum").getValue().getValue());
     }
 
+    @ParameterizedTest
+    @MethodSource
+    void testForRange(String test, Ast.Expr value, Object expected) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("sum", Environment.create(BigInteger.ZERO));
+        scope.defineVariable("integers", Environment.create(Arrays.asList(1, 2, 3, 4)));
+        test(new Ast.Stmt.For("num", value, Arrays.asList(
+                new Ast.Stmt.Declaration("square", Optional.empty(), Optional.of(new Ast.Expr.Binary("*",
+                        new Ast.Expr.Access(Optional.empty(), "num"),
+                        new Ast.Expr.Access(Optional.empty(), "num")
+                ))),
+                new Ast.Stmt.Assignment(
+                        new Ast.Expr.Access(Optional.empty(), "sum"),
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Access(Optional.empty(), "sum"),
+                                new Ast.Expr.Access(Optional.empty(), "square")
+                        )
+                )
+        )), Environment.NIL.getValue(), scope);
+        Assertions.assertEquals(expected, scope.lookupVariable("sum").getValue().getValue());
+    }
+
+    private static Stream<Arguments> testForRange() {
+        return Stream.of(
+                Arguments.of("Range", new Ast.Expr.Function(Optional.empty(), "range", Arrays.asList(
+                        new Ast.Expr.Literal(BigInteger.ONE),
+                        new Ast.Expr.Literal(BigInteger.valueOf(5))
+                )), BigInteger.valueOf(30)),
+                Arguments.of("Empty Range", new Ast.Expr.Function(Optional.empty(), "range", Arrays.asList(
+                        new Ast.Expr.Literal(BigInteger.valueOf(5)),
+                        new Ast.Expr.Literal(BigInteger.ONE)
+                )), BigInteger.ZERO),
+                Arguments.of("Java Integers", new Ast.Expr.Access(Optional.empty(), "integers"), BigInteger.valueOf(30))
+        );
+    }
+
     @Test
     void testWhileStatement() {
         Scope scope = new Scope(null);
@@ -315,10 +361,141 @@ final class InterpreterTests {
                                 new Ast.Expr.Literal(new BigDecimal("3.4"))
                         ),
                         new BigDecimal("0.4")
+                ),
+                Arguments.of("Not Equal",
+                        new Ast.Expr.Binary("!=",
+                                new Ast.Expr.Literal(BigInteger.ONE),
+                                new Ast.Expr.Literal(BigInteger.TEN)
+                        ),
+                        true
+                ),
+                Arguments.of("Mixed Concatenation",
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Literal("a"),
+                                new Ast.Expr.Literal(BigInteger.ONE)
+                        ),
+                        "a1"
+                ),
+                Arguments.of("Divide By Zero",
+                        new Ast.Expr.Binary("/",
+                                new Ast.Expr.Literal(BigInteger.ONE),
+                                new Ast.Expr.Literal(BigInteger.ZERO)
+                        ),
+                        null
+                ),
+                Arguments.of("Mismatched Comparison",
+                        new Ast.Expr.Binary("<",
+                                new Ast.Expr.Literal(BigInteger.ONE),
+                                new Ast.Expr.Literal(BigDecimal.ONE)
+                        ),
+                        null
                 )
         );
     }
 
+    @Test
+    void testCachedFunction() {
+        Ast.Expr.Function call = new Ast.Expr.Function(Optional.empty(), "function", Arrays.asList());
+        Scope first = new Scope(null);
+        first.defineFunction("function", 0, args -> Environment.create("first"));
+        Scope second = new Scope(null);
+        second.defineFunction("function", 0, args -> Environment.create("second"));
+        Interpreter interpreter = new Interpreter(first);
+        Assertions.assertEquals("first", interpreter.visit(call).getValue());
+        Assertions.assertEquals("first", interpreter.visit(call).getValue());
+        Assertions.assertEquals("second", new Interpreter(second).visit(call).getValue());
+        Assertions.assertEquals("first", interpreter.visit(call).getValue());
+    }
+
+    @Test
+    void testCachedMethod() {
+        Ast.Expr.Function call = new Ast.Expr.Function(Optional.of(new Ast.Expr.Access(Optional.empty(), "object")), "method", Arrays.asList());
+        Scope first = new Scope(null);
+        first.defineFunction("method", 1, args -> Environment.create("first"));
+        Scope second = new Scope(null);
+        second.defineFunction("method", 1, args -> Environment.create("second"));
+        Scope scope = new Scope(null);
+        scope.defineVariable("object", new Environment.PlcObject(first, "first"));
+        Interpreter interpreter = new Interpreter(scope);
+        Assertions.assertEquals("first", interpreter.visit(call).getValue());
+        Assertions.assertEquals("first", interpreter.visit(call).getValue());
+        scope.lookupVariable("object").setValue(new Environment.PlcObject(second, "second"));
+        Assertions.assertEquals("second", interpreter.visit(call).getValue());
+        Assertions.assertSame(call.getKey(), call.getKey());
+    }
+
+    @Test
+    void testReturnStopsExecution() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF main() DO",
+                "    LET i = 0;",
+                "    WHILE i < 10 DO",
+                "        IF i == 3 DO",
+                "            print(find());",
+                "            RETURN i;",
+                "        END",
+                "        i = i + 1;",
+                "    END",
+                "    print(\"unreachable\");",
+                "END",
+                "DEF find() DO",
+                "    FOR n IN list DO",
+                "        IF n > 1 DO",
+                "            RETURN n;",
+                "        END",
+                "        print(n);",
+                "    END",
+                "    RETURN -1;",
+                "END"
+        )).lex()).parseSource();
+        Scope scope = new Scope(null);
+        scope.defineVariable("list", Environment.create(IntStream.range(0, 5)
+                .mapToObj(i -> Environment.create(BigInteger.valueOf(i)))
+                .collect(Collectors.toList())));
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            test(ast, BigInteger.valueOf(3), scope);
+            Assertions.assertEquals(String.join(System.lineSeparator(), "0", "1", "2", ""), out.toString());
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+    @Test
+    void testReturnOutsideMethod() {
+        Scope scope = new Scope(null);
+        scope.defineVariable("total", Environment.create(BigInteger.ZERO));
+        scope.defineVariable("values", Environment.create(Arrays.asList(0, 1, 2)));
+        Interpreter interpreter = new Interpreter(scope);
+        Assertions.assertThrows(RuntimeException.class, () -> interpreter.visit(new Ast.Stmt.Return(new Ast.Expr.Literal(BigInteger.ONE))));
+        interpreter.visit(new Ast.Stmt.For("i", new Ast.Expr.Access(Optional.empty(), "values"), Arrays.asList(new Ast.Stmt.Assignment(
+                new Ast.Expr.Access(Optional.empty(), "total"),
+                new Ast.Expr.Binary("+",
+                        new Ast.Expr.Access(Optional.empty(), "total"),
+                        new Ast.Expr.Access(Optional.empty(), "i")
+                )
+        ))));
+        Assertions.assertEquals(BigInteger.valueOf(3), scope.lookupVariable("total").getValue().getValue());
+    }
+
+    @Test
+    void testBinaryEvaluatesOperandsOnce() {
+        int[] calls = {0};
+        Scope scope = new Scope(null);
+        scope.defineFunction("count", 0, args -> {
+            calls[0]++;
+            return Environment.create(BigInteger.ONE);
+        });
+        Ast.Expr expr = new Ast.Expr.Function(Optional.empty(), "count", Arrays.asList());
+        for (int i = 0; i < 30; i++) {
+            expr = new Ast.Expr.Binary(i % 2 == 0 ? "+" : "*", expr, new Ast.Expr.Function(Optional.empty(), "count", Arrays.asList()));
+        }
+        test(expr, BigInteger.valueOf(16), scope);
+        Assertions.assertEquals(31, calls[0]);
+    }
+
     @ParameterizedTest
     @MethodSource
     void testAccessExpression(String test, Ast ast, Object expected) {
@@ -367,6 +544,13 @@ final class InterpreterTests {
                 Arguments.of("Print",
                         new Ast.Expr.Function(Optional.empty(), "print", Arrays.asList(new Ast.Expr.Literal("Hello, World!"))),
                         Environment.NIL.getValue()
+                ),
+                Arguments.of("Literal Method",
+                        new Ast.Expr.Function(Optional.of(new Ast.Expr.Literal("abc")), "slice", Arrays.asList(
+                                new Ast.Expr.Literal(BigInteger.ZERO),
+                                new Ast.Expr.Literal(BigInteger.ONE)
+                        )),
+                        null
                 )
         );
     }
@@ -6,6 +6,13 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.List;
 import java.util.stream.Stream;
@@ -25,7 +32,8 @@ public class LexerTests {
                 Arguments.of("Middle Hyphen", "the-legend27", true),
                 Arguments.of("Multihyphen", "T------", true),
                 Arguments.of("Leading Hyphen", "-five", false),
-                Arguments.of("Leading Digit", "1fish2fish3fishbluefish", false)
+                Arguments.of("Leading Digit", "1fish2fish3fishbluefish", false),
+                Arguments.of("Bracket", "list[0]", false)
         );
     }
 
@@ -91,7 +99,8 @@ public class LexerTests {
                 Arguments.of("Alphabetic", "\"abc\"", true),
                 Arguments.of("Newline Escape", "\"Hello,\\nWorld\"", true),
                 Arguments.of("Unterminated", "\"unterminated", false),
-                Arguments.of("Invalid Escape", "\"invalid\\escape\"", false)
+                Arguments.of("Invalid Escape", "\"invalid\\escape\"", false),
+                Arguments.of("Leading Invalid Escape", "\"\\escape\"", false)
         );
     }
 
@@ -143,6 +152,60 @@ public class LexerTests {
         Assertions.assertEquals(13, exception.getIndex());
     }
 
+    @Test
+    void testSymbols() {
+        List<Token> tokens = new Lexer("LET x <= \"LET\" != LETTER;").lex();
+        Assertions.assertEquals(Token.Symbol.LET, tokens.get(0).getSymbol());
+        Assertions.assertEquals(null, tokens.get(1).getSymbol());
+        Assertions.assertEquals(Token.Symbol.LESS_EQUAL, tokens.get(2).getSymbol());
+        Assertions.assertEquals(null, tokens.get(3).getSymbol());
+        Assertions.assertEquals(Token.Symbol.NOT_EQUAL, tokens.get(4).getSymbol());
+        Assertions.assertEquals(null, tokens.get(5).getSymbol());
+        Assertions.assertEquals(Token.Symbol.SEMICOLON, tokens.get(6).getSymbol());
+        for (Token.Symbol symbol : Token.Symbol.values()) {
+            Assertions.assertEquals(symbol, Token.Symbol.lookup(symbol.getLiteral()));
+        }
+    }
+
+    @Test
+    void testTokenBuffer() {
+        String input = "LET x = 5; print(\"Hello, World!\");";
+        List<Token> expected = new Lexer(input).lex();
+        TokenBuffer buffer = new Lexer(input).lexBuffer();
+        Assertions.assertEquals(expected.size(), buffer.size());
+        for (int i = 0; i < buffer.size(); i++) {
+            Assertions.assertEquals(expected.get(i), buffer.get(i));
+        }
+    }
+
+    @Test
+    void testReaderInput() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            builder.append("LET x").append(i).append(" = \"value ").append(i).append("\";\n");
+        }
+        String input = builder.toString();
+        Assertions.assertEquals(new Lexer(input).lex(), new Lexer(new StringReader(input)).lex());
+        ParseException exception = Assertions.assertThrows(ParseException.class,
+                () -> new Lexer(new StringReader(input + "\"unterminated")).lex());
+        Assertions.assertEquals(input.length() + 13, exception.getIndex());
+    }
+
+    @Test
+    void testMappedInput() throws IOException {
+        String input = "LET name = \"h\u00e9llo\"; print(name);";
+        Path path = Files.createTempFile("lexer", ".plc");
+        try {
+            Files.write(path, input.getBytes(StandardCharsets.UTF_8));
+            try (FileChannel channel = FileChannel.open(path)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                Assertions.assertEquals(new Lexer(input).lex(), new Lexer(buffer).lex());
+            }
+        } finally {
+            Files.deleteIfExists(path);
+        }
+    }
+
     /**
      * Tests that lexing the input through {@link Lexer#lexToken()} produces a
      * single token with the expected type and literal matching the input.
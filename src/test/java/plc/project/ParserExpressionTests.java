@@ -213,6 +213,50 @@ final class ParserExpressionTests {
                                 new Ast.Expr.Access(Optional.empty(), "expr1"),
                                 new Ast.Expr.Access(Optional.empty(), "expr2")
                         )
+                ),
+                Arguments.of("Mixed Additive",
+                        Arrays.asList(
+                                //expr1 - expr2 + expr3
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.OPERATOR, "-", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 8),
+                                new Token(Token.Type.OPERATOR, "+", 14),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 16)
+                        ),
+                        new Ast.Expr.Binary("+",
+                                new Ast.Expr.Binary("-",
+                                        new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                        new Ast.Expr.Access(Optional.empty(), "expr2")
+                                ),
+                                new Ast.Expr.Access(Optional.empty(), "expr3")
+                        )
+                ),
+                Arguments.of("Precedence",
+                        Arrays.asList(
+                                //expr1 OR expr2 < expr3 + expr4 * expr5
+                                new Token(Token.Type.IDENTIFIER, "expr1", 0),
+                                new Token(Token.Type.IDENTIFIER, "OR", 6),
+                                new Token(Token.Type.IDENTIFIER, "expr2", 9),
+                                new Token(Token.Type.OPERATOR, "<", 15),
+                                new Token(Token.Type.IDENTIFIER, "expr3", 17),
+                                new Token(Token.Type.OPERATOR, "+", 23),
+                                new Token(Token.Type.IDENTIFIER, "expr4", 25),
+                                new Token(Token.Type.OPERATOR, "*", 31),
+                                new Token(Token.Type.IDENTIFIER, "expr5", 33)
+                        ),
+                        new Ast.Expr.Binary("OR",
+                                new Ast.Expr.Access(Optional.empty(), "expr1"),
+                                new Ast.Expr.Binary("<",
+                                        new Ast.Expr.Access(Optional.empty(), "expr2"),
+                                        new Ast.Expr.Binary("+",
+                                                new Ast.Expr.Access(Optional.empty(), "expr3"),
+                                                new Ast.Expr.Binary("*",
+                                                        new Ast.Expr.Access(Optional.empty(), "expr4"),
+                                                        new Ast.Expr.Access(Optional.empty(), "expr5")
+                                                )
+                                        )
+                                )
+                        )
                 )
         );
     }
@@ -8,10 +8,13 @@ import org.junit.jupiter.params.provider.MethodSource;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -552,6 +555,93 @@ final class ParserTests {
         test(input, expected, Parser::parseSource);
     }
 
+    @Test
+    void testStreamingSource() {
+        String input = String.join("\n",
+                "LET first: Integer = 1;",
+                "DEF main(): Integer DO",
+                "    WHILE first != 10 DO",
+                "        print(first);",
+                "        first = first + 1;",
+                "    END",
+                "END"
+        );
+        Ast.Source expected = new Parser(new Lexer(input).lex()).parseSource();
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).tokens()).parseSource());
+        Assertions.assertEquals(expected, new Parser(new Lexer(input).lexBuffer()).parseSource());
+    }
+
+    @Test
+    void testRecoveringSource() {
+        String input = String.join("\n",
+                "LET x: Integer = ;",
+                "DEF main(): Integer DO",
+                "    print(1);",
+                "    x = ;",
+                "    IF x DO",
+                "        y = 2",
+                "    ELSE",
+                "        print(2);",
+                "    END",
+                "END",
+                "?",
+                "DEF other() DO",
+                "    print(3);",
+                "END"
+        );
+        List<ParseException> errors = new ArrayList<>();
+        Ast.Source source = new Parser(new Lexer(input).lex()).parseSource(errors);
+        Assertions.assertEquals(4, errors.size(), errors.toString());
+        Assertions.assertEquals(Arrays.asList(17, 64, 96, 131), errors.stream().map(ParseException::getIndex).collect(Collectors.toList()));
+        Assertions.assertEquals(0, source.getFields().size());
+        Assertions.assertEquals(Arrays.asList("main", "other"), source.getMethods().stream().map(Ast.Method::getName).collect(Collectors.toList()));
+        Assertions.assertEquals(2, source.getMethods().get(0).getStatements().size());
+        Assertions.assertThrows(ParseException.class, () -> new Parser(new Lexer(input).lex()).parseSource());
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testRecoveringTruncatedSource(String test, String input, List<Integer> indices) {
+        List<ParseException> errors = new ArrayList<>();
+        new Parser(new Lexer(input).lex()).parseSource(errors);
+        Assertions.assertEquals(indices, errors.stream().map(ParseException::getIndex).collect(Collectors.toList()), errors.toString());
+        ParseException exception = Assertions.assertThrows(ParseException.class, () -> new Parser(new Lexer(input).lex()).parseSource());
+        Assertions.assertEquals((int) indices.get(0), exception.getIndex());
+    }
+
+    private static Stream<Arguments> testRecoveringTruncatedSource() {
+        return Stream.of(
+                Arguments.of("Missing Semicolon", "LET x: Integer = 1", Arrays.asList(18)),
+                Arguments.of("Bare Let", "LET", Arrays.asList(3)),
+                Arguments.of("Bare Def", "LET x: Integer = 1;\nDEF", Arrays.asList(23)),
+                Arguments.of("Missing Parameters", "DEF main(", Arrays.asList(9)),
+                Arguments.of("Missing End", "DEF main(): Integer DO", Arrays.asList(22)),
+                Arguments.of("Missing Statement End", "DEF main() DO\n    print(1)", Arrays.asList(26, 26)),
+                Arguments.of("Missing If End", "DEF main() DO\n    IF x DO", Arrays.asList(25, 25)),
+                Arguments.of("Identifier", "x", Arrays.asList(0))
+        );
+    }
+
+    @Test
+    void testHashCode() {
+        String input = String.join("\n",
+                "LET first: Integer = 1;",
+                "DEF main(): Integer DO",
+                "    IF first.compare(2) < 0 DO",
+                "        print(first);",
+                "    END",
+                "END"
+        );
+        Ast.Source first = new Parser(new Lexer(input).lex()).parseSource();
+        Ast.Source second = new Parser(new Lexer(input).lex()).parseSource();
+        Ast.Source other = new Parser(new Lexer(input.replace("2", "3")).lex()).parseSource();
+        Assertions.assertEquals(first.hashCode(), second.hashCode());
+        Assertions.assertEquals(first, second);
+        Assertions.assertNotEquals(first, other);
+        Assertions.assertTrue(new HashSet<>(Arrays.asList(first, other)).contains(second));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> first.getMethods().get(0).getStatements().clear());
+    }
+
     /**
      * Standard test function. If expected is null, a ParseException is expected
      * to be thrown (not used in the provided tests).
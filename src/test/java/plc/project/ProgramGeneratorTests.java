@@ -0,0 +1,80 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Tests that generated programs are valid by printing them and checking the
+ * lexer and parser produce the same AST again, and that typed programs also
+ * pass every later stage.
+ */
+final class ProgramGeneratorTests {
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource
+    void testSource(String test, long seed) {
+        Ast.Source expected = new ProgramGenerator(seed).generate(4096);
+        String source = ProgramGenerator.print(expected);
+        Assertions.assertEquals(expected, new Parser(new Lexer(source).lex()).parseSource());
+    }
+
+    private static Stream<Arguments> testSource() {
+        return LongStream.range(0, 20).mapToObj(seed -> Arguments.of("Seed " + seed, seed));
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("testSource")
+    void testTyped(String test, long seed) {
+        Ast.Source expected = new ProgramGenerator(seed).typed(4096);
+        String source = ProgramGenerator.print(expected);
+        Ast.Source ast = new Parser(new Lexer(source).lex()).parseSource();
+        Assertions.assertEquals(expected, ast);
+        new Analyzer(null).visit(ast);
+        String interpreted = capture(() -> new Interpreter(null).visit(ast));
+        String compiled = capture(() -> new Compiler(null).compile(ast).run());
+        Assertions.assertEquals(interpreted, compiled);
+        new Generator(new PrintWriter(Writer.nullWriter())).visit(ast);
+    }
+
+    @Test
+    void testDeterministic() {
+        Assertions.assertEquals(new ProgramGenerator(42).generate(1024), new ProgramGenerator(42).generate(1024));
+    }
+
+    @Test
+    void testChain() {
+        Ast.Expr expected = new ProgramGenerator(1).chain(500);
+        String source = ProgramGenerator.print(expected);
+        Assertions.assertEquals(expected, new Parser(new Lexer(source).lex()).parseExpression());
+    }
+
+    @Test
+    void testNested() {
+        Ast.Stmt expected = new ProgramGenerator(1).nested(100);
+        String source = ProgramGenerator.print(expected);
+        Assertions.assertEquals(expected, new Parser(new Lexer(source).lex()).parseStatement());
+    }
+
+    private static String capture(Runnable run) {
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            run.run();
+            return out.toString();
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+}
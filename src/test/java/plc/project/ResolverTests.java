@@ -0,0 +1,172 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+final class ResolverTests {
+
+    @Test
+    void testSlots() {
+        Ast.Source ast = parse(String.join("\n",
+                "LET first: Integer = 1;",
+                "LET second: Integer = first;",
+                "DEF main() DO",
+                "    LET x = second;",
+                "    IF x > 0 DO",
+                "        LET y = x;",
+                "        print(y);",
+                "    ELSE",
+                "        LET y = external;",
+                "    END",
+                "END",
+                "DEF identity(value: Integer) DO",
+                "    RETURN value;",
+                "END"
+        ));
+        new Resolver().visit(ast);
+        Assertions.assertEquals(0, ast.getFields().get(0).getSlot());
+        Assertions.assertEquals(1, ast.getFields().get(1).getSlot());
+        Ast.Expr.Access first = (Ast.Expr.Access) ast.getFields().get(1).getValue().get();
+        Assertions.assertEquals(Arrays.asList(Resolver.FIELD, 0), Arrays.asList(first.getDepth(), first.getSlot()));
+
+        Ast.Method main = ast.getMethods().get(0);
+        Assertions.assertEquals(3, main.getFrameSize());
+        Ast.Stmt.Declaration x = (Ast.Stmt.Declaration) main.getStatements().get(0);
+        Assertions.assertEquals(Arrays.asList(Resolver.LOCAL, 0), Arrays.asList(x.getDepth(), x.getSlot()));
+        Ast.Stmt.If branch = (Ast.Stmt.If) main.getStatements().get(1);
+        Ast.Stmt.Declaration then = (Ast.Stmt.Declaration) branch.getThenStatements().get(0);
+        Ast.Stmt.Declaration otherwise = (Ast.Stmt.Declaration) branch.getElseStatements().get(0);
+        Assertions.assertEquals(1, then.getSlot());
+        Assertions.assertEquals(2, otherwise.getSlot());
+        Assertions.assertEquals(-1, ((Ast.Expr.Access) otherwise.getValue().get()).getSlot());
+
+        Ast.Method identity = ast.getMethods().get(1);
+        Assertions.assertEquals(1, identity.getFrameSize());
+        Ast.Expr.Access value = (Ast.Expr.Access) ((Ast.Stmt.Return) identity.getStatements().get(0)).getValue();
+        Assertions.assertEquals(Arrays.asList(Resolver.LOCAL, 0), Arrays.asList(value.getDepth(), value.getSlot()));
+    }
+
+    @ParameterizedTest
+    @MethodSource
+    void testInterpreter(String test, String input, Object expected) {
+        Ast.Source resolved = parse(input);
+        new Resolver().visit(resolved);
+        Object[] unresolved = run(parse(input));
+        Object[] actual = run(resolved);
+        Assertions.assertEquals(unresolved[0], actual[0]);
+        Assertions.assertEquals(unresolved[1], actual[1]);
+        Assertions.assertEquals(expected, actual[0]);
+    }
+
+    private static Stream<Arguments> testInterpreter() {
+        return Stream.of(
+                Arguments.of("Fields", String.join("\n",
+                        "LET x: Integer = 1;",
+                        "LET y: Integer = x + 10;",
+                        "DEF main() DO",
+                        "    x = x + y;",
+                        "    print(x);",
+                        "    RETURN x;",
+                        "END"
+                ), BigInteger.valueOf(12)),
+                Arguments.of("Blocks", String.join("\n",
+                        "DEF main() DO",
+                        "    LET total = 0;",
+                        "    LET i = 0;",
+                        "    WHILE i < 5 DO",
+                        "        LET square = i * i;",
+                        "        IF square > 5 DO",
+                        "            LET half = square / 2;",
+                        "            total = total + half;",
+                        "        ELSE",
+                        "            total = total + square;",
+                        "        END",
+                        "        i = i + 1;",
+                        "    END",
+                        "    FOR n IN list DO",
+                        "        total = total + n;",
+                        "    END",
+                        "    RETURN total;",
+                        "END"
+                ), BigInteger.valueOf(23)),
+                Arguments.of("Range", String.join("\n",
+                        "DEF main() DO",
+                        "    LET total = 0;",
+                        "    FOR i IN range(0, 10) DO",
+                        "        LET odd = i / 2 * 2 != i;",
+                        "        IF odd DO",
+                        "            total = total + i;",
+                        "        END",
+                        "    END",
+                        "    FOR i IN range(0, 3) DO",
+                        "        print(i);",
+                        "    END",
+                        "    RETURN total;",
+                        "END"
+                ), BigInteger.valueOf(25)),
+                Arguments.of("Range Calls", String.join("\n",
+                        "DEF main() DO",
+                        "    LET total = 0;",
+                        "    FOR i IN range(2000, 2003) DO",
+                        "        LET inner = sum(2);",
+                        "        total = total + inner + i;",
+                        "    END",
+                        "    RETURN total;",
+                        "END",
+                        "DEF sum(n: Integer) DO",
+                        "    FOR j IN range(0, 3) DO",
+                        "        n = n + j;",
+                        "    END",
+                        "    RETURN n;",
+                        "END"
+                ), BigInteger.valueOf(6018)),
+                Arguments.of("Recursion", String.join("\n",
+                        "DEF main() DO",
+                        "    RETURN fib(10);",
+                        "END",
+                        "DEF fib(n: Integer) DO",
+                        "    IF n < 2 DO",
+                        "        RETURN n;",
+                        "    END",
+                        "    LET previous = fib(n - 1);",
+                        "    RETURN previous + fib(n - 2);",
+                        "END"
+                ), BigInteger.valueOf(55))
+        );
+    }
+
+    private static Ast.Source parse(String input) {
+        return new Parser(new Lexer(input).lex()).parseSource();
+    }
+
+    /**
+     * Runs the source with a list variable in the parent scope, returning the
+     * result of main and the printed output.
+     */
+    private static Object[] run(Ast.Source ast) {
+        Scope scope = new Scope(null);
+        scope.defineVariable("list", Environment.create(IntStream.range(0, 4)
+                .mapToObj(i -> Environment.create(BigInteger.valueOf(i)))
+                .collect(Collectors.toList())));
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            return new Object[] {new Interpreter(scope).visit(ast).getValue(), out.toString()};
+        } finally {
+            System.setOut(sysout);
+        }
+    }
+
+}
@@ -0,0 +1,119 @@
+package plc.project;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+final class SourceCompilerTests {
+
+    private static final SourceCompiler COMPILER = new SourceCompiler();
+
+    @Test
+    void testRun() {
+        // DEF main(): Integer DO
+        //     print("Hello, World!");
+        //     RETURN 3;
+        // END
+        Ast.Source ast = new Ast.Source(
+                Arrays.asList(),
+                Arrays.asList(init(new Ast.Method("main", Arrays.asList(), Arrays.asList(), Optional.of("Integer"), Arrays.asList(
+                        new Ast.Stmt.Expression(init(new Ast.Expr.Function(Optional.empty(), "print", Arrays.asList(
+                                init(new Ast.Expr.Literal("Hello, World!"), expr -> expr.setType(Environment.Type.STRING))
+                        )), expr -> expr.setFunction(new Environment.Function("print", "System.out.println", Arrays.asList(Environment.Type.ANY), Environment.Type.NIL, args -> Environment.NIL)))),
+                        new Ast.Stmt.Return(init(new Ast.Expr.Literal(BigInteger.valueOf(3)), expr -> expr.setType(Environment.Type.INTEGER)))
+                )), method -> method.setFunction(new Environment.Function("main", "main", Arrays.asList(), Environment.Type.INTEGER, args -> Environment.NIL))))
+        );
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Assertions.assertEquals(3, COMPILER.run(ast));
+        } finally {
+            System.setOut(sysout);
+        }
+        Assertions.assertEquals("Hello, World!" + System.lineSeparator(), out.toString());
+    }
+
+    @Test
+    void testRange() {
+        Ast.Source ast = new Parser(new Lexer(String.join("\n",
+                "DEF main(): Integer DO",
+                "    LET total: Integer = 0;",
+                "    LET values: IntegerIterable = range(0, 4);",
+                "    FOR i IN values DO",
+                "        total = total + i;",
+                "    END",
+                "    LET limit: Integer = 3;",
+                "    FOR i IN range(0, limit) DO",
+                "        limit = limit + 1;",
+                "    END",
+                "    print(total);",
+                "    print(limit);",
+                "END"
+        )).lex()).parseSource();
+        new Analyzer(null).visit(ast);
+        // The analyzer does not accept RETURN yet, so the return is added to
+        // the analyzed method.
+        Ast.Method main = ast.getMethods().get(0);
+        List<Ast.Stmt> statements = new ArrayList<>(main.getStatements());
+        statements.add(new Ast.Stmt.Return(init(new Ast.Expr.Literal(BigInteger.ZERO), expr -> expr.setType(Environment.Type.INTEGER))));
+        Ast.Source source = new Ast.Source(Arrays.asList(), Arrays.asList(init(new Ast.Method(main.getName(), main.getParameters(),
+                main.getParameterTypeNames(), main.getReturnTypeName(), statements), method -> method.setFunction(main.getFunction()))));
+        PrintStream sysout = System.out;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(out));
+        try {
+            Assertions.assertEquals(0, COMPILER.run(source));
+        } finally {
+            System.setOut(sysout);
+        }
+        Assertions.assertEquals(String.join(System.lineSeparator(), "6", "6", ""), out.toString());
+    }
+
+    @Test
+    void testCache() {
+        SourceCompiler compiler = new SourceCompiler();
+        String source = "public class Main { int main() { return 1; } }";
+        Class<?> first = compiler.compile(source);
+        Assertions.assertSame(first, compiler.compile(new String(source)));
+        Assertions.assertEquals(1, compiler.size());
+        Class<?> second = compiler.compile("public class Main { int main() { return 2; } }");
+        Assertions.assertNotSame(first, second);
+        Assertions.assertEquals("Main", second.getName());
+        Assertions.assertEquals(2, compiler.size());
+    }
+
+    @Test
+    void testCacheCapacity() {
+        SourceCompiler compiler = new SourceCompiler(1);
+        String source = "public class Main { int main() { return 1; } }";
+        Class<?> first = compiler.compile(source);
+        compiler.compile("public class Main { int main() { return 2; } }");
+        Assertions.assertEquals(1, compiler.size());
+        Assertions.assertNotSame(first, compiler.compile(source));
+        Assertions.assertEquals(1, compiler.size());
+    }
+
+    @Test
+    void testCompileError() {
+        SourceCompiler compiler = new SourceCompiler();
+        RuntimeException exception = Assertions.assertThrows(RuntimeException.class,
+                () -> compiler.compile("public class Main { int main() { } }"));
+        Assertions.assertTrue(exception.getMessage().contains("line 1"), exception.getMessage());
+        Assertions.assertEquals(0, compiler.size());
+    }
+
+    private static <T> T init(T value, Consumer<T> initializer) {
+        initializer.accept(value);
+        return value;
+    }
+
+}